@@ -0,0 +1,53 @@
+package com.strava.stravacli.benchmark;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.util.ActivityWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of decoding start dates: per-activity wrappers versus building a columnar table */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ActivityWrapperBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<Activity> activities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        activities = SyntheticActivities.generate(size, 42);
+    }
+
+    @Benchmark
+    public void wrapAll(Blackhole blackhole) {
+        for (Activity activity : activities) {
+            blackhole.consume(new ActivityWrapper(activity));
+        }
+    }
+
+    @Benchmark
+    public ActivityTable buildTable() {
+        return ActivityTable.from(activities);
+    }
+}
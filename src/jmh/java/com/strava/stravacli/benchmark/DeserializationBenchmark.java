@@ -0,0 +1,58 @@
+package com.strava.stravacli.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.client.ActivityPageParser;
+import com.strava.stravacli.model.Activity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing one /athlete/activities page: String + readValue versus streaming from the body */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationBenchmark {
+
+    @Param({"10", "200"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ActivityPageParser pageParser = new ActivityPageParser(objectMapper);
+    private byte[] page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = SyntheticActivities.toJsonPage(SyntheticActivities.generate(pageSize, 42), 7);
+    }
+
+    @Benchmark
+    public List<Activity> readValueFromString() throws IOException {
+        String body = new String(page, StandardCharsets.UTF_8);
+        return objectMapper.readValue(body, new TypeReference<>() {});
+    }
+
+    @Benchmark
+    public int streamFromInputStream(Blackhole blackhole) throws IOException {
+        return pageParser.parse(new ByteArrayInputStream(page), blackhole::consume);
+    }
+}
@@ -0,0 +1,59 @@
+package com.strava.stravacli.benchmark;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.Heatmap;
+import com.strava.stravacli.services.HeatmapService;
+import com.strava.stravacli.util.PolylineDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Decoding every summary polyline alone, and the full two-pass heatmap at zoom 17 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HeatmapBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private final HeatmapService service = new HeatmapService(new MetricsRegistry());
+    private final PolylineDecoder decoder = new PolylineDecoder();
+    private List<Activity> activities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        activities = SyntheticActivities.generate(size, 42);
+        activities.forEach(activity -> activity.setSummaryPolyline(SyntheticActivities.summaryPolyline(activity, 42)));
+    }
+
+    @Benchmark
+    public long decode() {
+        long points = 0;
+        for (Activity activity : activities) {
+            points += decoder.decode(activity.getSummaryPolyline());
+        }
+        return points;
+    }
+
+    @Benchmark
+    public Heatmap heatmap() {
+        return service.heatmap(activities, HeatmapService.DEFAULT_ZOOM);
+    }
+}
@@ -0,0 +1,54 @@
+package com.strava.stravacli.benchmark;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityPrediction;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.services.PredictionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PredictionBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private final PredictionService service = new PredictionService(new MetricsRegistry());
+    private List<Activity> activities;
+    private ActivityTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        activities = SyntheticActivities.generate(size, 42);
+        table = ActivityTable.from(activities);
+    }
+
+    @Benchmark
+    public ActivityPrediction getPredictions() {
+        return service.getPredictions(activities);
+    }
+
+    @Benchmark
+    public ActivityPrediction getPredictionsFromTable() {
+        return service.getPredictions(table);
+    }
+}
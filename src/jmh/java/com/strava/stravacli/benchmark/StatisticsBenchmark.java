@@ -0,0 +1,126 @@
+package com.strava.stravacli.benchmark;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.services.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Every StatisticsService metric on its own, plus the full single-pass statistics */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatisticsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private final StatisticsService service = new StatisticsService(new MetricsRegistry());
+    private List<Activity> activities;
+    private ActivityTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        activities = SyntheticActivities.generate(size, 42);
+        table = ActivityTable.from(activities);
+    }
+
+    @Benchmark
+    public ActivityStats getStatistics() {
+        return service.getStatistics(activities);
+    }
+
+    @Benchmark
+    public ActivityStats getStatisticsFromTable() {
+        return service.getStatistics(table);
+    }
+
+    @Benchmark
+    public int totalActivities() {
+        return service.totalActivities(activities);
+    }
+
+    @Benchmark
+    public double totalDistanceKm() {
+        return service.totalDistanceKm(activities);
+    }
+
+    @Benchmark
+    public double averageDistanceKm() {
+        return service.averageDistanceKm(activities);
+    }
+
+    @Benchmark
+    public double longestDistanceKm() {
+        return service.longestDistanceKm(activities);
+    }
+
+    @Benchmark
+    public Duration totalMovingTime() {
+        return service.totalMovingTime(activities);
+    }
+
+    @Benchmark
+    public double averageSpeedKmh() {
+        return service.averageSpeedKmh(activities);
+    }
+
+    @Benchmark
+    public double totalElevationGain() {
+        return service.totalElevationGain(activities);
+    }
+
+    @Benchmark
+    public String mostFrequentActivityType() {
+        return service.mostFrequentActivityType(activities);
+    }
+
+    @Benchmark
+    public double medianDistanceKm() {
+        return service.medianDistanceKm(activities);
+    }
+
+    @Benchmark
+    public int bestWeekNumber() {
+        return service.bestWeekNumber(activities);
+    }
+
+    @Benchmark
+    public double bestWeekDistance() {
+        return service.bestWeekDistance(activities);
+    }
+
+    @Benchmark
+    public int longestStreakDays() {
+        return service.longestStreakDays(activities);
+    }
+
+    @Benchmark
+    public double elevationPerKm() {
+        return service.elevationPerKm(activities);
+    }
+
+    @Benchmark
+    public Duration averagePacePerKm() {
+        return service.averagePacePerKm(activities);
+    }
+}
@@ -0,0 +1,50 @@
+package com.strava.stravacli.benchmark;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStatsByType;
+import com.strava.stravacli.services.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Per-activity-type statistics, sequential against fork-join parallel over the same chunks */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatisticsByTypeBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private final StatisticsService service = new StatisticsService(new MetricsRegistry());
+    private List<Activity> activities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        activities = SyntheticActivities.generate(size, 42);
+    }
+
+    @Benchmark
+    public ActivityStatsByType getStatisticsByType() {
+        return service.getStatisticsByType(activities, parallel);
+    }
+}
@@ -0,0 +1,189 @@
+package com.strava.stravacli.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.strava.stravacli.model.Activity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of realistic-looking activity histories.
+ * Types follow a typical multi-sport mix, distances and speeds depend on the type,
+ * and start dates spread over up to fifteen years ending mid-2025.
+ */
+public final class SyntheticActivities {
+
+    private static final LocalDateTime END = LocalDateTime.of(2025, 6, 30, 18, 0);
+    private static final long MAX_SPAN_DAYS = 15 * 365;
+    private static final DateTimeFormatter STRAVA_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    private enum Sport {
+        //            type,             weight, min km, max km, min km/h, max km/h, climb m/km
+        RIDE(        "Ride",            40,     15,     120,    18,       32,       12),
+        RUN(         "Run",             30,     4,      25,     8,        15,       8),
+        VIRTUAL_RIDE("VirtualRide",     8,      20,     60,     25,       35,       6),
+        WALK(        "Walk",            8,      2,      10,     4,        6,        5),
+        WEIGHTS(     "WeightTraining",  8,      0,      0,      0,        0,        0),
+        PILATES(     "Pilates",         6,      0,      0,      0,        0,        0);
+
+        final String type;
+        final int weight;
+        final double minKm, maxKm, minKmh, maxKmh, climbPerKm;
+
+        Sport(String type, int weight, double minKm, double maxKm, double minKmh, double maxKmh, double climbPerKm) {
+            this.type = type;
+            this.weight = weight;
+            this.minKm = minKm;
+            this.maxKm = maxKm;
+            this.minKmh = minKmh;
+            this.maxKmh = maxKmh;
+            this.climbPerKm = climbPerKm;
+        }
+    }
+
+    private static final int TOTAL_WEIGHT = 100;
+    private static final double HOME_LATITUDE = 52.52, HOME_LONGITUDE = 13.40;
+
+    private SyntheticActivities() {}
+
+    /** Generates {@code count} activities, oldest first, reproducibly for the given seed */
+    public static List<Activity> generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Activity> activities = new ArrayList<>(count);
+
+        // about one activity a day for a single athlete, denser once it looks like a roster
+        long spanDays = Math.max(30, Math.min(count, MAX_SPAN_DAYS));
+        LocalDateTime first = END.minusDays(spanDays);
+        for (int i = 0; i < count; i++) {
+            long dayOffset = (long) i * spanDays / count;
+            LocalDateTime start = first.plusDays(dayOffset)
+                    .withHour(6 + random.nextInt(14))
+                    .withMinute(random.nextInt(60));
+            activities.add(activity(random, i + 1, start));
+        }
+        return activities;
+    }
+
+    /**
+     * Renders activities as a Strava /athlete/activities JSON page, including the
+     * fields the client ignores (athlete, timezone, ...) and a {@link #summaryPolyline} per
+     * activity, so parsing cost is realistic.
+     */
+    public static byte[] toJsonPage(List<Activity> activities, long seed) {
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode page = mapper.createArrayNode();
+
+        for (Activity activity : activities) {
+            ObjectNode node = page.addObject();
+            node.put("resource_state", 2);
+            node.putObject("athlete").put("id", 1234567).put("resource_state", 1);
+            node.put("name", activity.getName());
+            node.put("distance", activity.getDistance());
+            node.put("moving_time", activity.getMovingTime());
+            node.put("elapsed_time", activity.getElapsedTime());
+            node.put("total_elevation_gain", activity.getElevationGain());
+            node.put("type", activity.getType());
+            node.put("sport_type", activity.getType());
+            node.put("id", Long.parseLong(activity.getId()));
+            node.put("start_date", activity.getStartDate());
+            node.put("start_date_local", activity.getStartDateLocal());
+            node.put("timezone", "(GMT+01:00) Europe/Berlin");
+            node.put("kudos_count", activity.getKudosCount());
+            node.put("average_speed", activity.getMovingTime() == 0 ? 0 : activity.getDistance() / activity.getMovingTime());
+            node.putObject("map")
+                    .put("id", "a" + activity.getId())
+                    .put("summary_polyline", summaryPolyline(activity, seed))
+                    .put("resource_state", 2);
+        }
+
+        try {
+            return mapper.writeValueAsBytes(page);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Activity activity(SplittableRandom random, long id, LocalDateTime start) {
+        Sport sport = pickSport(random);
+        double km = sport.minKm + random.nextDouble() * (sport.maxKm - sport.minKm);
+        long movingSeconds = sport.maxKmh == 0
+                ? 1800 + random.nextInt(3600)
+                : (long) (km / (sport.minKmh + random.nextDouble() * (sport.maxKmh - sport.minKmh)) * 3600);
+
+        Activity activity = new Activity();
+        activity.setId(Long.toString(id));
+        activity.setName(partOfDay(start) + " " + sport.type);
+        activity.setType(sport.type);
+        activity.setDistance(km * 1000.0);
+        activity.setMovingTime(movingSeconds);
+        activity.setElapsedTime(movingSeconds + random.nextInt(900));
+        activity.setElevationGain(km * sport.climbPerKm * (0.5 + random.nextDouble()));
+        activity.setKudosCount(random.nextInt(30));
+        activity.setStartDateLocal(start.format(STRAVA_DATE));
+        activity.setStartDate(start.minusHours(1).atOffset(ZoneOffset.UTC).format(STRAVA_DATE));
+        return activity;
+    }
+
+    private static Sport pickSport(SplittableRandom random) {
+        int pick = random.nextInt(TOTAL_WEIGHT);
+        for (Sport sport : Sport.values()) {
+            pick -= sport.weight;
+            if (pick < 0) return sport;
+        }
+        return Sport.RIDE;
+    }
+
+    private static String partOfDay(LocalDateTime start) {
+        int hour = start.getHour();
+        if (hour < 11) return "Morning";
+        if (hour < 14) return "Lunch";
+        if (hour < 18) return "Afternoon";
+        return "Evening";
+    }
+
+    /**
+     * A route for the activity as an encoded polyline, reproducible for the seed: a wandering
+     * loop of one point per ~100 m (capped like Strava's summaries) starting within 10 km of a
+     * home in Berlin. Empty for indoor and virtual activities.
+     */
+    public static String summaryPolyline(Activity activity, long seed) {
+        if (activity.getDistance() <= 0 || activity.getType().startsWith("Virtual")) return "";
+        SplittableRandom random = new SplittableRandom(seed ^ Long.parseLong(activity.getId()));
+        int points = (int) Math.max(20, Math.min(800, activity.getDistance() / 100));
+        double stepMeters = activity.getDistance() / points;
+
+        double latitude = HOME_LATITUDE + (random.nextDouble() - 0.5) * 0.18;
+        double longitude = HOME_LONGITUDE + (random.nextDouble() - 0.5) * 0.3;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        double turn = 2 * Math.PI / points; // bends the walk back towards its start
+        StringBuilder encoded = new StringBuilder(points * 8);
+        int previousLatitude = 0, previousLongitude = 0;
+        for (int i = 0; i < points; i++) {
+            int latitudeE5 = (int) Math.round(latitude * 1e5), longitudeE5 = (int) Math.round(longitude * 1e5);
+            encodeValue(encoded, latitudeE5 - previousLatitude);
+            encodeValue(encoded, longitudeE5 - previousLongitude);
+            previousLatitude = latitudeE5;
+            previousLongitude = longitudeE5;
+
+            heading += turn + (random.nextDouble() - 0.5) * 0.6;
+            latitude += Math.cos(heading) * stepMeters / 111_320;
+            longitude += Math.sin(heading) * stepMeters / (111_320 * Math.cos(Math.toRadians(latitude)));
+        }
+        return encoded.toString();
+    }
+
+    private static void encodeValue(StringBuilder encoded, int value) {
+        int zigzag = value < 0 ? ~(value << 1) : value << 1;
+        while (zigzag >= 0x20) {
+            encoded.append((char) ((0x20 | (zigzag & 0x1F)) + 63));
+            zigzag >>>= 5;
+        }
+        encoded.append((char) (zigzag + 63));
+    }
+}
@@ -0,0 +1,358 @@
+package com.strava.stravacli.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.strava.stravacli.benchmark.SyntheticActivities;
+import com.strava.stravacli.model.Activity;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded stand-in for the parts of the Strava API the client uses, for offline load tests:
+ * <ul>
+ *   <li>{@code GET /api/v3/athlete/activities} – newest first, {@code page}/{@code per_page}
+ *       (capped at {@link Options#maxPageSize()}), oldest first with {@code after}</li>
+ *   <li>{@code GET /api/v3/activities/{id}/streams} – generated per-second streams, keyed by type</li>
+ *   <li>{@code POST /oauth/token} – hands out a fresh token for any grant</li>
+ * </ul>
+ * API responses carry Strava's {@code X-RateLimit-Limit}/{@code X-RateLimit-Usage} headers;
+ * requests over budget are answered 429, as are a configurable share of the rest, and another
+ * share fails with 503. Every response is delayed by the configured latency plus jitter, and
+ * gzip-compressed when the request accepts it. The dataset is generated by
+ * {@link SyntheticActivities}, so runs are repeatable for a seed.
+ */
+public final class FakeStravaServer implements AutoCloseable {
+
+    /**
+     * @param activities      size of the athlete's history
+     * @param maxPageSize     largest page the server returns, whatever {@code per_page} asks for
+     * @param latencyMillis   fixed delay before every response
+     * @param jitterMillis    additional uniformly random delay, up to this much
+     * @param throttleRate    share of API requests answered 429 (with {@code Retry-After: 1})
+     * @param errorRate       share of API requests answered 503
+     * @param shortLimit      requests per 15-minute window before every request is answered 429
+     * @param dailyLimit      requests per UTC day before every request is answered 429
+     * @param streamSamples   samples per activity in the streams responses
+     * @param seed            seed of the generated dataset
+     */
+    public record Options(int activities, int maxPageSize, long latencyMillis, long jitterMillis,
+                          double throttleRate, double errorRate, long shortLimit, long dailyLimit,
+                          int streamSamples, long seed) {
+
+        /** 10k activities, Strava's page cap, 20 ± 10 ms, no failures and a budget a test never exhausts */
+        public static Options defaults() {
+            return new Options(10_000, 200, 20, 10, 0, 0, 1_000_000, 10_000_000, 3600, 42);
+        }
+    }
+
+    private static final long SHORT_WINDOW_SECONDS = 15 * 60;
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    private static final long TOKEN_LIFETIME_SECONDS = 6 * 60 * 60;
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<Activity> newestFirst;
+    private final long[] startEpochSeconds; // oldest first
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<String, byte[]> pages = new ConcurrentHashMap<>();
+    private final Map<byte[], byte[]> gzippedPages = new ConcurrentHashMap<>(); // by page identity
+    private final Map<String, LongAdder> responses = new ConcurrentHashMap<>();
+    private final AtomicLong issuedTokens = new AtomicLong();
+
+    // guarded by this
+    private long shortWindow = -1, shortUsage, day = -1, dailyUsage;
+
+    private FakeStravaServer(Options options) throws IOException {
+        this.options = options;
+        List<Activity> oldestFirst = SyntheticActivities.generate(options.activities(), options.seed());
+        this.startEpochSeconds = oldestFirst.stream()
+                .mapToLong(activity -> Instant.parse(activity.getStartDate()).getEpochSecond())
+                .toArray();
+        List<Activity> reversed = new ArrayList<>(oldestFirst);
+        Collections.reverse(reversed);
+        this.newestFirst = reversed;
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // handlers sleep to simulate latency, so every in-flight request needs its own thread
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-strava");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/v3/", this::handleApi);
+        server.createContext("/oauth/token", this::handleToken);
+    }
+
+    /** Generates the dataset and starts listening on an ephemeral loopback port */
+    public static FakeStravaServer start(Options options) throws IOException {
+        FakeStravaServer fake = new FakeStravaServer(options);
+        fake.server.start();
+        return fake;
+    }
+
+    /** Value for {@code strava.base-url} */
+    public String apiUrl() {
+        return baseUrl() + "/api/v3";
+    }
+
+    /** Value for {@code strava.oauth-url} */
+    public String oauthUrl() {
+        return baseUrl() + "/oauth";
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /** Ids of the generated activities, newest first */
+    public List<String> activityIds() {
+        return newestFirst.stream().map(Activity::getId).toList();
+    }
+
+    /** Responses sent so far, by {@code "<endpoint> <status>"} */
+    public Map<String, Long> responseCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        responses.forEach((key, count) -> counts.put(key, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    private void handleApi(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = path.replaceAll("/\\d+(?=/|$)", "/{id}");
+            simulateLatency();
+
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                respond(exchange, endpoint, 401, json("{\"message\":\"Authorization Error\"}"));
+                return;
+            }
+            if (!withinBudget(exchange)) {
+                respond(exchange, endpoint, 429, json("{\"message\":\"Rate Limit Exceeded\"}"));
+                return;
+            }
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < options.throttleRate()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, endpoint, 429, json("{\"message\":\"Rate Limit Exceeded\"}"));
+                return;
+            }
+            if (roll < options.throttleRate() + options.errorRate()) {
+                respond(exchange, endpoint, 503, json("{\"message\":\"Service Unavailable\"}"));
+                return;
+            }
+
+            Map<String, String> query = query(exchange.getRequestURI());
+            if (path.equals("/api/v3/athlete/activities")) {
+                // pages are cached, and so is their compressed form: the server's CPU should not skew the client's numbers
+                respond(exchange, endpoint, 200, activitiesPage(query),
+                        page -> gzippedPages.computeIfAbsent(page, FakeStravaServer::gzip));
+            } else if (path.matches("/api/v3/activities/\\d+/streams")) {
+                respond(exchange, endpoint, 200, streams(Long.parseLong(path.split("/")[4])));
+            } else {
+                respond(exchange, endpoint, 404, json("{\"message\":\"Record Not Found\"}"));
+            }
+        }
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+            exchange.getRequestBody().readAllBytes();
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, "/oauth/token", 405, json("{}"));
+                return;
+            }
+            long expiresAt = Instant.now().getEpochSecond() + TOKEN_LIFETIME_SECONDS;
+            long n = issuedTokens.incrementAndGet();
+            respond(exchange, "/oauth/token", 200, json("""
+                    {"token_type":"Bearer","access_token":"fake-access-%d","refresh_token":"fake-refresh-%d",\
+                    "expires_at":%d,"expires_in":%d}""".formatted(n, n, expiresAt, TOKEN_LIFETIME_SECONDS)));
+        }
+    }
+
+    /** Counts the request against the 15-minute and daily budget and reports both in the headers */
+    private boolean withinBudget(HttpExchange exchange) {
+        long usedShort, usedDaily;
+        synchronized (this) {
+            long seconds = System.currentTimeMillis() / 1000;
+            if (seconds / SHORT_WINDOW_SECONDS != shortWindow) {
+                shortWindow = seconds / SHORT_WINDOW_SECONDS;
+                shortUsage = 0;
+            }
+            if (seconds / DAY_SECONDS != day) {
+                day = seconds / DAY_SECONDS;
+                dailyUsage = 0;
+            }
+            usedShort = ++shortUsage;
+            usedDaily = ++dailyUsage;
+        }
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", options.shortLimit() + "," + options.dailyLimit());
+        exchange.getResponseHeaders().set("X-RateLimit-Usage", usedShort + "," + usedDaily);
+        return usedShort <= options.shortLimit() && usedDaily <= options.dailyLimit();
+    }
+
+    private byte[] activitiesPage(Map<String, String> query) {
+        int perPage = Math.max(1, Math.min(intParam(query, "per_page", 30), options.maxPageSize()));
+        int page = Math.max(1, intParam(query, "page", 1));
+        String after = query.get("after");
+        return pages.computeIfAbsent(after + ":" + perPage + ":" + page, key -> {
+            List<Activity> source = after == null ? newestFirst : startedAfter(Long.parseLong(after));
+            int from = (int) Math.min((long) (page - 1) * perPage, source.size());
+            int to = Math.min(from + perPage, source.size());
+            return SyntheticActivities.toJsonPage(source.subList(from, to), options.seed());
+        });
+    }
+
+    /** Activities that started after the epoch second, oldest first as Strava returns them */
+    private List<Activity> startedAfter(long epochSecond) {
+        int first = 0;
+        while (first < startEpochSeconds.length && startEpochSeconds[first] <= epochSecond) first++;
+        List<Activity> result = new ArrayList<>(newestFirst.subList(0, startEpochSeconds.length - first));
+        Collections.reverse(result);
+        return result;
+    }
+
+    /** A generated ride/run: steady pace with noise, rolling terrain, heart rate, power and cadence */
+    private byte[] streams(long activityId) throws IOException {
+        int samples = options.streamSamples();
+        SplittableRandom random = new SplittableRandom(options.seed() ^ activityId);
+        double speed = 3 + random.nextDouble() * 6;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(samples * 64);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            writeStream(json, "time", samples, i -> json.writeNumber(i));
+            double[] distance = new double[samples];
+            for (int i = 1; i < samples; i++) distance[i] = distance[i - 1] + speed * (0.8 + 0.4 * random.nextDouble());
+            writeStream(json, "distance", samples, i -> json.writeNumber(Math.round(distance[i] * 10) / 10.0));
+            writeStream(json, "latlng", samples, i -> {
+                json.writeStartArray();
+                json.writeNumber(47.0 + distance[i] / 111_000);
+                json.writeNumber(8.0 + Math.sin(i / 600.0) * 0.01);
+                json.writeEndArray();
+            });
+            writeStream(json, "altitude", samples, i -> json.writeNumber(Math.round((400 + 50 * Math.sin(i / 300.0)) * 10) / 10.0));
+            writeStream(json, "heartrate", samples, i -> json.writeNumber(130 + (i * 7 + activityId) % 30));
+            writeStream(json, "watts", samples, i -> json.writeNumber(180 + (i * 13 + activityId) % 80));
+            writeStream(json, "cadence", samples, i -> json.writeNumber(85 + (i + activityId) % 10));
+            json.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private interface SampleWriter {
+        void write(int sample) throws IOException;
+    }
+
+    private static void writeStream(JsonGenerator json, String type, int samples, SampleWriter writer) throws IOException {
+        json.writeObjectFieldStart(type);
+        json.writeArrayFieldStart("data");
+        for (int i = 0; i < samples; i++) writer.write(i);
+        json.writeEndArray();
+        json.writeStringField("series_type", "distance");
+        json.writeNumberField("original_size", samples);
+        json.writeStringField("resolution", "high");
+        json.writeEndObject();
+    }
+
+    private void simulateLatency() {
+        long delay = options.latencyMillis()
+                + (options.jitterMillis() > 0 ? ThreadLocalRandom.current().nextLong(options.jitterMillis() + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void respond(HttpExchange exchange, String endpoint, int status, byte[] body) throws IOException {
+        respond(exchange, endpoint, status, body, FakeStravaServer::gzip);
+    }
+
+    private void respond(HttpExchange exchange, String endpoint, int status, byte[] body,
+                         UnaryOperator<byte[]> compressor) throws IOException {
+        responses.computeIfAbsent(endpoint + " " + status, key -> new LongAdder()).increment();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = compressor.apply(body);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] json(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        try {
+            return query.containsKey(name) ? Integer.parseInt(query.get(name)) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.strava.stravacli.loadtest;
+
+import com.strava.stravacli.client.HttpTransport;
+import com.strava.stravacli.client.RequestScheduler;
+import com.strava.stravacli.client.StravaClient;
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.services.StravaService;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.token.AccessTokenProvider;
+import com.strava.stravacli.token.TokenData;
+import com.strava.stravacli.token.TokenManager;
+import com.strava.stravacli.util.QuantileSketch;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Load test of the real client stack ({@link TokenManager}, {@link RequestScheduler},
+ * {@link StravaClient}, {@link StravaService}) against a {@link FakeStravaServer}:
+ * <ol>
+ *   <li>an expired token is refreshed through {@code /oauth/token}</li>
+ *   <li>the full history is fetched {@code --rounds} times after {@code --warmup} unmeasured rounds</li>
+ *   <li>a full and an incremental {@link StravaService#sync()} run into a fresh store</li>
+ *   <li>streams are downloaded for the {@code --streams} newest activities</li>
+ * </ol>
+ * Reports throughput per round, bytes received versus decoded, and client-side request
+ * latency (p50/p99/max) per endpoint.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec@load-test -Dloadtest.args="--activities 50000 --latency-ms 80"}.
+ * Options: {@code --activities --max-page-size --latency-ms --jitter-ms --throttle-rate --error-rate
+ * --short-limit --daily-limit --samples --seed} configure the server, {@code --rounds --warmup
+ * --page-size --concurrency --streams --gzip} the client ({@code --gzip 0} turns compression off).
+ */
+public final class LoadTestDriver {
+
+    private LoadTestDriver() {}
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(List.of(args));
+        FakeStravaServer.Options defaults = FakeStravaServer.Options.defaults();
+        FakeStravaServer.Options options = new FakeStravaServer.Options(
+                arguments.integer("--activities", defaults.activities()),
+                arguments.integer("--max-page-size", defaults.maxPageSize()),
+                arguments.integer("--latency-ms", (int) defaults.latencyMillis()),
+                arguments.integer("--jitter-ms", (int) defaults.jitterMillis()),
+                arguments.decimal("--throttle-rate", defaults.throttleRate()),
+                arguments.decimal("--error-rate", defaults.errorRate()),
+                arguments.integer("--short-limit", (int) defaults.shortLimit()),
+                arguments.integer("--daily-limit", (int) defaults.dailyLimit()),
+                arguments.integer("--samples", defaults.streamSamples()),
+                arguments.integer("--seed", (int) defaults.seed()));
+        int rounds = arguments.integer("--rounds", 5);
+        int warmup = arguments.integer("--warmup", 1);
+        int concurrency = arguments.integer("--concurrency", 4);
+        int streamCount = arguments.integer("--streams", 100);
+
+        Path work = Files.createTempDirectory("strava-loadtest");
+        try (FakeStravaServer server = FakeStravaServer.start(options)) {
+            StravaConfig config = new StravaConfig();
+            config.setBaseUrl(server.apiUrl());
+            config.setOauthUrl(server.oauthUrl());
+            config.setClientId("load-test");
+            config.setClientSecret("load-test");
+            config.setPageSize(arguments.integer("--page-size", StravaClient.MAX_PAGE_SIZE));
+            config.setMaxConcurrentRequests(concurrency);
+            config.setHttpCompression(arguments.integer("--gzip", 1) != 0);
+
+            MetricsRegistry metrics = new MetricsRegistry();
+            TimingHttpClient http = new TimingHttpClient(new HttpTransport(config, metrics));
+            TokenManager tokenManager = new TokenManager(config, work.resolve("token.json"), http, metrics);
+            tokenManager.saveToken(new TokenData("expired", "load-test-refresh", 0));
+            AccessTokenProvider tokenProvider = new AccessTokenProvider(tokenManager, config);
+            RequestScheduler scheduler = new RequestScheduler(http, concurrency, metrics);
+            StravaClient client = new StravaClient(config, scheduler, metrics);
+
+            try {
+                String token = tokenProvider.getAccessToken();
+                if (token == null) throw new IllegalStateException("Token refresh against the fake server failed");
+
+                for (int i = 0; i < warmup; i++) {
+                    client.fetchAllActivities(token, activity -> { });
+                }
+                http.reset();
+
+                QuantileSketch roundSeconds = new QuantileSketch();
+                double fetchSeconds = 0;
+                long fetched = 0;
+                int failedRounds = 0;
+                for (int i = 0; i < rounds; i++) {
+                    AtomicLong count = new AtomicLong();
+                    long started = System.nanoTime();
+                    boolean complete = client.fetchAllActivities(token, activity -> count.incrementAndGet());
+                    double seconds = (System.nanoTime() - started) / 1e9;
+                    roundSeconds.add(seconds);
+                    fetchSeconds += seconds;
+                    fetched += count.get();
+                    if (!complete) failedRounds++;
+                }
+
+                ActivityStore store = new ActivityStore(work.resolve("activities.json"));
+                StravaService service = new StravaService(client, tokenProvider, store, config, metrics);
+                long syncStarted = System.nanoTime();
+                int synced = service.sync();
+                double fullSyncSeconds = (System.nanoTime() - syncStarted) / 1e9;
+                syncStarted = System.nanoTime();
+                int incremental = service.sync();
+                double incrementalSyncSeconds = (System.nanoTime() - syncStarted) / 1e9;
+
+                List<String> ids = server.activityIds().subList(0, Math.min(streamCount, options.activities()));
+                AtomicLong samples = new AtomicLong();
+                long streamsStarted = System.nanoTime();
+                int streamed = client.fetchStreams(token, ids, (id, streams) -> samples.addAndGet(streams.size()));
+                double streamSeconds = (System.nanoTime() - streamsStarted) / 1e9;
+
+                URI api = URI.create(server.apiUrl());
+                String host = api.getHost() + ":" + api.getPort();
+                long wireBytes = metrics.counter("http_client_received_bytes_total", "host", host, "encoding", "gzip").count()
+                        + metrics.counter("http_client_received_bytes_total", "host", host, "encoding", "identity").count();
+                long decodedBytes = metrics.counter("http_client_decoded_bytes_total", "host", host).count();
+
+                System.out.println(report(options, rounds, concurrency, config.isHttpCompression(),
+                        roundSeconds, fetchSeconds, fetched, failedRounds,
+                        synced, fullSyncSeconds, incremental, incrementalSyncSeconds,
+                        streamed, samples.get(), streamSeconds, wireBytes, decodedBytes,
+                        http.latencies(), server.responseCounts()));
+            } finally {
+                scheduler.shutdown();
+                tokenProvider.shutdown();
+            }
+        } finally {
+            deleteRecursively(work);
+        }
+    }
+
+    private static String report(FakeStravaServer.Options options, int rounds, int concurrency, boolean gzip,
+                                 QuantileSketch roundSeconds, double fetchSeconds, long fetched, int failedRounds,
+                                 int synced, double fullSyncSeconds, int incremental, double incrementalSyncSeconds,
+                                 int streamed, long samples, double streamSeconds, long wireBytes, long decodedBytes,
+                                 Map<String, QuantileSketch> latencies, Map<String, Long> responses) {
+        StringBuilder text = new StringBuilder("""
+                🏋️ Load Test
+                ------------------------
+                Server                : %d activities, %d ± %d ms latency, %.1f%% throttled, %.1f%% errors
+                Client                : %d concurrent requests, %d rounds, gzip %s
+                Full history          : p50 %.2f s, p99 %.2f s, max %.2f s per round
+                Fetch throughput      : %.0f activities/s (%d fetched, %d failed rounds)
+                First sync            : %d activities in %.2f s (empty store)
+                Second sync           : %d activities in %.3f s
+                Streams               : %d activities, %d samples in %.2f s (%.1f activities/s)
+                Transfer              : %.1f MB received, %.1f MB decoded (%.1fx)
+
+                Request latency (ms)                  count      p50      p99      max
+                """.formatted(
+                options.activities(), options.latencyMillis(), options.jitterMillis(),
+                options.throttleRate() * 100, options.errorRate() * 100,
+                concurrency, rounds, gzip ? "on" : "off",
+                roundSeconds.quantile(0.5), roundSeconds.quantile(0.99), roundSeconds.getMax(),
+                fetched / Math.max(fetchSeconds, 1e-9), fetched, failedRounds,
+                synced, fullSyncSeconds,
+                incremental, incrementalSyncSeconds,
+                streamed, samples, streamSeconds, streamed / Math.max(streamSeconds, 1e-9),
+                wireBytes / 1e6, decodedBytes / 1e6, decodedBytes / (double) Math.max(wireBytes, 1)));
+        latencies.forEach((endpoint, sketch) -> text.append("%-34s %8d %8.1f %8.1f %8.1f%n".formatted(
+                endpoint, sketch.getCount(), sketch.quantile(0.5), sketch.quantile(0.99), sketch.getMax())));
+        text.append("\nServer responses\n");
+        responses.forEach((key, count) -> text.append("%-40s %d%n".formatted(key, count)));
+        return text.toString();
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /** {@code --name value} pairs */
+    private record Arguments(List<String> args) {
+        int integer(String name, int fallback) {
+            String value = value(name);
+            return value == null ? fallback : Integer.parseInt(value);
+        }
+
+        double decimal(String name, double fallback) {
+            String value = value(name);
+            return value == null ? fallback : Double.parseDouble(value);
+        }
+
+        private String value(String name) {
+            int index = args.indexOf(name);
+            return index >= 0 && index + 1 < args.size() ? args.get(index + 1) : null;
+        }
+    }
+}
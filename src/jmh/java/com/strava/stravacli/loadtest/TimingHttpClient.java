@@ -0,0 +1,93 @@
+package com.strava.stravacli.loadtest;
+
+import com.strava.stravacli.util.QuantileSketch;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link HttpClient} that delegates every call and records, per endpoint, the time from
+ * sending a request to receiving its response headers as the client sees it, including
+ * connection setup and queueing inside the HTTP stack.
+ */
+final class TimingHttpClient extends HttpClient {
+    private final HttpClient delegate;
+    private final Map<String, QuantileSketch> latencies = new ConcurrentHashMap<>();
+
+    TimingHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Snapshot of the latency sketches (milliseconds), by endpoint */
+    Map<String, QuantileSketch> latencies() {
+        Map<String, QuantileSketch> snapshot = new TreeMap<>();
+        latencies.forEach((endpoint, sketch) -> {
+            synchronized (sketch) {
+                snapshot.put(endpoint, new QuantileSketch().merge(sketch));
+            }
+        });
+        return snapshot;
+    }
+
+    void reset() {
+        latencies.clear();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        try {
+            return delegate.send(request, handler);
+        } finally {
+            record(request, started);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        long started = System.nanoTime();
+        return delegate.sendAsync(request, handler).whenComplete((response, error) -> record(request, started));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        long started = System.nanoTime();
+        return delegate.sendAsync(request, handler, pushPromiseHandler)
+                .whenComplete((response, error) -> record(request, started));
+    }
+
+    private void record(HttpRequest request, long startedNanos) {
+        double millis = (System.nanoTime() - startedNanos) / 1e6;
+        String endpoint = request.uri().getPath().replaceAll("/\\d+(?=/|$)", "/{id}");
+        QuantileSketch sketch = latencies.computeIfAbsent(endpoint, key -> new QuantileSketch());
+        synchronized (sketch) {
+            sketch.add(millis);
+        }
+    }
+
+    @Override public Optional<CookieHandler> cookieHandler() { return delegate.cookieHandler(); }
+    @Override public Optional<Duration> connectTimeout() { return delegate.connectTimeout(); }
+    @Override public Redirect followRedirects() { return delegate.followRedirects(); }
+    @Override public Optional<ProxySelector> proxy() { return delegate.proxy(); }
+    @Override public SSLContext sslContext() { return delegate.sslContext(); }
+    @Override public SSLParameters sslParameters() { return delegate.sslParameters(); }
+    @Override public Optional<Authenticator> authenticator() { return delegate.authenticator(); }
+    @Override public Version version() { return delegate.version(); }
+    @Override public Optional<Executor> executor() { return delegate.executor(); }
+}
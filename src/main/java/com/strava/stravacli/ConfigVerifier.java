@@ -2,6 +2,7 @@ package com.strava.stravacli;
 
 import com.strava.stravacli.config.StravaConfig;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -10,7 +11,7 @@ public class ConfigVerifier implements CommandLineRunner {
     private final StravaConfig stravaConfig;
 
     // Constructor injection (recommended)
-    public ConfigVerifier(StravaConfig stravaConfig) {
+    public ConfigVerifier(@Lazy StravaConfig stravaConfig) {
         this.stravaConfig = stravaConfig;
     }
 
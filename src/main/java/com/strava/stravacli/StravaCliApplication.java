@@ -1,5 +1,7 @@
 package com.strava.stravacli;
 
+import com.strava.stravacli.cli.CommandRunner;
+import org.springframework.boot.Banner;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.SpringApplication;
 
@@ -7,6 +9,16 @@ import org.springframework.boot.SpringApplication;
 @SpringBootApplication
 public class StravaCliApplication {
     public static void main(String[] args) {
-        SpringApplication.run(StravaCliApplication.class, args);
+        SpringApplication app = new SpringApplication(StravaCliApplication.class);
+
+        if (CommandRunner.isCommand(args)) {
+            // One-shot command: no banner or startup logging, beans created only when used
+            app.setBannerMode(Banner.Mode.OFF);
+            app.setLogStartupInfo(false);
+            app.setLazyInitialization(true);
+            System.exit(SpringApplication.exit(app.run(args)));
+        }
+
+        app.run(args);
     }
 }
@@ -4,18 +4,26 @@ import com.strava.stravacli.config.StravaConfig;
 import com.strava.stravacli.client.StravaClient;
 import com.strava.stravacli.model.Activity;
 import com.strava.stravacli.model.ActivityPrediction;
-import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityStatsByType;
 import com.strava.stravacli.services.PredictionService;
 import com.strava.stravacli.services.StatisticsService;
 import com.strava.stravacli.services.StravaService;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.token.AccessTokenProvider;
 import com.strava.stravacli.token.TokenData;
 import com.strava.stravacli.token.TokenManager;
+import com.strava.stravacli.util.BackgroundOutput;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class CliRunner implements CommandLineRunner {
@@ -25,52 +33,70 @@ public class CliRunner implements CommandLineRunner {
     private final PredictionService predictionService;
     private final StravaService stravaService;
     private final TokenManager tokenManager;
+    private final AccessTokenProvider tokenProvider;
+    private final ActivityStore activityStore;
     private final static Scanner scanner = new Scanner(System.in);
-    private String token;
+    /** What the background sync prints, held back until a menu item uses its result */
+    private final ByteArrayOutputStream prefetchOutput = new ByteArrayOutputStream();
+    private CompletableFuture<?> prefetch = CompletableFuture.completedFuture(null);
 
+    // Lazy so that one-shot commands (see CommandRunner) never build the interactive dependencies
     @Autowired
-    public CliRunner(StravaConfig stravaConfig, StravaClient stravaClient, StatisticsService statisticsService, PredictionService predictionService, StravaService stravaService, TokenManager tokenManager) {
+    @Lazy
+    public CliRunner(StravaConfig stravaConfig, StravaClient stravaClient, StatisticsService statisticsService, PredictionService predictionService, StravaService stravaService, TokenManager tokenManager, AccessTokenProvider tokenProvider, ActivityStore activityStore) {
         this.stravaConfig = stravaConfig;
         this.stravaClient = stravaClient;
         this.statisticsService = statisticsService;
         this.predictionService = predictionService;
         this.stravaService = stravaService;
         this.tokenManager = tokenManager;
+        this.tokenProvider = tokenProvider;
+        this.activityStore = activityStore;
     }
 
     @Override
     public void run(String... args) {
+        if (CommandRunner.isCommand(args)) return;
+
         System.out.println("Welcome to Strava Analyzer");
         System.out.println("----------------------------------");
 
-        token = initializeToken();
+        initializeToken();
         processMenu();
     }
 
-    private String initializeToken() {
-        TokenData token = tokenManager.loadToken();
-
-        if (token != null) {
-            if (tokenManager.isExpired(token)) {
-                System.out.println("Token expired, refreshing...");
-                token = tokenManager.refreshToken(token);
-                System.out.println("Token refreshed successfully.");
-            } else {
-                System.out.println("Loaded existing token.");
-            }
-            return token.getAccessToken();
+    /**
+     * Asks for authorization if no token is stored. Validating the token (refreshing it if
+     * expired) and syncing the activities then run in the background while the menu is
+     * shown, so the first menu choice usually finds the data already loaded. Their messages
+     * are buffered rather than printed into the menu prompt; see {@link #printPrefetchOutput()}.
+     * Other background messages (token refreshes, rate limit pauses) are held back the same
+     * way through {@link BackgroundOutput} while the menu waits for input.
+     */
+    private void initializeToken() {
+        if (tokenManager.loadToken() == null) {
+            System.out.println("No valid token found. Please authorize:");
+            authorize();
+            System.out.println("Token saved successfully.");
         }
 
-        System.out.println("No valid token found. Please authorize:");
-        token = authorize();
-        System.out.println("Token saved successfully.");
-        return token.getAccessToken();
+        PrintStream out = new PrintStream(prefetchOutput, true, StandardCharsets.UTF_8);
+        prefetch = tokenProvider.getAccessTokenAsync()
+                .thenCompose(accessToken -> {
+                    if (accessToken == null) {
+                        out.println("⚠️  Stored token could not be refreshed; choose 0 to authorize again.");
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return stravaService.getActivitiesAsync(out);
+                })
+                // a failed prefetch is retried, and reported, when a menu item needs the data
+                .exceptionally(error -> null);
     }
 
     private TokenData authorize() {
         String authUrl = String.format(
-                "https://www.strava.com/oauth/authorize?client_id=%s&response_type=code&redirect_uri=%s&approval_prompt=force&scope=activity:read_all",
-                stravaConfig.getClientId(), stravaConfig.getRedirectUri()
+                "%s/authorize?client_id=%s&response_type=code&redirect_uri=%s&approval_prompt=force&scope=activity:read_all",
+                stravaConfig.getOauthUrl(), stravaConfig.getClientId(), stravaConfig.getRedirectUri()
         );
 
         System.out.println("👉 Open this URL in your browser to authorize:");
@@ -85,8 +111,10 @@ public class CliRunner implements CommandLineRunner {
 
     private void processMenu() {
         while (true) {
+            BackgroundOutput.hold();
             printMenu();
             selectMenuItem();
+            BackgroundOutput.hold();
             shouldContinueApplication();
         }
     }
@@ -96,7 +124,8 @@ public class CliRunner implements CommandLineRunner {
         switch (option) {
             case "0":
                 tokenManager.clearToken();
-                token = initializeToken();
+                stravaService.invalidateCache();
+                initializeToken();
                 break;
             case "1":
                 fetchActivities();
@@ -153,19 +182,32 @@ public class CliRunner implements CommandLineRunner {
         }
     }
 
+    /** Waits for the background sync and prints what it and other background work reported, once */
+    private void printPrefetchOutput() {
+        prefetch.join();
+        synchronized (prefetchOutput) {
+            System.out.print(prefetchOutput.toString(StandardCharsets.UTF_8));
+            prefetchOutput.reset();
+        }
+        BackgroundOutput.release();
+    }
+
     private void showPredictions() {
-        List<Activity> activities = stravaService.getActivities();
-        ActivityPrediction predictions = predictionService.getPredictions(activities);
+        printPrefetchOutput();
+        stravaService.getActivities(); // syncs the store unless the cached copy is still fresh
+        ActivityPrediction predictions = predictionService.getPredictions(activityStore);
         System.out.println(predictions.toString());    }
 
     private void showStatistics() {
+        printPrefetchOutput();
         List<Activity> activities = stravaService.getActivities();
-        ActivityStats activityStats = statisticsService.getStatistics(activities);
+        ActivityStatsByType activityStats = statisticsService.getStatisticsByType(activities);
         System.out.println(activityStats.toString());
 
     }
 
     private void fetchActivities() {
+        printPrefetchOutput();
         List<Activity> activities = stravaService.getActivities();
         System.out.println(activities);
     }
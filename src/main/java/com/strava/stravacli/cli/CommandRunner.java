@@ -0,0 +1,308 @@
+package com.strava.stravacli.cli;
+
+import com.strava.stravacli.export.HeatmapWriter;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityStatsByType;
+import com.strava.stravacli.model.ActivityTimeline;
+import com.strava.stravacli.model.BatchReport;
+import com.strava.stravacli.model.Heatmap;
+import com.strava.stravacli.model.ImportReport;
+import com.strava.stravacli.services.BatchAnalyticsService;
+import com.strava.stravacli.services.BestEffortService;
+import com.strava.stravacli.services.BulkImportService;
+import com.strava.stravacli.services.ExportService;
+import com.strava.stravacli.services.HeatmapService;
+import com.strava.stravacli.services.PredictionService;
+import com.strava.stravacli.services.StatisticsService;
+import com.strava.stravacli.services.StravaService;
+import com.strava.stravacli.services.StreamSyncService;
+import com.strava.stravacli.services.TrainingLoadService;
+import com.strava.stravacli.store.ActivityStore;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-interactive entry point: {@code strava-cli <command> [options]} runs one operation
+ * and exits with a status code instead of entering the menu.
+ * <ul>
+ *   <li>{@code sync} – bring the local activity store up to date</li>
+ *   <li>{@code stats [--sync] [--by-type] [--efforts] [--last <days> | --year <yyyy> | --from <date> --to <date>]} – print
+ *       statistics from the local store, optionally per activity type, with best efforts from stored streams
+ *       and for a date range</li>
+ *   <li>{@code load [--sync] [--date <date>]} – print rolling volume and training load as of a date</li>
+ *   <li>{@code predict [--sync]} – print predictions from the local store</li>
+ *   <li>{@code streams [--sync]} – download per-second streams for stored activities that have none yet</li>
+ *   <li>{@code export [--format json|csv|binary] [--output <file>]} – write the stored history, to stdout unless
+ *       a file is given (the columnar binary format needs one)</li>
+ *   <li>{@code heatmap [--sync] [--zoom <z>] [--output <file> [--format text|binary]]} – route heatmap of the
+ *       stored activities on map tiles of zoom {@code z}, optionally written as a grid of counts</li>
+ *   <li>{@code import <export.zip>} – load activities and their GPX/TCX/FIT tracks from a Strava bulk export</li>
+ *   <li>{@code batch <dir> [--report <file>]} – sync and analyse every athlete token file in {@code dir}</li>
+ * </ul>
+ * The startup time (JVM start to first output) is reported on stderr.
+ */
+@Component
+public class CommandRunner implements CommandLineRunner, ExitCodeGenerator {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURE = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private static final String DEFAULT_BATCH_REPORT = "strava-batch-report.json";
+    private static final Set<String> COMMANDS = Set.of("sync", "stats", "predict", "load", "streams", "export", "heatmap", "import", "batch");
+
+    private final ActivityStore activityStore;
+    private final StatisticsService statisticsService;
+    private final PredictionService predictionService;
+    private final TrainingLoadService trainingLoadService;
+    private final HeatmapService heatmapService;
+    private final StravaService stravaService;
+    private final BatchAnalyticsService batchAnalyticsService;
+    private final StreamSyncService streamSyncService;
+    private final BestEffortService bestEffortService;
+    private final ExportService exportService;
+    private final BulkImportService bulkImportService;
+    private int exitCode = EXIT_OK;
+
+    // network-facing services are only resolved when a command actually needs them
+    public CommandRunner(ActivityStore activityStore, StatisticsService statisticsService,
+                         PredictionService predictionService, TrainingLoadService trainingLoadService,
+                         HeatmapService heatmapService,
+                         @Lazy StravaService stravaService,
+                         @Lazy BatchAnalyticsService batchAnalyticsService,
+                         @Lazy StreamSyncService streamSyncService,
+                         @Lazy BestEffortService bestEffortService,
+                         @Lazy ExportService exportService,
+                         @Lazy BulkImportService bulkImportService) {
+        this.activityStore = activityStore;
+        this.statisticsService = statisticsService;
+        this.predictionService = predictionService;
+        this.trainingLoadService = trainingLoadService;
+        this.heatmapService = heatmapService;
+        this.stravaService = stravaService;
+        this.batchAnalyticsService = batchAnalyticsService;
+        this.streamSyncService = streamSyncService;
+        this.bestEffortService = bestEffortService;
+        this.exportService = exportService;
+        this.bulkImportService = bulkImportService;
+    }
+
+    public static boolean isCommand(String... args) {
+        return args.length > 0 && COMMANDS.contains(args[0]);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!isCommand(args)) return;
+
+        System.err.printf("⏱ Started in %d ms%n", ManagementFactory.getRuntimeMXBean().getUptime());
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+        exitCode = execute(args[0], options);
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private int execute(String command, List<String> options) {
+        if (options.contains("--sync") || command.equals("sync")) {
+            int added = stravaService.sync();
+            if (added < 0) {
+                System.err.println("❌ Sync failed");
+                return EXIT_FAILURE;
+            }
+            if (command.equals("sync")) {
+                System.out.println("Synced " + added + " new activities (" + activityStore.getActivities().size() + " stored)");
+                return EXIT_OK;
+            }
+        }
+
+        switch (command) {
+            case "stats":
+                return stats(options);
+            case "load":
+                return load(options);
+            case "predict":
+                System.out.println(predictionService.getPredictions(activityStore));
+                return EXIT_OK;
+            case "streams":
+                return streamSyncService.syncStreams(activityStore.getActivities()) < 0 ? EXIT_FAILURE : EXIT_OK;
+            case "export":
+                return export(options);
+            case "heatmap":
+                return heatmap(options);
+            case "import":
+                return importArchive(options);
+            case "batch":
+                return batch(options);
+            default:
+                System.err.println("Unknown command: " + command);
+                return EXIT_USAGE;
+        }
+    }
+
+    private int stats(List<String> options) {
+        String last = option(options, "--last");
+        String year = option(options, "--year");
+        String from = option(options, "--from");
+        String to = option(options, "--to");
+        if (last == null && year == null && from == null && to == null) {
+            printStatistics(activityStore.getActivities(), options);
+            return EXIT_OK;
+        }
+
+        ActivityTimeline timeline = ActivityTimeline.of(activityStore.getActivities());
+        try {
+            List<Activity> range;
+            if (last != null) {
+                range = timeline.lastDays(Integer.parseInt(last), LocalDate.now());
+            } else if (year != null) {
+                range = timeline.year(Integer.parseInt(year));
+            } else {
+                range = timeline.between(from == null ? LocalDate.MIN : LocalDate.parse(from),
+                        to == null ? LocalDate.now() : LocalDate.parse(to));
+            }
+            printStatistics(range, options);
+            return EXIT_OK;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            System.err.println("Usage: stats [--by-type] [--efforts] [--last <days> | --year <yyyy> | --from <yyyy-MM-dd> --to <yyyy-MM-dd>]");
+            return EXIT_USAGE;
+        }
+    }
+
+    private void printStatistics(List<Activity> activities, List<String> options) {
+        if (options.contains("--by-type")) {
+            ActivityStatsByType stats = statisticsService.getStatisticsByType(activities);
+            if (options.contains("--efforts")) {
+                stats = new ActivityStatsByType(
+                        stats.overall().withBestEfforts(bestEffortService.rollup(activities)), stats.byType());
+            }
+            System.out.println(stats);
+        } else {
+            ActivityStats stats = statisticsService.getStatistics(activities);
+            if (options.contains("--efforts")) {
+                stats = stats.withBestEfforts(bestEffortService.rollup(activities));
+            }
+            System.out.println(stats);
+        }
+    }
+
+    private int load(List<String> options) {
+        String date = option(options, "--date");
+        try {
+            LocalDate asOf = date == null ? LocalDate.now() : LocalDate.parse(date);
+            System.out.println(trainingLoadService.trainingLoad(ActivityTimeline.of(activityStore.getActivities()), asOf));
+            return EXIT_OK;
+        } catch (DateTimeParseException e) {
+            System.err.println("Usage: load [--date <yyyy-MM-dd>]");
+            return EXIT_USAGE;
+        }
+    }
+
+    private int heatmap(List<String> options) {
+        String zoomOption = option(options, "--zoom");
+        String formatOption = option(options, "--format");
+        String output = option(options, "--output");
+        Heatmap heatmap;
+        HeatmapWriter.Format format;
+        try {
+            format = formatOption == null ? HeatmapWriter.Format.TEXT : HeatmapWriter.Format.valueOf(formatOption.toUpperCase());
+            int zoom = zoomOption == null ? HeatmapService.DEFAULT_ZOOM : Integer.parseInt(zoomOption);
+            heatmap = heatmapService.heatmap(activityStore.getActivities(), zoom);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: heatmap [--zoom <0-" + HeatmapService.MAX_ZOOM + ">] [--output <file> [--format text|binary]]");
+            return EXIT_USAGE;
+        }
+
+        System.out.println(heatmap);
+        if (output == null) return EXIT_OK;
+        try {
+            HeatmapWriter.write(heatmap, format, Path.of(output));
+            System.err.println("Heatmap written to " + Path.of(output).toAbsolutePath());
+            return EXIT_OK;
+        } catch (IOException e) {
+            System.err.println("❌ Heatmap export failed: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int importArchive(List<String> options) {
+        if (options.isEmpty() || !Files.isRegularFile(Path.of(options.get(0)))) {
+            System.err.println("Usage: import <strava-export.zip>");
+            return EXIT_USAGE;
+        }
+
+        try {
+            ImportReport report = bulkImportService.importArchive(Path.of(options.get(0)));
+            System.out.println(report);
+            return report.failedFiles() == 0 ? EXIT_OK : EXIT_FAILURE;
+        } catch (IOException e) {
+            System.err.println("❌ Import failed: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int batch(List<String> options) {
+        if (options.isEmpty() || !Files.isDirectory(Path.of(options.get(0)))) {
+            System.err.println("Usage: batch <token-directory> [--report <file>]");
+            return EXIT_USAGE;
+        }
+        String reportOption = option(options, "--report");
+        Path reportFile = Path.of(reportOption != null ? reportOption : DEFAULT_BATCH_REPORT);
+
+        try {
+            BatchReport report = batchAnalyticsService.run(Path.of(options.get(0)));
+            batchAnalyticsService.writeReport(report, reportFile);
+            System.out.println(report);
+            System.out.println("Report written to " + reportFile.toAbsolutePath());
+            return report.failed() == 0 ? EXIT_OK : EXIT_FAILURE;
+        } catch (IOException e) {
+            System.err.println("❌ Batch failed: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    /** Value following {@code name} in the options, or null if the option is absent */
+    private static String option(List<String> options, String name) {
+        int index = options.indexOf(name);
+        return index >= 0 && index + 1 < options.size() ? options.get(index + 1) : null;
+    }
+
+    private int export(List<String> options) {
+        String formatOption = option(options, "--format");
+        String output = option(options, "--output");
+        ExportService.Format format = formatOption == null ? ExportService.Format.JSON : ExportService.Format.of(formatOption);
+        if (format == null || (format == ExportService.Format.BINARY && output == null)) {
+            System.err.println("Usage: export [--format json|csv|binary] [--output <file>] (binary needs --output)");
+            return EXIT_USAGE;
+        }
+
+        try {
+            if (output == null) {
+                exportService.export(format, System.out);
+                if (format == ExportService.Format.JSON) System.out.println();
+            } else {
+                exportService.export(format, Path.of(output));
+                System.err.println("Exported " + activityStore.getActivities().size() + " activities to "
+                        + Path.of(output).toAbsolutePath());
+            }
+            return EXIT_OK;
+        } catch (IOException e) {
+            System.err.println("❌ Export failed: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.strava.stravacli.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.strava.stravacli.model.Activity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streams a page of activities (a JSON array) straight from an input stream.
+ * Each activity is bound and handed to the sink as soon as its object closes,
+ * so neither the raw body nor the whole page is ever held in memory.
+ */
+public class ActivityPageParser {
+    private final ObjectMapper objectMapper;
+    private final ObjectReader activityReader;
+
+    public ActivityPageParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.activityReader = objectMapper.readerFor(Activity.class);
+    }
+
+    /**
+     * Parses one page and closes the stream.
+     *
+     * @return number of activities passed to the sink
+     */
+    public int parse(InputStream body, Consumer<? super Activity> sink) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of activities");
+            }
+
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                sink.accept(activityReader.readValue(parser));
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.strava.stravacli.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Streams a {@code /activities/{id}/streams?key_by_type=true} response straight into
+ * primitive channel buffers. Samples are encoded as they are read, so no boxed list or
+ * tree of the (often 20k-sample) arrays is ever built. Unknown stream types are skipped;
+ * {@code null} samples (e.g. power gaps) are stored as 0.
+ */
+public class ActivityStreamsParser {
+    private final JsonFactory jsonFactory;
+
+    public ActivityStreamsParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /** Parses the response and closes the stream */
+    public ActivityStreams parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object keyed by stream type");
+            }
+
+            Map<Channel, ChannelWriter> writers = new EnumMap<>(Channel.class);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Channel channel = Channel.fromKey(parser.currentName());
+                parser.nextToken();
+                if (channel == null) {
+                    parser.skipChildren();
+                } else {
+                    writers.put(channel, readStream(parser, channel));
+                }
+            }
+
+            int size = writers.values().stream().mapToInt(writer -> writer.samples).max().orElse(0);
+            Map<Channel, ByteBuffer> buffers = new EnumMap<>(Channel.class);
+            writers.forEach((channel, writer) -> buffers.put(channel, writer.finish(size)));
+            return ActivityStreams.of(size, buffers);
+        }
+    }
+
+    /** Reads one {@code {"data": [...], ...}} stream object */
+    private static ChannelWriter readStream(JsonParser parser, Channel channel) throws IOException {
+        ChannelWriter writer = new ChannelWriter(channel);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("data") && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    writer.write(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return writer;
+    }
+
+    /** Growable little-endian buffer for one channel */
+    private static final class ChannelWriter {
+        private final Channel channel;
+        private ByteBuffer buffer;
+        private int samples;
+
+        ChannelWriter(Channel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(1024 * channel.bytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /** Encodes the sample at the parser's current token */
+        void write(JsonParser parser) throws IOException {
+            if (buffer.remaining() < channel.bytesPerSample()) {
+                ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+
+            boolean missing = parser.currentToken() == JsonToken.VALUE_NULL;
+            switch (channel) {
+                case TIME -> buffer.putInt(missing ? 0 : parser.getIntValue());
+                case DISTANCE, ALTITUDE -> buffer.putFloat(missing ? 0f : parser.getFloatValue());
+                case HEARTRATE, WATTS, CADENCE -> buffer.putShort((short) (missing ? 0 : parser.getIntValue()));
+                case LATLNG -> writeLatLng(parser, missing);
+            }
+            samples++;
+        }
+
+        private void writeLatLng(JsonParser parser, boolean missing) throws IOException {
+            double latitude = 0, longitude = 0;
+            if (!missing) {
+                parser.nextToken();
+                latitude = parser.getDoubleValue();
+                parser.nextToken();
+                longitude = parser.getDoubleValue();
+                parser.nextToken(); // END_ARRAY
+            }
+            buffer.putInt(ActivityStreams.encodeDegrees(latitude));
+            buffer.putInt(ActivityStreams.encodeDegrees(longitude));
+        }
+
+        /** Pads to {@code size} samples with zeros and returns the filled part */
+        ByteBuffer finish(int size) {
+            int bytes = size * channel.bytesPerSample();
+            ByteBuffer result = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            result.put(buffer);
+            return result.rewind();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.metrics.Counter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Counts the (decoded) bytes read from a response body and adds them to a counter when closed */
+class CountingInputStream extends FilterInputStream {
+    private final Counter bytes;
+    private long count;
+    private boolean closed;
+
+    CountingInputStream(InputStream in, Counter bytes) {
+        super(in);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) count++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) count += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            bytes.increment(count);
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,232 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.metrics.Counter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Sits between the HTTP client and the caller's body subscriber: counts the bytes received
+ * on the wire and, for a {@code Content-Encoding: gzip} response, inflates the body chunk by
+ * chunk as it arrives, so the caller (e.g. a JSON parser reading an {@code InputStream})
+ * sees the plain body without it ever being buffered whole. The gzip trailer's CRC and
+ * length are verified. Like {@link java.util.zip.GZIPInputStream}, concatenated members are
+ * decoded in turn and anything after the last member that is not a gzip header is ignored.
+ */
+final class DecodingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+    private static final int CHUNK_BYTES = 16 * 1024;
+    private static final int FHCRC = 0x02, FEXTRA = 0x04, FNAME = 0x08, FCOMMENT = 0x10;
+
+    private enum Stage { HEADER, BODY, TRAILER, DONE, PADDING }
+
+    private final HttpResponse.BodySubscriber<T> downstream;
+    private final Counter wireBytes;
+    private final Counter decodedBytes;
+    private final Inflater inflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream framing = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+    private Stage stage = Stage.HEADER;
+    private long memberBytes;
+    private boolean memberDecoded;
+    private boolean received;
+    private boolean failed;
+
+    DecodingBodySubscriber(HttpResponse.BodySubscriber<T> downstream, boolean gzip,
+                           Counter wireBytes, Counter decodedBytes) {
+        this.downstream = downstream;
+        this.wireBytes = wireBytes;
+        this.decodedBytes = decodedBytes;
+        this.inflater = gzip ? new Inflater(true) : null;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return downstream.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        downstream.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (failed) return;
+        long bytes = 0;
+        for (ByteBuffer item : items) bytes += item.remaining();
+        wireBytes.increment(bytes);
+        received |= bytes > 0;
+        if (inflater == null) {
+            decodedBytes.increment(bytes);
+            downstream.onNext(items);
+            return;
+        }
+
+        List<ByteBuffer> decoded = new ArrayList<>();
+        try {
+            for (ByteBuffer item : items) {
+                decode(item, decoded);
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        if (decoded.isEmpty()) {
+            // nothing to hand on yet (header, trailer): ask for the next chunk in its place
+            subscription.request(1);
+        } else {
+            downstream.onNext(decoded);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        if (failed) return;
+        release();
+        downstream.onError(error);
+    }
+
+    @Override
+    public void onComplete() {
+        if (failed) return;
+        release();
+        boolean complete = switch (stage) {
+            case HEADER -> memberDecoded; // a partial header after the last member is padding
+            case BODY, TRAILER -> false;
+            case DONE, PADDING -> true;
+        };
+        // bodyless responses (304, HEAD) may still carry the header
+        if (inflater != null && !complete && received) {
+            downstream.onError(new EOFException("Truncated gzip response body"));
+        } else {
+            downstream.onComplete();
+        }
+    }
+
+    private void decode(ByteBuffer input, List<ByteBuffer> output) throws IOException {
+        while (input.hasRemaining()) {
+            switch (stage) {
+                case HEADER -> {
+                    framing.write(input.get());
+                    byte[] header = framing.toByteArray();
+                    if (!isHeaderStart(header)) {
+                        if (!memberDecoded) throw new IOException("Response declared gzip but is not");
+                        framing.reset();
+                        stage = Stage.PADDING;
+                        continue;
+                    }
+                    int length = headerLength(header);
+                    if (length == header.length) {
+                        framing.reset();
+                        inflater.reset();
+                        crc.reset();
+                        memberBytes = 0;
+                        stage = Stage.BODY;
+                    }
+                }
+                case BODY -> inflate(input, output);
+                case TRAILER -> {
+                    framing.write(input.get());
+                    if (framing.size() == 8) {
+                        verifyTrailer(ByteBuffer.wrap(framing.toByteArray()).order(ByteOrder.LITTLE_ENDIAN));
+                        framing.reset();
+                        memberDecoded = true;
+                        stage = Stage.DONE;
+                    }
+                }
+                // concatenated gzip members are legal; the next one starts with its own header
+                case DONE -> stage = Stage.HEADER;
+                // e.g. zero padding after the last member
+                case PADDING -> input.position(input.limit());
+            }
+        }
+    }
+
+    private void inflate(ByteBuffer input, List<ByteBuffer> output) throws IOException {
+        inflater.setInput(input);
+        try {
+            while (true) {
+                int consumed = input.position();
+                ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+                int n = inflater.inflate(chunk);
+                if (n > 0) {
+                    chunk.flip();
+                    crc.update(chunk.duplicate());
+                    memberBytes += n;
+                    decodedBytes.increment(n);
+                    output.add(chunk);
+                }
+                if (inflater.finished()) {
+                    stage = Stage.TRAILER;
+                    return;
+                }
+                if (inflater.needsDictionary()) throw new IOException("Unsupported gzip body (preset dictionary)");
+                if (n == 0 && input.position() == consumed) {
+                    if (inflater.needsInput()) return;
+                    throw new IOException("Corrupt gzip response body: inflater stalled");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt gzip response body: " + e.getMessage(), e);
+        }
+    }
+
+    private void verifyTrailer(ByteBuffer trailer) throws IOException {
+        long expectedCrc = trailer.getInt(0) & 0xFFFF_FFFFL;
+        long expectedSize = trailer.getInt(4) & 0xFFFF_FFFFL;
+        if (expectedCrc != crc.getValue() || expectedSize != (memberBytes & 0xFFFF_FFFFL)) {
+            throw new IOException("Corrupt gzip response body: checksum mismatch");
+        }
+    }
+
+    /** False once the bytes can no longer be the start of a gzip member header (magic, deflate) */
+    private static boolean isHeaderStart(byte[] bytes) {
+        return !(bytes.length >= 1 && (bytes[0] & 0xFF) != 0x1F
+                || bytes.length >= 2 && (bytes[1] & 0xFF) != 0x8B
+                || bytes.length >= 3 && bytes[2] != 8);
+    }
+
+    /** Length of the gzip member header at the start of {@code bytes}, or -1 while it is incomplete */
+    private static int headerLength(byte[] bytes) {
+        if (bytes.length < 10) return -1;
+        int flags = bytes[3] & 0xFF;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (bytes.length < position + 2) return -1;
+            position += 2 + ((bytes[position] & 0xFF) | (bytes[position + 1] & 0xFF) << 8);
+        }
+        for (int field : new int[] {FNAME, FCOMMENT}) {
+            if ((flags & field) == 0) continue;
+            while (true) {
+                if (position >= bytes.length) return -1;
+                if (bytes[position++] == 0) break;
+            }
+        }
+        if ((flags & FHCRC) != 0) position += 2;
+        return position <= bytes.length ? position : -1;
+    }
+
+    private void fail(IOException error) {
+        failed = true;
+        release();
+        subscription.cancel();
+        downstream.onError(error);
+    }
+
+    private void release() {
+        if (inflater != null) inflater.end();
+    }
+}
@@ -0,0 +1,184 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.Gauge;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one {@link HttpClient} every component shares, so connections (and HTTP/2 streams over
+ * them) are reused across the API client, token refreshes and batch runs. Configured by:
+ * <ul>
+ *   <li>{@code strava.http-executor} – {@code virtual} (default; virtual threads on Java 21+,
+ *       a cached pool of daemon threads before), {@code platform} (cached daemon pool) or
+ *       {@code default} (the JDK client's own)</li>
+ *   <li>{@code strava.http-connect-timeout-seconds} and {@code strava.http-request-timeout-seconds},
+ *       the latter applied to every request that sets none (0 disables either)</li>
+ *   <li>{@code strava.http-compression} – asks for gzip and inflates responses while they stream in</li>
+ * </ul>
+ * HTTP/2 is preferred and negotiated per host, falling back to HTTP/1.1. The JDK client does
+ * not expose its connections, so statistics are kept per host and protocol version (with
+ * HTTP/2 that is one multiplexed connection per host): requests, failures, in-flight
+ * requests, and bytes on the wire versus after decoding.
+ */
+@Component
+public class HttpTransport extends HttpClient {
+    private final HttpClient client;
+    private final ExecutorService ownedExecutor;
+    private final Duration requestTimeout;
+    private final boolean compression;
+    private final MetricsRegistry metrics;
+
+    public HttpTransport(StravaConfig config, MetricsRegistry metrics) {
+        this.metrics = metrics;
+        this.compression = config.isHttpCompression();
+        this.requestTimeout = config.getHttpRequestTimeoutSeconds() > 0
+                ? Duration.ofSeconds(config.getHttpRequestTimeoutSeconds()) : null;
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (config.getHttpConnectTimeoutSeconds() > 0) {
+            builder.connectTimeout(Duration.ofSeconds(config.getHttpConnectTimeoutSeconds()));
+        }
+        this.ownedExecutor = executor(config.getHttpExecutor());
+        if (ownedExecutor != null) {
+            builder.executor(ownedExecutor);
+        }
+        this.client = builder.build();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        try {
+            return sendAsync(request, handler).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return sendAsync(request, handler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        String host = host(request.uri());
+        Gauge inFlight = metrics.gauge("http_client_in_flight_requests", "host", host);
+        adjust(inFlight, 1);
+        return client.sendAsync(prepare(request), decoding(handler, host), pushPromiseHandler)
+                .whenComplete((response, error) -> {
+                    adjust(inFlight, -1);
+                    if (response != null) {
+                        metrics.counter("http_client_requests_total", "host", host,
+                                "version", response.version() == Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1").increment();
+                    } else {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        metrics.counter("http_client_failures_total", "host", host,
+                                "error", cause.getClass().getSimpleName()).increment();
+                    }
+                });
+    }
+
+    /** Adds the default timeout and {@code Accept-Encoding} unless the request sets its own */
+    private HttpRequest prepare(HttpRequest request) {
+        boolean addTimeout = requestTimeout != null && request.timeout().isEmpty();
+        boolean addEncoding = compression && request.headers().firstValue("Accept-Encoding").isEmpty();
+        if (!addTimeout && !addEncoding) return request;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (addTimeout) builder.timeout(requestTimeout);
+        if (addEncoding) builder.header("Accept-Encoding", "gzip");
+        return builder.build();
+    }
+
+    private <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> handler, String host) {
+        Counter decodedBytes = metrics.counter("http_client_decoded_bytes_total", "host", host);
+        return info -> {
+            boolean gzip = info.headers().firstValue("Content-Encoding")
+                    .map(encoding -> encoding.trim().equalsIgnoreCase("gzip") || encoding.trim().equalsIgnoreCase("x-gzip"))
+                    .orElse(false);
+            Counter wireBytes = metrics.counter("http_client_received_bytes_total", "host", host,
+                    "encoding", gzip ? "gzip" : "identity");
+            return new DecodingBodySubscriber<>(handler.apply(info), gzip, wireBytes, decodedBytes);
+        };
+    }
+
+    private static void adjust(Gauge gauge, int delta) {
+        synchronized (gauge) {
+            gauge.set(gauge.value() + delta);
+        }
+    }
+
+    private static String host(URI uri) {
+        String host = uri.getHost() == null ? "unknown" : uri.getHost().toLowerCase(Locale.ROOT);
+        return uri.getPort() < 0 ? host : host + ":" + uri.getPort();
+    }
+
+    /**
+     * Executor for the client's internal work and async callbacks. Virtual threads are looked
+     * up reflectively: the build targets Java 17, where they do not exist.
+     */
+    private static ExecutorService executor(String kind) {
+        String name = kind == null ? "virtual" : kind.trim().toLowerCase(Locale.ROOT);
+        if (name.equals("default")) return null;
+        if (name.equals("virtual")) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // before Java 21: fall through to platform threads
+            }
+        } else if (!name.equals("platform")) {
+            throw new IllegalArgumentException("strava.http-executor must be virtual, platform or default: " + kind);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "strava-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownedExecutor != null) ownedExecutor.shutdown();
+    }
+
+    @Override public Optional<CookieHandler> cookieHandler() { return client.cookieHandler(); }
+    @Override public Optional<Duration> connectTimeout() { return client.connectTimeout(); }
+    @Override public Redirect followRedirects() { return client.followRedirects(); }
+    @Override public Optional<ProxySelector> proxy() { return client.proxy(); }
+    @Override public SSLContext sslContext() { return client.sslContext(); }
+    @Override public SSLParameters sslParameters() { return client.sslParameters(); }
+    @Override public Optional<Authenticator> authenticator() { return client.authenticator(); }
+    @Override public Version version() { return client.version(); }
+    @Override public Optional<Executor> executor() { return client.executor(); }
+}
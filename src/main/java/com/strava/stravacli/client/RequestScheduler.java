@@ -0,0 +1,342 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.util.BackgroundOutput;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Single gateway for Strava API requests that keeps within the API rate limits.
+ * <p>
+ * Strava reports a 15-minute and a daily budget in {@code X-RateLimit-Limit} /
+ * {@code X-RateLimit-Usage} (and the stricter read budget in {@code X-ReadRateLimit-*}).
+ * After every response the scheduler re-reads those headers. Requests are dispatched as
+ * fast as the usable budget allows, where the usable budget is the 15-minute remainder
+ * capped by this window's fair share of the daily remainder over the windows left today.
+ * The last few requests of each window are kept for interactive requests; once the budget
+ * is used up, dispatching waits for the next window. Concurrency grows by one per success
+ * and halves on 429/5xx. A 429 pauses dispatching until the window resets (or
+ * {@code Retry-After}) and the request is retried. Queued requests are served
+ * interactive-first, then in submission order.
+ * <p>
+ * Per endpoint (the request path with ids replaced by {@code {id}}) the scheduler records
+ * response latency and status codes, and per priority the time requests spent queued.
+ */
+@Component
+public class RequestScheduler {
+
+    public enum Priority { INTERACTIVE, BACKFILL }
+
+    private static final long SHORT_WINDOW_SECONDS = 15 * 60;
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    private static final int MAX_RETRIES = 3;
+    /** Requests kept in reserve in each window for other tools sharing the same app */
+    private static final int SAFETY_MARGIN = 2;
+    /** Requests in each window that only interactive requests may use, so backfill cannot starve them */
+    private static final int INTERACTIVE_RESERVE = 2;
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final HttpClient httpClient;
+    private final MetricsRegistry metrics;
+    private final int maxConcurrency;
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread dispatcher;
+
+    // guarded by this
+    private int inFlight;
+    private int concurrencyLimit = 1;
+    private long shortLimit = -1, shortUsage, dailyLimit = -1, dailyUsage;
+    private long shortWindow = -1, day = -1;
+    private long pausedUntilMillis;
+
+    private final class Task<T> implements Comparable<Task<?>> {
+        final HttpRequest request;
+        final HttpResponse.BodyHandler<T> handler;
+        final Priority priority;
+        final long seq = sequence.incrementAndGet();
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        int attempts;
+
+        Task(HttpRequest request, HttpResponse.BodyHandler<T> handler, Priority priority) {
+            this.request = request;
+            this.handler = handler;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+
+    @Autowired
+    public RequestScheduler(HttpTransport transport, StravaConfig config, MetricsRegistry metrics) {
+        this(transport, config.getMaxConcurrentRequests(), metrics);
+    }
+
+    public RequestScheduler(HttpClient httpClient, int maxConcurrency, MetricsRegistry metrics) {
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.dispatcher = new Thread(this::dispatchLoop, "strava-request-scheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /** Queues a request; the future completes with the response once it has been sent */
+    public <T> CompletableFuture<HttpResponse<T>> submit(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                         Priority priority) {
+        Task<T> task = new Task<>(request, handler, priority);
+        queue.add(task);
+        synchronized (this) {
+            notifyAll(); // an interactive request may use the reserve backfill is waiting behind
+        }
+        return task.result;
+    }
+
+    /** Queues a request and waits for its response */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, Priority priority)
+            throws IOException, InterruptedException {
+        try {
+            return submit(request, handler, priority).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        }
+    }
+
+    /** Requests left in the current 15-minute window, or -1 before the first response */
+    public synchronized long remainingShortTerm() {
+        rollWindows(System.currentTimeMillis());
+        return shortLimit < 0 ? -1 : Math.max(0, shortLimit - shortUsage);
+    }
+
+    /** Requests left today, or -1 before the first response */
+    public synchronized long remainingDaily() {
+        rollWindows(System.currentTimeMillis());
+        return dailyLimit < 0 ? -1 : Math.max(0, dailyLimit - dailyUsage);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+    }
+
+    /**
+     * Waits for work, then for a slot, and only then picks the most urgent queued request:
+     * a request that arrives while the budget is exhausted or a 429 pause runs still goes
+     * ahead of backfill work queued before it.
+     */
+    private void dispatchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.add(queue.take()); // block until something is queued, but leave it there
+                awaitSlot();
+                Task<?> task = queue.poll();
+                while (task != null && task.result.isCancelled()) {
+                    task = queue.poll();
+                }
+                if (task == null) {
+                    releaseSlot();
+                } else {
+                    dispatch(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks until the most urgent queued request may be sent under the concurrency limit,
+     * the usable budget (less the interactive reserve for backfill) and any 429 pause.
+     */
+    private synchronized void awaitSlot() throws InterruptedException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            rollWindows(now);
+            Task<?> next = queue.peek();
+            long reserve = next != null && next.priority == Priority.INTERACTIVE ? 0 : INTERACTIVE_RESERVE;
+            long waitUntil = pausedUntilMillis;
+            if (usableBudget(now, shortLimit, shortUsage, dailyLimit, dailyUsage) <= reserve) {
+                waitUntil = Math.max(waitUntil, now + untilBoundary(now, SHORT_WINDOW_SECONDS));
+            }
+
+            if (waitUntil > now) {
+                wait(waitUntil - now);
+            } else if (inFlight >= concurrencyLimit) {
+                wait();
+            } else {
+                inFlight++;
+                shortUsage++;
+                dailyUsage++;
+                return;
+            }
+        }
+    }
+
+    /** Gives back a slot taken by {@link #awaitSlot()} that was not used */
+    private synchronized void releaseSlot() {
+        inFlight--;
+        shortUsage = Math.max(0, shortUsage - 1);
+        dailyUsage = Math.max(0, dailyUsage - 1);
+        notifyAll();
+    }
+
+    private <T> void dispatch(Task<T> task) {
+        task.attempts++;
+        String endpoint = endpoint(task.request.uri());
+        metrics.timer("strava_request_queue_seconds", "priority", task.priority.name().toLowerCase())
+                .recordSince(task.submittedNanos);
+        long sent = System.nanoTime();
+        httpClient.sendAsync(task.request, task.handler).whenComplete((response, error) -> {
+            metrics.timer("strava_http_request_seconds", "endpoint", endpoint).recordSince(sent);
+            metrics.counter("strava_http_responses_total", "endpoint", endpoint,
+                    "status", response == null ? "error" : String.valueOf(response.statusCode())).increment();
+            boolean retry = false;
+            synchronized (this) {
+                inFlight--;
+                if (response == null || response.statusCode() == 429 || response.statusCode() >= 500) {
+                    concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                } else {
+                    concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1);
+                }
+                if (response != null) {
+                    updateBudget(response.headers());
+                    if (response.statusCode() == 429) {
+                        pausedUntilMillis = Math.max(pausedUntilMillis, retryAfterMillis(response.headers()));
+                        retry = task.attempts <= MAX_RETRIES;
+                    }
+                }
+                notifyAll();
+            }
+
+            if (retry) {
+                BackgroundOutput.println("⏳ Strava rate limit reached, retrying after the window resets...");
+                discardBody(response);
+                queue.add(task);
+            } else if (error != null) {
+                task.result.completeExceptionally(error);
+            } else {
+                task.result.complete(response);
+            }
+        });
+    }
+
+    /**
+     * Requests that may still be sent in the current 15-minute window: what is left of the
+     * window, capped by what is left of the window's share, i.e. an even share of the daily
+     * remainder at the start of the window over the windows left today (this one included).
+     * Unlimited until the first response has reported the limits.
+     */
+    static long usableBudget(long now, long shortLimit, long shortUsage, long dailyLimit, long dailyUsage) {
+        long usable = Long.MAX_VALUE;
+        if (shortLimit >= 0) {
+            usable = shortLimit - shortUsage;
+        }
+        if (dailyLimit >= 0) {
+            long windowsLeft = Math.max(1, (untilBoundary(now, DAY_SECONDS) + SHORT_WINDOW_SECONDS * 1000 - 1)
+                    / (SHORT_WINDOW_SECONDS * 1000));
+            // shortUsage counts this window's requests, which are already part of dailyUsage
+            long remainderAtWindowStart = Math.max(0, dailyLimit - Math.max(0, dailyUsage - shortUsage));
+            long dailyShare = (remainderAtWindowStart + windowsLeft - 1) / windowsLeft;
+            usable = Math.min(usable, dailyShare - shortUsage);
+        }
+        return usable == Long.MAX_VALUE ? usable : usable - SAFETY_MARGIN;
+    }
+
+    /** Request path with numeric ids collapsed, e.g. {@code /api/v3/activities/{id}/streams} */
+    static String endpoint(URI uri) {
+        String path = uri.getPath();
+        return path == null || path.isEmpty() ? "/" : ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    private static void discardBody(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void updateBudget(HttpHeaders headers) {
+        Optional<long[]> limit = pair(headers, "X-ReadRateLimit-Limit").or(() -> pair(headers, "X-RateLimit-Limit"));
+        Optional<long[]> usage = pair(headers, "X-ReadRateLimit-Usage").or(() -> pair(headers, "X-RateLimit-Usage"));
+        if (limit.isEmpty() || usage.isEmpty()) return;
+
+        rollWindows(System.currentTimeMillis());
+        shortLimit = limit.get()[0];
+        dailyLimit = limit.get()[1];
+        // responses can arrive out of order; never let a stale one lower our local count
+        shortUsage = Math.max(shortUsage, usage.get()[0]);
+        dailyUsage = Math.max(dailyUsage, usage.get()[1]);
+    }
+
+    /** Resets local usage counters when a 15-minute window or the UTC day rolls over */
+    private void rollWindows(long now) {
+        long seconds = now / 1000;
+        long currentShort = seconds / SHORT_WINDOW_SECONDS;
+        long currentDay = seconds / DAY_SECONDS;
+        if (currentShort != shortWindow) {
+            shortWindow = currentShort;
+            shortUsage = 0;
+        }
+        if (currentDay != day) {
+            day = currentDay;
+            dailyUsage = 0;
+        }
+    }
+
+    private long retryAfterMillis(HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        return headers.firstValue("Retry-After")
+                .map(value -> {
+                    try {
+                        return now + Duration.ofSeconds(Long.parseLong(value.trim())).toMillis();
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                })
+                .orElseGet(() -> now + untilBoundary(now, SHORT_WINDOW_SECONDS));
+    }
+
+    /** Milliseconds until the next multiple of {@code windowSeconds} since the epoch (Strava's windows are UTC-aligned) */
+    private static long untilBoundary(long nowMillis, long windowSeconds) {
+        long windowMillis = windowSeconds * 1000;
+        return windowMillis - Math.floorMod(nowMillis, windowMillis);
+    }
+
+    private static Optional<long[]> pair(HttpHeaders headers, String name) {
+        return headers.firstValue(name).map(value -> {
+            String[] parts = value.split(",");
+            if (parts.length < 2) return null;
+            try {
+                return new long[]{Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim())};
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        });
+    }
+}
@@ -1,29 +1,84 @@
 package com.strava.stravacli.client;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.client.RequestScheduler.Priority;
 import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
 import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStreams;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class StravaClient {
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    /** Largest page size accepted by the /athlete/activities endpoint */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /** ETag of an incremental activity page and the number of activities it held */
+    public record PageValidator(String etag, int count) {}
+    private static final String STREAM_KEYS = Arrays.stream(ActivityStreams.Channel.values())
+            .map(ActivityStreams.Channel::key)
+            .collect(Collectors.joining(","));
+
+    private final RequestScheduler scheduler;
+    private final ActivityPageParser pageParser;
+    private final ActivityStreamsParser streamsParser;
     private final StravaConfig config;
+    // committed page validators, by access token and URL: see commitValidators
+    private final Map<String, PageValidator> validators = new ConcurrentHashMap<>();
+    private final AtomicLong notModified = new AtomicLong();
+
+    // body read and parse times: bodies are parsed as they stream in, so this includes transfer
+    private final Timer activityParseTime;
+    private final Timer streamsParseTime;
+    private final Counter activityBytes;
+    private final Counter streamsBytes;
+    private final Counter activitiesParsed;
+    // runs the async variants; the requests themselves are pipelined by the scheduler
+    private final ExecutorService asyncFetches = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "strava-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    public StravaClient(StravaConfig config) {
-        this.httpClient = HttpClient.newHttpClient();
-        this.objectMapper = new ObjectMapper();
+    public StravaClient(StravaConfig config, RequestScheduler scheduler, MetricsRegistry metrics) {
+        this.scheduler = scheduler;
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.pageParser = new ActivityPageParser(objectMapper);
+        this.streamsParser = new ActivityStreamsParser(objectMapper.getFactory());
         this.config = config;
+        this.activityParseTime = metrics.timer("strava_parse_seconds", "body", "activities");
+        this.streamsParseTime = metrics.timer("strava_parse_seconds", "body", "streams");
+        this.activityBytes = metrics.counter("strava_http_body_bytes_total", "body", "activities");
+        this.streamsBytes = metrics.counter("strava_http_body_bytes_total", "body", "streams");
+        this.activitiesParsed = metrics.counter("strava_activities_parsed_total");
     }
 
     public List<Activity> fetchRecentActivities(String accessToken) {
@@ -33,29 +88,331 @@ public class StravaClient {
             String url = config.getBaseUrl() + "/athlete/activities?per_page=10";
             HttpRequest request = getRequest(accessToken, url);
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                List<Activity> activities = objectMapper.readValue(
-                        response.body(),
-                        new TypeReference<>() {}
-                );
+            HttpResponse<InputStream> response = scheduler.send(request, HttpResponse.BodyHandlers.ofInputStream(), Priority.INTERACTIVE);
+            List<Activity> activities = new ArrayList<>();
 
+            if (readActivities(response, activities::add, System.out) >= 0) {
                 System.out.println("✅ Successfully fetched " + activities.size() + " activities.");
                 return activities;
+            }
+
+        } catch (IOException | InterruptedException e) {
+            System.out.println("🚫  Network error while fetching activities: " + e.getMessage());
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Fetches the athlete's full activity history using the maximum page size.
+     * Up to {@code maxConcurrentRequests} pages are kept in flight; pages are consumed
+     * in order and fetching stops at the first empty page.
+     */
+    public List<Activity> fetchAllActivities(String accessToken) {
+        List<Activity> activities = new ArrayList<>();
+        return fetchAllActivities(accessToken, activities::add) ? activities : Collections.emptyList();
+    }
+
+    /**
+     * Streams the full activity history into the sink in API order (newest first).
+     * Each page is parsed straight from the response stream.
+     *
+     * @return true if the whole history was delivered, false if fetching stopped on an error
+     */
+    public boolean fetchAllActivities(String accessToken, Consumer<? super Activity> sink) {
+        return fetchAllActivities(accessToken, sink, System.out);
+    }
+
+    /** As {@link #fetchAllActivities(String, Consumer)}, with progress and errors printed to {@code out} */
+    public boolean fetchAllActivities(String accessToken, Consumer<? super Activity> sink, PrintStream out) {
+        out.println("\n🔄 Fetching your full Strava activity history...");
+
+        int pageSize = pageSize();
+        int window = Math.max(1, config.getMaxConcurrentRequests());
+
+        Deque<CompletableFuture<HttpResponse<InputStream>>> inFlight = new ArrayDeque<>();
+        int total = 0;
+        int nextPage = 1;
+
+        try {
+            while (inFlight.size() < window) {
+                inFlight.add(fetchPageAsync(accessToken, nextPage++, pageSize));
+            }
+
+            while (!inFlight.isEmpty()) {
+                int count = readActivities(inFlight.poll().join(), sink, out);
+                if (count < 0) {
+                    return false;
+                }
+                if (count == 0) {
+                    break;
+                }
+                total += count;
+                inFlight.add(fetchPageAsync(accessToken, nextPage++, pageSize));
+            }
+
+            out.println("✅ Successfully fetched " + total + " activities.");
+            return true;
+
+        } catch (CompletionException | IOException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            out.println("🚫  Network error while fetching activities: " + cause.getMessage());
+        } finally {
+            inFlight.forEach(StravaClient::discard);
+        }
+
+        return false;
+    }
+
+    /**
+     * Asynchronous {@link #fetchAllActivities(String, Consumer, PrintStream)}: the sink is called
+     * in API order on a background thread, and the future completes with the same result.
+     */
+    public CompletableFuture<Boolean> fetchAllActivitiesAsync(String accessToken, Consumer<? super Activity> sink,
+                                                              PrintStream out) {
+        return CompletableFuture.supplyAsync(() -> fetchAllActivities(accessToken, sink, out), asyncFetches);
+    }
+
+    /**
+     * Fetches only activities that started after the given epoch second.
+     * Pages are requested one at a time and fetching stops at the first page that is
+     * not full, so an up-to-date history costs a single round-trip.
+     */
+    public List<Activity> fetchActivitiesAfter(String accessToken, long afterEpochSecond) {
+        List<Activity> activities = new ArrayList<>();
+        return fetchActivitiesAfter(accessToken, afterEpochSecond, activities::add) ? activities : Collections.emptyList();
+    }
+
+    /**
+     * Streams activities that started after the given epoch second into the sink.
+     *
+     * @return true if every new activity was delivered, false if fetching stopped on an error
+     */
+    public boolean fetchActivitiesAfter(String accessToken, long afterEpochSecond, Consumer<? super Activity> sink) {
+        return fetchActivitiesAfter(accessToken, afterEpochSecond, sink, System.out, new HashMap<>());
+    }
+
+    /**
+     * As {@link #fetchActivitiesAfter(String, long, Consumer)}, with progress and errors printed to
+     * {@code out}. Pages are revalidated with committed ETags; the validators of the pages received
+     * are put into {@code received}, for the caller to {@link #commitValidators commit} once the
+     * activities are stored. A 304 page counts as the activities it held when it was committed.
+     */
+    public boolean fetchActivitiesAfter(String accessToken, long afterEpochSecond, Consumer<? super Activity> sink,
+                                        PrintStream out, Map<String, PageValidator> received) {
+        out.println("\n🔄 Fetching new Strava activities...");
+
+        int pageSize = pageSize();
+        int total = 0;
+
+        try {
+            for (int page = 1; ; page++) {
+                String url = pageUrl(page, pageSize) + "&after=" + afterEpochSecond;
+                String key = validatorKey(accessToken, url);
+                PageValidator validator = validators.get(key);
+                HttpResponse<InputStream> response = scheduler.send(getConditionalRequest(accessToken, url, validator),
+                        HttpResponse.BodyHandlers.ofInputStream(), Priority.INTERACTIVE);
+                int count = readActivities(response, sink, out);
+                if (count < 0) {
+                    return false;
+                }
+                if (response.statusCode() == 304 && validator != null) {
+                    count = validator.count(); // unchanged, and stored when the validator was committed
+                    received.put(key, validator);
+                } else {
+                    Optional<String> etag = response.headers().firstValue("ETag");
+                    if (etag.isPresent()) received.put(key, new PageValidator(etag.get(), count));
+                }
+                total += count;
+                if (count < pageSize) {
+                    break;
+                }
+            }
+
+            out.println("✅ Successfully fetched " + total + " new activities.");
+            return true;
+
+        } catch (IOException | InterruptedException e) {
+            out.println("🚫  Network error while fetching activities: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Asynchronous {@link #fetchActivitiesAfter(String, long, Consumer, PrintStream, Map)}: the sink
+     * is called on a background thread, and the future completes with the same result.
+     */
+    public CompletableFuture<Boolean> fetchActivitiesAfterAsync(String accessToken, long afterEpochSecond,
+                                                                Consumer<? super Activity> sink, PrintStream out,
+                                                                Map<String, PageValidator> received) {
+        return CompletableFuture.supplyAsync(
+                () -> fetchActivitiesAfter(accessToken, afterEpochSecond, sink, out, received), asyncFetches);
+    }
+
+    /**
+     * Downloads the streams of the given activities as background requests, keeping up to
+     * {@code maxConcurrentRequests} in flight, and hands each one to the sink in input order.
+     * Activities without streams (manual entries, 404) are delivered as empty streams.
+     *
+     * @return number of activities delivered; fewer than requested if fetching stopped on an error
+     */
+    public int fetchStreams(String accessToken, List<String> activityIds, BiConsumer<String, ActivityStreams> sink) {
+        int window = Math.max(1, config.getMaxConcurrentRequests());
+        Deque<CompletableFuture<HttpResponse<InputStream>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        int delivered = 0;
+
+        try {
+            while (delivered < activityIds.size()) {
+                while (inFlight.size() < window && next < activityIds.size()) {
+                    inFlight.add(scheduler.submit(getRequest(accessToken, streamsUrl(activityIds.get(next++))),
+                            HttpResponse.BodyHandlers.ofInputStream(), Priority.BACKFILL));
+                }
+                ActivityStreams streams = readStreams(inFlight.poll().join());
+                if (streams == null) {
+                    break;
+                }
+                sink.accept(activityIds.get(delivered++), streams);
+            }
+        } catch (CompletionException | IOException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.out.println("🚫  Network error while fetching streams: " + cause.getMessage());
+        } finally {
+            inFlight.forEach(StravaClient::discard);
+        }
+        return delivered;
+    }
 
+    private String streamsUrl(String activityId) {
+        return config.getBaseUrl() + "/activities/" + activityId + "/streams?keys="
+                + STREAM_KEYS + "&key_by_type=true";
+    }
+
+    /**
+     * Parses one streams response and closes the body.
+     *
+     * @return the streams (empty for 404), or null when the response is a non-fatal error
+     */
+    private ActivityStreams readStreams(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = new CountingInputStream(response.body(), streamsBytes)) {
+            if (response.statusCode() == 200) {
+                long started = System.nanoTime();
+                ActivityStreams streams = streamsParser.parse(body);
+                streamsParseTime.recordSince(started);
+                return streams;
+            } else if (response.statusCode() == 404) {
+                return ActivityStreams.empty();
             } else if (response.statusCode() == 401) {
                 System.out.println("⚠️  Unauthorized: Invalid or expired access token.");
                 throw new RuntimeException("Invalid token");
             } else {
-                System.out.println("❌  Error fetching data: HTTP " + response.statusCode());
+                System.out.println("❌  Error fetching streams: HTTP " + response.statusCode());
+                return null;
             }
+        }
+    }
 
-        } catch (IOException | InterruptedException e) {
-            System.out.println("🚫  Network error while fetching activities: " + e.getMessage());
+    private CompletableFuture<HttpResponse<InputStream>> fetchPageAsync(String accessToken, int page, int pageSize) {
+        return scheduler.submit(getRequest(accessToken, pageUrl(page, pageSize)),
+                HttpResponse.BodyHandlers.ofInputStream(), Priority.BACKFILL);
+    }
+
+    private int pageSize() {
+        return Math.max(1, Math.min(config.getPageSize(), MAX_PAGE_SIZE));
+    }
+
+    private String pageUrl(int page, int pageSize) {
+        return config.getBaseUrl() + "/athlete/activities?per_page=" + pageSize + "&page=" + page;
+    }
+
+    /**
+     * Streams a page of activities into the sink and closes the body.
+     *
+     * @return number of activities read, or -1 when the response is a non-fatal error
+     */
+    private int readActivities(HttpResponse<InputStream> response, Consumer<? super Activity> sink, PrintStream out)
+            throws IOException {
+        try (InputStream body = new CountingInputStream(response.body(), activityBytes)) {
+            if (response.statusCode() == 200) {
+                long started = System.nanoTime();
+                int count = pageParser.parse(body, sink);
+                activityParseTime.recordSince(started);
+                activitiesParsed.increment(count);
+                return count;
+            } else if (response.statusCode() == 304) {
+                notModified.incrementAndGet();
+                return 0;
+            } else if (response.statusCode() == 401) {
+                out.println("⚠️  Unauthorized: Invalid or expired access token.");
+                throw new RuntimeException("Invalid token");
+            } else {
+                out.println("❌  Error fetching data: HTTP " + response.statusCode());
+                return -1;
+            }
         }
+    }
 
-        return Collections.emptyList();
+    /** Cancels a page request that is no longer needed, closing its body if it already arrived */
+    private static void discard(CompletableFuture<HttpResponse<InputStream>> future) {
+        future.whenComplete((response, error) -> {
+            if (response != null) {
+                try {
+                    response.body().close();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        future.cancel(true);
+    }
+
+    /** Number of conditional requests answered with 304 Not Modified */
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * Makes the validators an incremental fetch received available to later fetches. Call only
+     * once the fetched activities are stored: a 304 then stands for activities already kept.
+     */
+    public void commitValidators(Map<String, PageValidator> received) {
+        validators.putAll(received);
+    }
+
+    /** Forget all stored ETags so the next requests are unconditional */
+    public void clearValidators() {
+        validators.clear();
+    }
+
+    /** Forget the ETags of one access token, e.g. after a fetch with it stopped on an error */
+    public void clearValidators(String accessToken) {
+        validators.keySet().removeIf(key -> key.startsWith(accessToken + '\n'));
+    }
+
+    /**
+     * Builds a request that revalidates a previously seen response with If-None-Match.
+     * Only used for incremental (after=) pages: there a 304 reliably means "nothing newer".
+     */
+    private HttpRequest getConditionalRequest(String accessToken, String url, PageValidator validator) {
+        if (validator == null) {
+            return getRequest(accessToken, url);
+        }
+        return HttpRequest.newBuilder(getRequest(accessToken, url), (name, value) -> true)
+                .header("If-None-Match", validator.etag())
+                .build();
+    }
+
+    /**
+     * Validators are kept per access token as well as per URL: in batch mode one client serves
+     * many athletes, whose pages share URLs but not content.
+     */
+    private static String validatorKey(String accessToken, String url) {
+        return accessToken + '\n' + url;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncFetches.shutdown();
     }
 
     private static HttpRequest getRequest(String accessToken, String url) {
@@ -11,15 +11,33 @@ public class StravaConfig {
 
     private String accessToken;
     private String baseUrl;
+    private String oauthUrl = "https://www.strava.com/oauth";
     private String clientId;
     private String clientSecret;
     private String redirectUri;
+    private int pageSize = 200;
+    private int maxConcurrentRequests = 4;
+    private long cacheTtlSeconds = 300;
+    private long tokenRefreshWindowSeconds = 300;
+    private int batchParallelism = 8;
+    private int importParallelism = 0;
+    private String httpExecutor = "virtual";
+    private int httpConnectTimeoutSeconds = 10;
+    private int httpRequestTimeoutSeconds = 60;
+    private boolean httpCompression = true;
 
     public StravaConfig() {
-        Dotenv dotenv = Dotenv.configure().filename(".env").load();
-        clientId = dotenv.get("STRAVA_CLIENT_ID");
-        clientSecret = dotenv.get("STRAVA_CLIENT_SECRET");
-        redirectUri = dotenv.get("STRAVA_REDIRECT_URI");
+        clientId = System.getenv("STRAVA_CLIENT_ID");
+        clientSecret = System.getenv("STRAVA_CLIENT_SECRET");
+        redirectUri = System.getenv("STRAVA_REDIRECT_URI");
+
+        // Credentials already in the environment (cron, CI) make the .env scan unnecessary
+        if (clientId == null || clientSecret == null || redirectUri == null) {
+            Dotenv dotenv = Dotenv.configure().filename(".env").ignoreIfMissing().load();
+            clientId = dotenv.get("STRAVA_CLIENT_ID");
+            clientSecret = dotenv.get("STRAVA_CLIENT_SECRET");
+            redirectUri = dotenv.get("STRAVA_REDIRECT_URI");
+        }
     }
 
     // Getter and Setter for accessToken
@@ -40,6 +58,15 @@ public class StravaConfig {
         this.baseUrl = baseUrl;
     }
 
+    /** Base of the OAuth endpoints ({@code /authorize}, {@code /token}); point it elsewhere to test against a stand-in */
+    public String getOauthUrl() {
+        return oauthUrl;
+    }
+
+    public void setOauthUrl(String oauthUrl) {
+        this.oauthUrl = oauthUrl;
+    }
+
     public String getClientId() {
         return clientId;
     }
@@ -63,4 +90,88 @@ public class StravaConfig {
     public void setRedirectUri(String redirectUri) {
         this.redirectUri = redirectUri;
     }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public long getTokenRefreshWindowSeconds() {
+        return tokenRefreshWindowSeconds;
+    }
+
+    public void setTokenRefreshWindowSeconds(long tokenRefreshWindowSeconds) {
+        this.tokenRefreshWindowSeconds = tokenRefreshWindowSeconds;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    /** Workers parsing activity files during a bulk import; 0 or less means one per CPU core */
+    public int getImportParallelism() {
+        return importParallelism;
+    }
+
+    public void setImportParallelism(int importParallelism) {
+        this.importParallelism = importParallelism;
+    }
+
+    /** Executor of the shared HTTP client: virtual, platform or default */
+    public String getHttpExecutor() {
+        return httpExecutor;
+    }
+
+    public void setHttpExecutor(String httpExecutor) {
+        this.httpExecutor = httpExecutor;
+    }
+
+    public int getHttpConnectTimeoutSeconds() {
+        return httpConnectTimeoutSeconds;
+    }
+
+    public void setHttpConnectTimeoutSeconds(int httpConnectTimeoutSeconds) {
+        this.httpConnectTimeoutSeconds = httpConnectTimeoutSeconds;
+    }
+
+    /** Applied to requests that set no timeout of their own; 0 or less means none */
+    public int getHttpRequestTimeoutSeconds() {
+        return httpRequestTimeoutSeconds;
+    }
+
+    public void setHttpRequestTimeoutSeconds(int httpRequestTimeoutSeconds) {
+        this.httpRequestTimeoutSeconds = httpRequestTimeoutSeconds;
+    }
+
+    /** Whether to ask for gzip-compressed responses */
+    public boolean isHttpCompression() {
+        return httpCompression;
+    }
+
+    public void setHttpCompression(boolean httpCompression) {
+        this.httpCompression = httpCompression;
+    }
 }
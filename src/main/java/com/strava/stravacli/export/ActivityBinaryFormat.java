@@ -0,0 +1,454 @@
+package com.strava.stravacli.export;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.util.StravaDates;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact columnar file format for an activity history.
+ * <p>
+ * Layout (little-endian): a 16-byte preamble ({@code "SACT"} magic, format version, column
+ * count, row count), one header entry per column (name, {@link Encoding}, data offset and
+ * length), then each column's data starting on an 8-byte boundary. Numbers are stored as
+ * fixed-width primitives. Text is stored in the most compact encoding that reproduces every
+ * value exactly: numeric ids as int64, ISO-8601 instants as epoch seconds, anything else as a
+ * dictionary of distinct UTF-8 strings followed by one int32 code per row ({@code -1} = null).
+ * <p>
+ * Writing makes one pass per column over the activities through a fixed-size buffer, so no
+ * large intermediate copy is built. Reading maps the file and fills the activities column by
+ * column; strings repeated across rows (types, recurring names) are decoded once and shared.
+ * Readers skip columns they do not know, so columns can be added without a version bump.
+ */
+public final class ActivityBinaryFormat {
+    private static final int MAGIC = 0x54434153; // "SACT" read little-endian
+    private static final short VERSION = 1;
+    private static final int PREAMBLE_BYTES = 16;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    /** How a column's values are laid out */
+    public enum Encoding {
+        INT32, INT64, FLOAT64, INT64_TEXT, EPOCH_SECONDS, DICTIONARY;
+
+        static Encoding of(int ordinal) throws IOException {
+            if (ordinal < 0 || ordinal >= values().length) throw new IOException("Unknown column encoding " + ordinal);
+            return values()[ordinal];
+        }
+    }
+
+    /** Stored activity fields, in file order */
+    private enum Field {
+        ID("id", null),
+        NAME("name", null),
+        TYPE("type", null),
+        START_DATE("start_date", null),
+        START_DATE_LOCAL("start_date_local", null),
+        DISTANCE("distance", Encoding.FLOAT64),
+        MOVING_TIME("moving_time", Encoding.INT64),
+        ELAPSED_TIME("elapsed_time", Encoding.INT64),
+        ELEVATION_GAIN("total_elevation_gain", Encoding.FLOAT64),
+        KUDOS_COUNT("kudos_count", Encoding.INT32),
+        SUMMARY_POLYLINE("summary_polyline", null);
+
+        final String column;
+        final Encoding numeric; // null for text fields
+
+        Field(String column, Encoding numeric) {
+            this.column = column;
+            this.numeric = numeric;
+        }
+
+        static Field of(String column) {
+            for (Field field : values()) {
+                if (field.column.equals(column)) return field;
+            }
+            return null;
+        }
+
+        String text(Activity activity) {
+            return switch (this) {
+                case ID -> activity.getId();
+                case NAME -> activity.getName();
+                case TYPE -> activity.getType();
+                case START_DATE -> activity.getStartDate();
+                case START_DATE_LOCAL -> activity.getStartDateLocal();
+                case SUMMARY_POLYLINE -> activity.getSummaryPolyline();
+                default -> throw new IllegalStateException(this + " is not a text field");
+            };
+        }
+
+        void setText(Activity activity, String value) {
+            switch (this) {
+                case ID -> activity.setId(value);
+                case NAME -> activity.setName(value);
+                case TYPE -> activity.setType(value);
+                case START_DATE -> activity.setStartDate(value);
+                case START_DATE_LOCAL -> activity.setStartDateLocal(value);
+                case SUMMARY_POLYLINE -> activity.setSummaryPolyline(value);
+                default -> throw new IllegalStateException(this + " is not a text field");
+            }
+        }
+
+        void setEpochSecond(Activity activity, long value) {
+            if (this == START_DATE_LOCAL) {
+                activity.setStartLocalEpochSecond(value); // kept as epoch seconds, no need to format
+            } else {
+                setText(activity, StravaDates.format(value));
+            }
+        }
+
+        long integer(Activity activity) {
+            return switch (this) {
+                case MOVING_TIME -> activity.getMovingTime();
+                case ELAPSED_TIME -> activity.getElapsedTime();
+                case KUDOS_COUNT -> activity.getKudosCount();
+                default -> throw new IllegalStateException(this + " is not an integer field");
+            };
+        }
+
+        void setInteger(Activity activity, long value) {
+            switch (this) {
+                case MOVING_TIME -> activity.setMovingTime(value);
+                case ELAPSED_TIME -> activity.setElapsedTime(value);
+                case KUDOS_COUNT -> activity.setKudosCount((int) value);
+                default -> throw new IllegalStateException(this + " is not an integer field");
+            }
+        }
+
+        double decimal(Activity activity) {
+            return switch (this) {
+                case DISTANCE -> activity.getDistance();
+                case ELEVATION_GAIN -> activity.getElevationGain();
+                default -> throw new IllegalStateException(this + " is not a decimal field");
+            };
+        }
+
+        void setDecimal(Activity activity, double value) {
+            switch (this) {
+                case DISTANCE -> activity.setDistance(value);
+                case ELEVATION_GAIN -> activity.setElevationGain(value);
+                default -> throw new IllegalStateException(this + " is not a decimal field");
+            }
+        }
+    }
+
+    private ActivityBinaryFormat() {}
+
+    /** Writes the activities to {@code target}, replacing any existing file atomically */
+    public static void write(List<Activity> activities, Path target) throws IOException {
+        Map<Field, Encoding> encodings = new EnumMap<>(Field.class);
+        Map<Field, List<String>> dictionaries = new EnumMap<>(Field.class);
+        Map<Field, Map<String, Integer>> codes = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            Encoding encoding = field.numeric != null ? field.numeric : textEncoding(field, activities);
+            encodings.put(field, encoding);
+            if (encoding == Encoding.DICTIONARY) {
+                List<String> dictionary = new ArrayList<>();
+                Map<String, Integer> fieldCodes = new HashMap<>();
+                for (Activity activity : activities) {
+                    String value = field.text(activity);
+                    if (value != null && fieldCodes.putIfAbsent(value, dictionary.size()) == null) {
+                        dictionary.add(value);
+                    }
+                }
+                dictionaries.put(field, dictionary);
+                codes.put(field, fieldCodes);
+            }
+        }
+
+        int headerBytes = PREAMBLE_BYTES;
+        for (Field field : Field.values()) {
+            headerBytes += 1 + field.column.length() + 1 + 8 + 8;
+        }
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            writeColumns(activities, tmp, headerBytes, encodings, dictionaries, codes);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeColumns(List<Activity> activities, Path tmp, int headerBytes, Map<Field, Encoding> encodings,
+                                     Map<Field, List<String>> dictionaries, Map<Field, Map<String, Integer>> codes)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ChannelOutput out = new ChannelOutput(channel, headerBytes);
+            long[] offsets = new long[Field.values().length];
+            long[] lengths = new long[offsets.length];
+
+            for (Field field : Field.values()) {
+                out.align(8);
+                offsets[field.ordinal()] = out.position();
+                Encoding encoding = encodings.get(field);
+                switch (encoding) {
+                    case INT32 -> activities.forEach(activity -> out.putInt((int) field.integer(activity)));
+                    case INT64 -> activities.forEach(activity -> out.putLong(field.integer(activity)));
+                    case FLOAT64 -> activities.forEach(activity -> out.putDouble(field.decimal(activity)));
+                    case INT64_TEXT -> activities.forEach(activity -> {
+                        String value = field.text(activity);
+                        out.putLong(value == null ? NULL_LONG : Long.parseLong(value));
+                    });
+                    case EPOCH_SECONDS -> activities.forEach(activity -> {
+                        String value = field.text(activity);
+                        out.putLong(value == null ? NULL_LONG : StravaDates.epochSecond(value));
+                    });
+                    case DICTIONARY -> {
+                        List<String> dictionary = dictionaries.get(field);
+                        Map<String, Integer> fieldCodes = codes.get(field);
+                        out.putInt(dictionary.size());
+                        for (String entry : dictionary) {
+                            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                            out.putInt(bytes.length);
+                            out.put(bytes);
+                        }
+                        out.align(4);
+                        activities.forEach(activity -> {
+                            String value = field.text(activity);
+                            out.putInt(value == null ? -1 : fieldCodes.get(value));
+                        });
+                    }
+                }
+                lengths[field.ordinal()] = out.position() - offsets[field.ordinal()];
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(headerBytes).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) Field.values().length)
+                    .putInt(activities.size())
+                    .putInt(0);
+            for (Field field : Field.values()) {
+                header.put((byte) field.column.length())
+                        .put(field.column.getBytes(StandardCharsets.US_ASCII))
+                        .put((byte) encodings.get(field).ordinal())
+                        .putLong(offsets[field.ordinal()])
+                        .putLong(lengths[field.ordinal()]);
+            }
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+    }
+
+    /** Reads a file written by {@link #write} */
+    public static List<Activity> read(Path source) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            if (data.limit() < PREAMBLE_BYTES || data.getInt(0) != MAGIC || data.getShort(4) != VERSION) {
+                throw new IOException("Not an activity file: " + source);
+            }
+            int columns = data.getShort(6);
+            int rows = data.getInt(8);
+            if (columns < 0 || rows < 0 || rows > data.limit()) { // every row takes bytes in each column
+                throw new IOException("Corrupt activity file header: " + source);
+            }
+
+            List<Activity> activities = new ArrayList<>(rows);
+            for (int row = 0; row < rows; row++) {
+                activities.add(new Activity());
+            }
+
+            data.position(PREAMBLE_BYTES);
+            for (int column = 0; column < columns; column++) {
+                byte[] name = new byte[Byte.toUnsignedInt(data.get())];
+                data.get(name);
+                Encoding encoding = Encoding.of(data.get());
+                long offset = data.getLong();
+                long length = data.getLong();
+                if (offset < 0 || length < 0 || offset + length > data.limit()) {
+                    throw new IOException("Column " + new String(name, StandardCharsets.US_ASCII) + " out of bounds");
+                }
+                Field field = Field.of(new String(name, StandardCharsets.US_ASCII));
+                if (field != null) {
+                    readColumn(data.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN),
+                            field, encoding, activities);
+                }
+            }
+            return activities;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Truncated activity file: " + source, e);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt activity file: " + source, e); // callers fall back to JSON
+        }
+    }
+
+    private static void readColumn(ByteBuffer column, Field field, Encoding encoding, List<Activity> activities)
+            throws IOException {
+        int rows = activities.size();
+        switch (encoding) {
+            case INT32 -> {
+                for (int row = 0; row < rows; row++) field.setInteger(activities.get(row), column.getInt(row * 4));
+            }
+            case INT64 -> {
+                for (int row = 0; row < rows; row++) field.setInteger(activities.get(row), column.getLong(row * 8));
+            }
+            case FLOAT64 -> {
+                for (int row = 0; row < rows; row++) field.setDecimal(activities.get(row), column.getDouble(row * 8));
+            }
+            case INT64_TEXT -> {
+                for (int row = 0; row < rows; row++) {
+                    long value = column.getLong(row * 8);
+                    field.setText(activities.get(row), value == NULL_LONG ? null : Long.toString(value));
+                }
+            }
+            case EPOCH_SECONDS -> {
+                for (int row = 0; row < rows; row++) {
+                    long value = column.getLong(row * 8);
+                    if (value == NULL_LONG) {
+                        field.setText(activities.get(row), null);
+                    } else {
+                        field.setEpochSecond(activities.get(row), value);
+                    }
+                }
+            }
+            case DICTIONARY -> {
+                String[] dictionary = new String[length(column, Integer.BYTES)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] bytes = new byte[length(column, 1)];
+                    column.get(bytes);
+                    dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                int codes = (column.position() + 3) & ~3;
+                for (int row = 0; row < rows; row++) {
+                    int code = column.getInt(codes + row * 4);
+                    field.setText(activities.get(row), code < 0 ? null : dictionary[code]);
+                }
+            }
+        }
+    }
+
+    /** Reads a count of items of {@code itemBytes} each, checked against what is left of the column */
+    private static int length(ByteBuffer column, int itemBytes) throws IOException {
+        int length = column.getInt();
+        if (length < 0 || length > column.remaining() / itemBytes) {
+            throw new IOException("Dictionary length " + length + " out of bounds");
+        }
+        return length;
+    }
+
+    /** Most compact encoding that reproduces every value of a text field exactly */
+    private static Encoding textEncoding(Field field, List<Activity> activities) {
+        Encoding candidate = switch (field) {
+            case ID -> Encoding.INT64_TEXT;
+            case START_DATE, START_DATE_LOCAL -> Encoding.EPOCH_SECONDS;
+            default -> Encoding.DICTIONARY;
+        };
+        if (candidate == Encoding.DICTIONARY) return candidate;
+
+        for (Activity activity : activities) {
+            String value = field.text(activity);
+            if (value == null) continue;
+            boolean exact = candidate == Encoding.INT64_TEXT ? isCanonicalLong(value)
+                    : StravaDates.epochSecond(value) != StravaDates.INVALID;
+            if (!exact) return Encoding.DICTIONARY;
+        }
+        return candidate;
+    }
+
+    /** True if the value is a decimal long that {@link Long#toString} reproduces exactly */
+    private static boolean isCanonicalLong(String value) {
+        int length = value.length();
+        if (length == 0 || length > 20) return false;
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == length || (value.charAt(start) == '0' && length > start + 1) || value.equals("-0")) return false;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        try {
+            return Long.parseLong(value) != NULL_LONG;
+        } catch (NumberFormatException e) {
+            return false; // out of range
+        }
+    }
+
+    /** Buffered sequential writes to a channel, starting after the header */
+    private static final class ChannelOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        ChannelOutput(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            this.flushed = start;
+            channel.position(start);
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putInt(int value) {
+            ensure(4).putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(8).putLong(value);
+        }
+
+        void putDouble(double value) {
+            ensure(8).putDouble(value);
+        }
+
+        void put(byte[] bytes) {
+            for (int offset = 0; offset < bytes.length; ) {
+                int chunk = Math.min(bytes.length - offset, BUFFER_BYTES);
+                ensure(chunk).put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void align(int boundary) {
+            while (position() % boundary != 0) {
+                ensure(1).put((byte) 0);
+            }
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    flushed += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
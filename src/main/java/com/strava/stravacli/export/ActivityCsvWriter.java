@@ -0,0 +1,88 @@
+package com.strava.stravacli.export;
+
+import com.strava.stravacli.model.Activity;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes an activity history as RFC 4180 CSV, one line per activity, straight to the target
+ * writer. Distances and elevation are in meters and times in seconds, exactly as stored, so
+ * the export loses nothing; text containing commas, quotes or line breaks is quoted.
+ */
+public final class ActivityCsvWriter {
+    public static final String HEADER = "id,name,type,start_date,start_date_local,distance_m,"
+            + "moving_time_s,elapsed_time_s,elevation_gain_m,kudos_count,summary_polyline";
+
+    private ActivityCsvWriter() {}
+
+    /** Writes the activities to {@code target}, creating or truncating it */
+    public static void write(List<Activity> activities, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 64 * 1024)) {
+            write(activities, out);
+        }
+    }
+
+    /** Writes the activities to {@code out} and flushes it; the writer is not closed */
+    public static void write(List<Activity> activities, Writer out) throws IOException {
+        out.write(HEADER);
+        out.write("\r\n");
+        for (Activity activity : activities) {
+            writeText(out, activity.getId());
+            out.write(',');
+            writeText(out, activity.getName());
+            out.write(',');
+            writeText(out, activity.getType());
+            out.write(',');
+            writeText(out, activity.getStartDate());
+            out.write(',');
+            writeText(out, activity.getStartDateLocal());
+            out.write(',');
+            out.write(Double.toString(activity.getDistance()));
+            out.write(',');
+            out.write(Long.toString(activity.getMovingTime()));
+            out.write(',');
+            out.write(Long.toString(activity.getElapsedTime()));
+            out.write(',');
+            out.write(Double.toString(activity.getElevationGain()));
+            out.write(',');
+            out.write(Integer.toString(activity.getKudosCount()));
+            out.write(',');
+            writeText(out, activity.getSummaryPolyline());
+            out.write("\r\n");
+        }
+        out.flush();
+    }
+
+    private static void writeText(Writer out, String value) throws IOException {
+        if (value == null) return;
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package com.strava.stravacli.export;
+
+import com.strava.stravacli.model.Heatmap;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Writes a {@link Heatmap} as a text grid or a compact binary file.
+ * <p>
+ * Text: one {@code #} line with the grid's zoom, origin tile, size and geographic bounds,
+ * then one line per row (north to south) of space-separated counts.
+ * <p>
+ * Binary (little-endian): {@code "SHMP"} magic, int16 format version, int16 zoom, then int32
+ * origin x, origin y, width and height, followed by {@code width × height} int32 counts row by row.
+ */
+public final class HeatmapWriter {
+    private static final int MAGIC = 0x504D4853; // "SHMP" read little-endian
+    private static final short VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    public enum Format { TEXT, BINARY }
+
+    private HeatmapWriter() {}
+
+    /** Writes the heatmap to {@code target}, replacing any existing file atomically */
+    public static void write(Heatmap heatmap, Format format, Path target) throws IOException {
+        Path tmp = target.toAbsolutePath().resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (format == Format.BINARY) {
+                writeBinary(heatmap, channel);
+            } else {
+                Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_BYTES);
+                writeText(heatmap, out);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Writes the text grid to {@code out} and flushes it; the writer is not closed */
+    public static void writeText(Heatmap heatmap, Writer out) throws IOException {
+        int width = heatmap.width(), height = heatmap.height();
+        out.write(String.format(Locale.ROOT, "# zoom=%d origin_x=%d origin_y=%d width=%d height=%d",
+                heatmap.zoom(), heatmap.originX(), heatmap.originY(), width, height));
+        if (height > 0) {
+            // cell centres of the outer rows and columns
+            out.write(String.format(Locale.ROOT, " north=%.5f south=%.5f west=%.5f east=%.5f",
+                    heatmap.latitude(0), heatmap.latitude(height - 1),
+                    heatmap.longitude(0), heatmap.longitude(width - 1)));
+        }
+        out.write('\n');
+
+        int[] counts = heatmap.counts();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x > 0) out.write(' ');
+                out.write(Integer.toString(counts[y * width + x]));
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static void writeBinary(Heatmap heatmap, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) heatmap.zoom())
+                .putInt(heatmap.originX())
+                .putInt(heatmap.originY())
+                .putInt(heatmap.width())
+                .putInt(heatmap.height());
+        for (int count : heatmap.counts()) {
+            if (buffer.remaining() < 4) drain(buffer, channel);
+            buffer.putInt(count);
+        }
+        drain(buffer, channel);
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
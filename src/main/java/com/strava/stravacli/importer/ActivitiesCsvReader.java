@@ -0,0 +1,187 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.Activity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads {@code activities.csv} from a Strava bulk export into {@link Activity} objects, each
+ * with the name of its activity file inside the archive.
+ * <p>
+ * The export lists some columns twice: a display block in the athlete's units and a detail
+ * block in SI units. Where {@code Distance} appears twice the second (meters) is used; a
+ * single {@code Distance} column, as in older exports, is in kilometers. {@code Activity Date}
+ * is UTC, and the export has no time zone, so it is used for the local start date as well.
+ */
+public final class ActivitiesCsvReader {
+
+    /** One row: the activity and its file in the archive, null if it has none */
+    public record Row(Activity activity, String fileName) {}
+
+    private static final DateTimeFormatter EXPORT_DATE = DateTimeFormatter.ofPattern("MMM d, yyyy, h:mm:ss a", Locale.US);
+
+    private ActivitiesCsvReader() {}
+
+    /** Reads every row with a numeric activity id; the reader is not closed */
+    public static List<Row> read(Reader in) throws IOException {
+        CsvRecords records = new CsvRecords(in);
+        List<String> header = records.next();
+        if (header == null) return List.of();
+
+        Map<String, List<Integer>> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.computeIfAbsent(header.get(i).trim(), name -> new ArrayList<>()).add(i);
+        }
+        int id = first(columns, "Activity ID");
+        if (id < 0) throw new IOException("activities.csv has no Activity ID column");
+        int date = first(columns, "Activity Date");
+        int name = first(columns, "Activity Name");
+        int type = first(columns, "Activity Type");
+        int elapsed = first(columns, "Elapsed Time");
+        int moving = first(columns, "Moving Time");
+        int elevation = first(columns, "Elevation Gain");
+        int file = first(columns, "Filename");
+        List<Integer> distanceColumns = columns.getOrDefault("Distance", List.of());
+        int distance = distanceColumns.isEmpty() ? -1 : distanceColumns.get(distanceColumns.size() - 1);
+        double distanceScale = distanceColumns.size() == 1 ? 1000 : 1;
+
+        List<Row> rows = new ArrayList<>();
+        for (List<String> record = records.next(); record != null; record = records.next()) {
+            String activityId = field(record, id);
+            if (activityId == null || !activityId.matches("\\d+")) continue;
+
+            Activity activity = new Activity();
+            activity.setId(activityId);
+            activity.setName(field(record, name));
+            activity.setType(stravaType(field(record, type)));
+            String start = startDate(field(record, date));
+            activity.setStartDate(start);
+            activity.setStartDateLocal(start);
+            activity.setElapsedTime((long) number(field(record, elapsed)));
+            activity.setMovingTime((long) number(field(record, moving)));
+            activity.setDistance(number(field(record, distance)) * distanceScale);
+            activity.setElevationGain(number(field(record, elevation)));
+            rows.add(new Row(activity, field(record, file)));
+        }
+        return rows;
+    }
+
+    /** Display names ("Weight Training", "E-Bike Ride") to API type names ("WeightTraining", "EBikeRide") */
+    static String stravaType(String displayName) {
+        if (displayName == null) return null;
+        StringBuilder type = new StringBuilder(displayName.length());
+        for (int i = 0; i < displayName.length(); i++) {
+            char c = displayName.charAt(i);
+            if (c != ' ' && c != '-') type.append(c);
+        }
+        return type.toString();
+    }
+
+    /** ISO-8601 UTC start ({@code 2021-01-02T07:08:32Z}), or null if the date is missing or unreadable */
+    static String startDate(String exportDate) {
+        if (exportDate == null) return null;
+        try {
+            return LocalDateTime.parse(exportDate, EXPORT_DATE).toInstant(ZoneOffset.UTC).toString();
+        } catch (DateTimeParseException e) {
+            try {
+                return Instant.parse(exportDate).toString();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static int first(Map<String, List<Integer>> columns, String name) {
+        List<Integer> indexes = columns.get(name);
+        return indexes == null ? -1 : indexes.get(0);
+    }
+
+    private static String field(List<String> record, int index) {
+        if (index < 0 || index >= record.size()) return null;
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static double number(String value) {
+        if (value == null) return 0;
+        try {
+            return Double.parseDouble(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** RFC 4180 records: quoted fields may contain commas, doubled quotes and line breaks */
+    private static final class CsvRecords {
+        private final Reader in;
+        private final char[] buffer = new char[64 * 1024];
+        private int position, limit;
+
+        CsvRecords(Reader in) {
+            this.in = in;
+        }
+
+        /** Next record, or null at the end of the input */
+        List<String> next() throws IOException {
+            int c = read();
+            if (c < 0) return null;
+            if (c == '\uFEFF') c = read(); // byte order mark
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) break;
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.strava.stravacli.importer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the track of an activity file from a Strava bulk export, choosing the format by file
+ * name: {@code .gpx}, {@code .tcx} or {@code .fit}, each optionally gzipped ({@code .gpx.gz}).
+ */
+public final class ActivityFileParser {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private ActivityFileParser() {}
+
+    public static boolean isSupported(String fileName) {
+        String name = baseName(fileName);
+        return name.endsWith(".gpx") || name.endsWith(".tcx") || name.endsWith(".fit");
+    }
+
+    /** Parses the file's content from {@code in}; the stream is not closed */
+    public static TrackData parse(String fileName, InputStream in) throws IOException {
+        String name = baseName(fileName);
+        InputStream content = new BufferedInputStream(
+                fileName.toLowerCase(Locale.ROOT).endsWith(".gz") ? new GZIPInputStream(in, BUFFER_BYTES) : in,
+                BUFFER_BYTES);
+        if (name.endsWith(".fit")) {
+            return FitTrackParser.parse(content);
+        }
+        if (name.endsWith(".gpx") || name.endsWith(".tcx")) {
+            return XmlTrackParser.parse(content);
+        }
+        throw new IOException("Unsupported activity file: " + fileName);
+    }
+
+    private static String baseName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+}
@@ -0,0 +1,163 @@
+package com.strava.stravacli.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the {@code record} messages of a Garmin FIT file, the binary format most devices
+ * upload. Only what the streams need is interpreted: timestamp, position, altitude, distance,
+ * heart rate, cadence and power. Every other message is skipped using its definition, and
+ * compressed-timestamp headers are resolved against the last full timestamp.
+ * <p>
+ * The file is read into memory once; activity files are small next to the archive, and the
+ * format's definition messages make streaming decoding no cheaper.
+ */
+final class FitTrackParser {
+    private static final int RECORD_MESSAGE = 20;
+    private static final int TIMESTAMP_FIELD = 253;
+    /** FIT timestamps count seconds from 1989-12-31T00:00:00Z */
+    private static final long FIT_EPOCH_OFFSET = 631_065_600L;
+    private static final double SEMICIRCLES_TO_DEGREES = 180.0 / (1L << 31);
+
+    /** Layout of one local message type, from its definition message */
+    private record Definition(int globalMessage, boolean bigEndian, int[] fields, int[] sizes, int developerBytes) {}
+
+    private final byte[] data;
+    private int position;
+
+    private FitTrackParser(byte[] data) {
+        this.data = data;
+    }
+
+    static TrackData parse(InputStream in) throws IOException {
+        return new FitTrackParser(in.readAllBytes()).parse();
+    }
+
+    private TrackData parse() throws IOException {
+        if (data.length < 12 || data[8] != '.' || data[9] != 'F' || data[10] != 'I' || data[11] != 'T') {
+            throw new IOException("Not a FIT file");
+        }
+        int headerSize = data[0] & 0xFF;
+        long dataSize = readUnsigned(4, 4, false);
+        // a data size of 0 is left by devices that crashed while recording: read to the CRC
+        long end = dataSize == 0 ? data.length - 2 : Math.min(data.length, headerSize + dataSize);
+        position = headerSize;
+
+        TrackBuilder track = new TrackBuilder();
+        Definition[] definitions = new Definition[16];
+        long lastTimestamp = -1;
+        while (position < end) {
+            int header = data[position++] & 0xFF;
+            int localType;
+            long compressedTimestamp = -1;
+            if ((header & 0x80) != 0) {
+                localType = (header >> 5) & 0x03;
+                if (lastTimestamp >= 0) {
+                    int offset = header & 0x1F;
+                    compressedTimestamp = (lastTimestamp & ~0x1FL) + offset
+                            + (offset < (lastTimestamp & 0x1F) ? 0x20 : 0);
+                    lastTimestamp = compressedTimestamp;
+                }
+            } else if ((header & 0x40) != 0) {
+                definitions[header & 0x0F] = readDefinition((header & 0x20) != 0);
+                continue;
+            } else {
+                localType = header & 0x0F;
+            }
+
+            Definition definition = definitions[localType];
+            if (definition == null) throw new IOException("FIT data message without a definition");
+            if (position + messageBytes(definition) > data.length) break;
+
+            boolean record = definition.globalMessage() == RECORD_MESSAGE;
+            if (record) {
+                track.begin();
+                if (compressedTimestamp >= 0) track.time(compressedTimestamp + FIT_EPOCH_OFFSET);
+            }
+            long latitude = Long.MIN_VALUE, longitude = Long.MIN_VALUE;
+            for (int i = 0; i < definition.fields().length; i++) {
+                int field = definition.fields()[i];
+                int size = definition.sizes()[i];
+                long value = size <= 4 ? readUnsigned(position, size, definition.bigEndian()) : -1;
+                position += size;
+                if (field == TIMESTAMP_FIELD && size == 4 && value != 0xFFFF_FFFFL) {
+                    lastTimestamp = value;
+                    if (record) track.time(value + FIT_EPOCH_OFFSET);
+                }
+                if (!record || isInvalid(value, size)) continue;
+                switch (field) {
+                    case 0 -> latitude = (int) value;
+                    case 1 -> longitude = (int) value;
+                    case 2 -> { if (size == 2) track.altitude(value / 5.0 - 500); }
+                    case 78 -> { if (size == 4) track.altitude(value / 5.0 - 500); }
+                    case 3 -> track.heartrate((int) value);
+                    case 4 -> track.cadence((int) value);
+                    case 5 -> track.distance(value / 100.0);
+                    case 7 -> track.power((int) Math.min(value, 0xFFFF));
+                    default -> { }
+                }
+            }
+            position += definition.developerBytes();
+            if (record) {
+                if (latitude != Long.MIN_VALUE && longitude != Long.MIN_VALUE) {
+                    track.position(latitude * SEMICIRCLES_TO_DEGREES, longitude * SEMICIRCLES_TO_DEGREES);
+                }
+                track.end();
+            }
+        }
+        return track.build();
+    }
+
+    private Definition readDefinition(boolean developerFields) throws IOException {
+        if (position + 5 > data.length) throw new IOException("Truncated FIT definition");
+        boolean bigEndian = data[position + 1] == 1;
+        int globalMessage = (int) readUnsigned(position + 2, 2, bigEndian);
+        int count = data[position + 4] & 0xFF;
+        position += 5;
+        if (position + count * 3 > data.length) throw new IOException("Truncated FIT definition");
+
+        int[] fields = new int[count];
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            fields[i] = data[position] & 0xFF;
+            sizes[i] = data[position + 1] & 0xFF;
+            position += 3;
+        }
+        int developerBytes = 0;
+        if (developerFields) {
+            if (position >= data.length) throw new IOException("Truncated FIT definition");
+            int developerCount = data[position++] & 0xFF;
+            if (position + developerCount * 3 > data.length) throw new IOException("Truncated FIT definition");
+            for (int i = 0; i < developerCount; i++) {
+                developerBytes += data[position + 1] & 0xFF;
+                position += 3;
+            }
+        }
+        return new Definition(globalMessage, bigEndian, fields, sizes, developerBytes);
+    }
+
+    private static int messageBytes(Definition definition) {
+        int bytes = definition.developerBytes();
+        for (int size : definition.sizes()) bytes += size;
+        return bytes;
+    }
+
+    private long readUnsigned(int offset, int size, boolean bigEndian) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int b = data[offset + (bigEndian ? i : size - 1 - i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /** FIT marks absent values with the all-ones pattern (0x7F... for signed 32-bit positions) */
+    private static boolean isInvalid(long value, int size) {
+        return switch (size) {
+            case 1 -> value == 0xFF;
+            case 2 -> value == 0xFFFF;
+            case 4 -> value == 0xFFFF_FFFFL || value == 0x7FFF_FFFFL;
+            default -> true;
+        };
+    }
+}
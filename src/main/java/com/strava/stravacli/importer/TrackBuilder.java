@@ -0,0 +1,232 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects the track points of one activity file into primitive arrays and turns them into
+ * {@link ActivityStreams}. A point is opened with {@link #begin()}, filled with whatever the
+ * file records for it and committed by {@link #end()}; points without a timestamp are dropped.
+ * <p>
+ * Gaps are filled the way the stored streams expect them: missing altitude and distance carry
+ * the previous value, missing heart rate, power and cadence become 0. When the file records
+ * positions but no distance, distance is accumulated along the track.
+ */
+final class TrackBuilder {
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private int size;
+    private long startEpochSecond = Long.MIN_VALUE;
+    private long[] times = new long[1024];
+    private int[] latitudes = new int[1024];
+    private int[] longitudes = new int[1024];
+    private float[] distances = new float[1024];
+    private float[] altitudes = new float[1024];
+    private short[] heartrates = new short[1024];
+    private short[] watts = new short[1024];
+    private short[] cadences = new short[1024];
+    private boolean hasPosition, hasDistance, hasAltitude, hasHeartrate, hasWatts, hasCadence;
+
+    // the point being filled
+    private long time;
+    private boolean positioned;
+    private double latitude, longitude;
+    private float distance, altitude;
+    private int heartrate, power, cadence;
+
+    void begin() {
+        time = Long.MIN_VALUE;
+        positioned = false;
+        distance = Float.NaN;
+        altitude = Float.NaN;
+        heartrate = power = cadence = 0;
+    }
+
+    void time(long epochSecond) { time = epochSecond; }
+
+    void position(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        positioned = true;
+    }
+
+    void distance(double meters) { distance = (float) meters; }
+    void altitude(double meters) { altitude = (float) meters; }
+    void heartrate(int bpm) { heartrate = bpm; }
+    void power(int watts) { power = watts; }
+    void cadence(int rpm) { cadence = rpm; }
+
+    void end() {
+        if (time == Long.MIN_VALUE) return;
+        if (size == times.length) grow();
+        if (startEpochSecond == Long.MIN_VALUE) startEpochSecond = time;
+
+        times[size] = time;
+        latitudes[size] = positioned ? ActivityStreams.encodeDegrees(latitude) : Integer.MIN_VALUE;
+        longitudes[size] = positioned ? ActivityStreams.encodeDegrees(longitude) : 0;
+        distances[size] = distance;
+        altitudes[size] = altitude;
+        heartrates[size] = (short) heartrate;
+        watts[size] = (short) power;
+        cadences[size] = (short) cadence;
+
+        hasPosition |= positioned;
+        hasDistance |= !Float.isNaN(distance);
+        hasAltitude |= !Float.isNaN(altitude);
+        hasHeartrate |= heartrate > 0;
+        hasWatts |= power > 0;
+        hasCadence |= cadence > 0;
+        size++;
+    }
+
+    TrackData build() {
+        if (size == 0) return new TrackData(Long.MIN_VALUE, ActivityStreams.empty());
+
+        Map<Channel, ByteBuffer> channels = new EnumMap<>(Channel.class);
+        ByteBuffer time = buffer(Channel.TIME);
+        for (int i = 0; i < size; i++) {
+            time.putInt((int) (times[i] - startEpochSecond));
+        }
+        channels.put(Channel.TIME, time.flip());
+
+        if (hasPosition) {
+            ByteBuffer latlng = buffer(Channel.LATLNG);
+            for (int i = 0; i < size; i++) {
+                boolean missing = latitudes[i] == Integer.MIN_VALUE;
+                latlng.putInt(missing ? 0 : latitudes[i]).putInt(missing ? 0 : longitudes[i]);
+            }
+            channels.put(Channel.LATLNG, latlng.flip());
+        }
+        if (hasDistance || hasPosition) {
+            if (!hasDistance) accumulateDistance();
+            channels.put(Channel.DISTANCE, floats(Channel.DISTANCE, fillGaps(distances, 0f)));
+        }
+        if (hasAltitude) {
+            channels.put(Channel.ALTITUDE, floats(Channel.ALTITUDE, fillGaps(altitudes, Float.NaN)));
+        }
+        if (hasHeartrate) channels.put(Channel.HEARTRATE, shorts(Channel.HEARTRATE, heartrates));
+        if (hasWatts) channels.put(Channel.WATTS, shorts(Channel.WATTS, watts));
+        if (hasCadence) channels.put(Channel.CADENCE, shorts(Channel.CADENCE, cadences));
+        return new TrackData(startEpochSecond, ActivityStreams.of(size, channels));
+    }
+
+    /**
+     * Parses an ISO-8601 timestamp as written by GPX and TCX files. The common
+     * {@code yyyy-MM-ddTHH:mm:ss[.fff]Z} form is decoded by hand, since a long file has tens of
+     * thousands of them; anything else (offsets, no seconds) goes through {@link OffsetDateTime}.
+     *
+     * @return epoch second, or {@link Long#MIN_VALUE} if the text is not a timestamp
+     */
+    static long parseEpochSecond(String text) {
+        String value = text.trim();
+        if (value.length() >= 20 && value.charAt(value.length() - 1) == 'Z' && value.charAt(4) == '-'
+                && value.charAt(7) == '-' && value.charAt(10) == 'T' && value.charAt(13) == ':'
+                && value.charAt(16) == ':' && (value.length() == 20 || value.charAt(19) == '.')) {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 2);
+            int day = digits(value, 8, 2);
+            int hour = digits(value, 11, 2);
+            int minute = digits(value, 14, 2);
+            int second = digits(value, 17, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+                return epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second;
+            }
+        }
+        try {
+            return OffsetDateTime.parse(value).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Days since 1970-01-01 in the proleptic Gregorian calendar */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private void accumulateDistance() {
+        double total = 0;
+        int previous = -1;
+        for (int i = 0; i < size; i++) {
+            if (latitudes[i] != Integer.MIN_VALUE) {
+                if (previous >= 0) total += haversine(previous, i);
+                previous = i;
+            }
+            distances[i] = (float) total;
+        }
+    }
+
+    private double haversine(int from, int to) {
+        double lat1 = Math.toRadians(latitudes[from] / 1e7), lat2 = Math.toRadians(latitudes[to] / 1e7);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians((longitudes[to] - longitudes[from]) / 1e7);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /** Carries the last known value over missing (NaN) samples; leading gaps take the first known value */
+    private float[] fillGaps(float[] values, float leading) {
+        float last = leading;
+        if (Float.isNaN(last)) {
+            for (int i = 0; i < size && Float.isNaN(last); i++) last = values[i];
+        }
+        for (int i = 0; i < size; i++) {
+            if (Float.isNaN(values[i])) values[i] = last;
+            else last = values[i];
+        }
+        return values;
+    }
+
+    private ByteBuffer floats(Channel channel, float[] values) {
+        ByteBuffer buffer = buffer(channel);
+        for (int i = 0; i < size; i++) buffer.putFloat(values[i]);
+        return buffer.flip();
+    }
+
+    private ByteBuffer shorts(Channel channel, short[] values) {
+        ByteBuffer buffer = buffer(channel);
+        for (int i = 0; i < size; i++) buffer.putShort(values[i]);
+        return buffer.flip();
+    }
+
+    private ByteBuffer buffer(Channel channel) {
+        return ByteBuffer.allocate(size * channel.bytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        altitudes = Arrays.copyOf(altitudes, capacity);
+        heartrates = Arrays.copyOf(heartrates, capacity);
+        watts = Arrays.copyOf(watts, capacity);
+        cadences = Arrays.copyOf(cadences, capacity);
+    }
+}
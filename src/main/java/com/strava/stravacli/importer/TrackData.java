@@ -0,0 +1,63 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+
+/**
+ * Track recorded in one activity file: the absolute start time and the samples as streams.
+ * The summary values are derived from the samples and only stand in for what
+ * {@code activities.csv} does not provide; Strava computes its own figures with smoothing
+ * that is not reproduced here.
+ *
+ * @param startEpochSecond UTC start of the first sample, {@link Long#MIN_VALUE} if the file has none
+ */
+public record TrackData(long startEpochSecond, ActivityStreams streams) {
+    /** Longer pauses between samples do not count as moving time */
+    private static final int MAX_MOVING_GAP_SECONDS = 30;
+    /** Slower than this (m/s) counts as standing still */
+    private static final double MIN_MOVING_SPEED = 0.5;
+    /** Altitude has to rise this far (m) above the last low point before it counts as a climb */
+    private static final double CLIMB_THRESHOLD_METERS = 2.0;
+
+    public boolean isEmpty() {
+        return streams.isEmpty();
+    }
+
+    public double distanceMeters() {
+        return streams.has(Channel.DISTANCE) && !isEmpty() ? streams.distance(streams.size() - 1) : 0;
+    }
+
+    public long elapsedSeconds() {
+        return isEmpty() ? 0 : streams.time(streams.size() - 1);
+    }
+
+    /** Time between consecutive samples, skipping long pauses and, when distance is recorded, standing still */
+    public long movingSeconds() {
+        boolean hasDistance = streams.has(Channel.DISTANCE);
+        long moving = 0;
+        for (int i = 1; i < streams.size(); i++) {
+            int dt = streams.time(i) - streams.time(i - 1);
+            if (dt <= 0 || dt > MAX_MOVING_GAP_SECONDS) continue;
+            if (hasDistance && (streams.distance(i) - streams.distance(i - 1)) / dt < MIN_MOVING_SPEED) continue;
+            moving += dt;
+        }
+        return moving;
+    }
+
+    /** Sum of climbs, ignoring altitude noise below {@value #CLIMB_THRESHOLD_METERS} m */
+    public double elevationGainMeters() {
+        if (!streams.has(Channel.ALTITUDE) || isEmpty()) return 0;
+        double gain = 0;
+        double low = streams.altitude(0);
+        for (int i = 1; i < streams.size(); i++) {
+            double altitude = streams.altitude(i);
+            if (altitude < low) {
+                low = altitude;
+            } else if (altitude - low >= CLIMB_THRESHOLD_METERS) {
+                gain += altitude - low;
+                low = altitude;
+            }
+        }
+        return gain;
+    }
+}
@@ -0,0 +1,141 @@
+package com.strava.stravacli.importer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Streams the track points out of a GPX or TCX file with StAX, so a file is never held as a
+ * document tree. Elements are matched by local name, which covers both formats and the
+ * usual extension namespaces (Garmin {@code TrackPointExtension}, {@code TPX}):
+ * <ul>
+ *   <li>GPX: {@code <trkpt lat lon>} with {@code ele}, {@code time}, {@code hr}, {@code cad}, {@code power}</li>
+ *   <li>TCX: {@code <Trackpoint>} with {@code Time}, {@code LatitudeDegrees}/{@code LongitudeDegrees},
+ *       {@code AltitudeMeters}, {@code DistanceMeters}, {@code HeartRateBpm/Value}, {@code Cadence},
+ *       {@code Watts}</li>
+ * </ul>
+ */
+final class XmlTrackParser {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        // activity files come from outside: no DTDs, no external entities
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private XmlTrackParser() {}
+
+    static TrackData parse(InputStream in) throws IOException {
+        TrackBuilder track = new TrackBuilder();
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(skipLeadingWhitespace(in));
+            boolean inPoint = false;
+            boolean inHeartRate = false;
+            double latitude = Double.NaN;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (name.equals("trkpt") || name.equals("Trackpoint")) {
+                        track.end();
+                        inPoint = false;
+                    } else if (name.equals("HeartRateBpm")) {
+                        inHeartRate = false;
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) continue;
+
+                String name = reader.getLocalName();
+                if (name.equals("trkpt")) {
+                    track.begin();
+                    inPoint = true;
+                    Double lat = number(reader.getAttributeValue(null, "lat"));
+                    Double lon = number(reader.getAttributeValue(null, "lon"));
+                    if (lat != null && lon != null) track.position(lat, lon);
+                    continue;
+                }
+                if (name.equals("Trackpoint")) {
+                    track.begin();
+                    inPoint = true;
+                    latitude = Double.NaN;
+                    continue;
+                }
+                if (!inPoint) continue;
+
+                switch (name) {
+                    case "time", "Time" -> {
+                        long time = TrackBuilder.parseEpochSecond(reader.getElementText());
+                        if (time != Long.MIN_VALUE) track.time(time);
+                    }
+                    case "ele", "AltitudeMeters" -> {
+                        Double value = number(reader.getElementText());
+                        if (value != null) track.altitude(value);
+                    }
+                    case "DistanceMeters" -> {
+                        Double value = number(reader.getElementText());
+                        if (value != null) track.distance(value);
+                    }
+                    case "LatitudeDegrees" -> {
+                        Double value = number(reader.getElementText());
+                        latitude = value == null ? Double.NaN : value;
+                    }
+                    case "LongitudeDegrees" -> {
+                        Double value = number(reader.getElementText());
+                        if (value != null && !Double.isNaN(latitude)) track.position(latitude, value);
+                    }
+                    case "HeartRateBpm" -> inHeartRate = true;
+                    case "hr" -> track.heartrate(integer(reader.getElementText()));
+                    case "Value" -> {
+                        if (inHeartRate) track.heartrate(integer(reader.getElementText()));
+                    }
+                    case "cad", "Cadence", "RunCadence" -> track.cadence(integer(reader.getElementText()));
+                    case "power", "Watts" -> track.power(integer(reader.getElementText()));
+                    default -> { }
+                }
+            }
+            return track.build();
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed activity file: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // closing the reader never closes the stream; nothing left to release
+                }
+            }
+        }
+    }
+
+    /** Strava writes some TCX files with blank space before the XML declaration, which StAX rejects */
+    private static InputStream skipLeadingWhitespace(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 1);
+        int b;
+        do {
+            b = pushback.read();
+        } while (b == ' ' || b == '\t' || b == '\r' || b == '\n');
+        if (b >= 0) pushback.unread(b);
+        return pushback;
+    }
+
+    private static Double number(String text) {
+        if (text == null) return null;
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int integer(String text) {
+        Double value = number(text);
+        return value == null || value < 0 ? 0 : (int) Math.min(Math.round(value), 0xFFFF);
+    }
+}
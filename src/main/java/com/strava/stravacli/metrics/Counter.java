@@ -0,0 +1,20 @@
+package com.strava.stravacli.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonically increasing count, cheap to update from many threads */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,14 @@
+package com.strava.stravacli.metrics;
+
+/** Last value set, e.g. the throughput of the most recent run */
+public final class Gauge {
+    private volatile double value;
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    public double value() {
+        return value;
+    }
+}
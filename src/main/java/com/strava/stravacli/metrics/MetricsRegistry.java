@@ -0,0 +1,146 @@
+package com.strava.stravacli.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-process registry of counters, timers and gauges, identified by a name and
+ * {@code key, value} tag pairs (Prometheus naming: {@code snake_case}, counters end in
+ * {@code _total}, timers in {@code _seconds}).
+ * <p>
+ * Looking a meter up costs a map access; callers on hot paths keep the meter in a field.
+ * The registry can be printed as a human-readable summary or written in the Prometheus
+ * text exposition format.
+ */
+@Component
+public class MetricsRegistry {
+
+    private record MeterId(String name, List<String> tags) {
+        MeterId {
+            if (tags.size() % 2 != 0) {
+                throw new IllegalArgumentException("Tags must be key/value pairs: " + tags);
+            }
+        }
+
+        String labels() {
+            if (tags.isEmpty()) return "";
+            StringBuilder labels = new StringBuilder("{");
+            for (int i = 0; i < tags.size(); i += 2) {
+                if (i > 0) labels.append(',');
+                labels.append(tags.get(i)).append("=\"").append(escape(tags.get(i + 1))).append('"');
+            }
+            return labels.append('}').toString();
+        }
+    }
+
+    private static final Comparator<MeterId> ORDER = Comparator.comparing(MeterId::name)
+            .thenComparing(id -> String.join(",", id.tags()));
+
+    private final ConcurrentMap<MeterId, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterId, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterId, Gauge> gauges = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(new MeterId(name, List.of(tags)), id -> new Counter());
+    }
+
+    public Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(new MeterId(name, List.of(tags)), id -> new Timer());
+    }
+
+    public Gauge gauge(String name, String... tags) {
+        return gauges.computeIfAbsent(new MeterId(name, List.of(tags)), id -> new Gauge());
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty() && timers.isEmpty() && gauges.isEmpty();
+    }
+
+    /** Every meter on one line, sorted by name */
+    public String summary() {
+        StringBuilder text = new StringBuilder("""
+                📈 Metrics
+                ------------------------
+                """);
+        sorted(timers).forEach((id, timer) -> text.append("%-70s count=%d mean=%.1f ms max=%.1f ms total=%.3f s%n"
+                .formatted(id.name() + id.labels(), timer.count(), timer.meanSeconds() * 1000,
+                        timer.maxSeconds() * 1000, timer.totalSeconds())));
+        sorted(counters).forEach((id, counter) ->
+                text.append("%-70s %d%n".formatted(id.name() + id.labels(), counter.count())));
+        sorted(gauges).forEach((id, gauge) ->
+                text.append("%-70s %.2f%n".formatted(id.name() + id.labels(), gauge.value())));
+        return text.toString();
+    }
+
+    /**
+     * Writes every meter in the Prometheus text format. Timers become a summary
+     * ({@code _count}, {@code _sum}) plus a {@code _max} gauge.
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, Map<MeterId, Counter>> family : byName(counters).entrySet()) {
+            out.write("# TYPE " + family.getKey() + " counter\n");
+            for (Map.Entry<MeterId, Counter> meter : family.getValue().entrySet()) {
+                out.write(family.getKey() + meter.getKey().labels() + " " + meter.getValue().count() + "\n");
+            }
+        }
+        for (Map.Entry<String, Map<MeterId, Gauge>> family : byName(gauges).entrySet()) {
+            out.write("# TYPE " + family.getKey() + " gauge\n");
+            for (Map.Entry<MeterId, Gauge> meter : family.getValue().entrySet()) {
+                out.write(family.getKey() + meter.getKey().labels() + " " + meter.getValue().value() + "\n");
+            }
+        }
+        for (Map.Entry<String, Map<MeterId, Timer>> family : byName(timers).entrySet()) {
+            String name = family.getKey();
+            out.write("# TYPE " + name + " summary\n");
+            for (Map.Entry<MeterId, Timer> meter : family.getValue().entrySet()) {
+                String labels = meter.getKey().labels();
+                out.write(name + "_count" + labels + " " + meter.getValue().count() + "\n");
+                out.write(name + "_sum" + labels + " " + meter.getValue().totalSeconds() + "\n");
+            }
+            out.write("# TYPE " + name + "_max gauge\n");
+            for (Map.Entry<MeterId, Timer> meter : family.getValue().entrySet()) {
+                out.write(name + "_max" + meter.getKey().labels() + " " + meter.getValue().maxSeconds() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the Prometheus text format to {@code target}, replacing it atomically so a
+     * collector (e.g. node_exporter's textfile collector) never reads a partial file.
+     */
+    public void writePrometheus(Path target) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            writePrometheus(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static <M> Map<MeterId, M> sorted(Map<MeterId, M> meters) {
+        Map<MeterId, M> sorted = new TreeMap<>(ORDER);
+        sorted.putAll(meters);
+        return sorted;
+    }
+
+    private static <M> Map<String, Map<MeterId, M>> byName(Map<MeterId, M> meters) {
+        return sorted(meters).entrySet().stream().collect(Collectors.groupingBy(entry -> entry.getKey().name(),
+                TreeMap::new, Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                        (a, b) -> a, () -> new TreeMap<>(ORDER))));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
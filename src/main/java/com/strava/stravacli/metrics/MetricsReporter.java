@@ -0,0 +1,50 @@
+package com.strava.stravacli.metrics;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reports the collected metrics when the application shuts down, in the interactive
+ * menu as well as in command mode:
+ * <ul>
+ *   <li>{@code --metrics} prints a summary to stderr (stdout may carry command output)</li>
+ *   <li>{@code --metrics-file <file>} writes them in the Prometheus text format</li>
+ * </ul>
+ * Created eagerly even under lazy initialization, so the shutdown hook is always registered.
+ */
+@Component
+@Lazy(false)
+public class MetricsReporter {
+    private final MetricsRegistry registry;
+    private final boolean printSummary;
+    private final String prometheusFile;
+
+    public MetricsReporter(MetricsRegistry registry, ApplicationArguments arguments) {
+        List<String> args = List.of(arguments.getSourceArgs());
+        int fileIndex = args.indexOf("--metrics-file");
+        this.registry = registry;
+        this.printSummary = args.contains("--metrics");
+        this.prometheusFile = fileIndex >= 0 && fileIndex + 1 < args.size() ? args.get(fileIndex + 1) : null;
+    }
+
+    @PreDestroy
+    public void report() {
+        if (printSummary) {
+            System.err.println(registry.summary());
+        }
+        if (prometheusFile != null) {
+            try {
+                registry.writePrometheus(Path.of(prometheusFile));
+                System.err.println("Metrics written to " + Path.of(prometheusFile).toAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not write metrics: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.strava.stravacli.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Count, total and maximum of recorded durations. Recording is two adds and a max
+ * on striped cells, so timers can sit on hot paths shared by many threads.
+ */
+public final class Timer {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /** Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /** Runs {@code work} and records how long it took */
+    public <T> T record(Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordSince(started);
+        }
+    }
+
+    public long count() { return count.sum(); }
+    public double totalSeconds() { return totalNanos.sum() / NANOS_PER_SECOND; }
+    public double maxSeconds() { return maxNanos.get() / NANOS_PER_SECOND; }
+
+    public double meanSeconds() {
+        long n = count();
+        return n == 0 ? 0 : totalSeconds() / n;
+    }
+}
@@ -1,10 +1,26 @@
 package com.strava.stravacli.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-
-@JsonIgnoreProperties(ignoreUnknown = true)
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.strava.stravacli.util.StravaDates;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * One activity as the API returns it. Read by {@link ActivityDeserializer}, so a resident
+ * history stays small: the type is an {@link ActivityType} constant, recurring names are
+ * shared, and the local start is a primitive parsed once.
+ */
+@JsonDeserialize(using = ActivityDeserializer.class)
 public class Activity {
+    /** {@link #getStartLocalEpochSecond()} of an activity without a readable local start */
+    public static final long NO_START = Long.MIN_VALUE;
+
     private String id;
     private String name;
     private double distance;
@@ -18,19 +34,29 @@ public class Activity {
     @JsonProperty("total_elevation_gain")
     private double elevationGain; // in meters
 
-    private String type;
+    private ActivityType type; // null if the activity has none
+    private String otherType;  // the original value when type is OTHER
 
     @JsonProperty("kudos_count")
     private int kudosCount;
 
-    @JsonProperty("start_date_local")
-    private String startDateLocal;
+    @JsonProperty("start_date")
+    private String startDate; // UTC, ISO-8601
+
+    private long startLocalEpochSecond = NO_START; // local date-time read as UTC
+    private String startDateLocalText; // only when not in Strava's own format, to write it back unchanged
+
+    @JsonIgnore
+    private String summaryPolyline; // encoded polyline of the route, empty or null without GPS
+
+    /** The API's {@code map} object, of which only the summary polyline is kept */
+    record RouteMap(@JsonProperty("summary_polyline") String summaryPolyline) {}
 
     @Override
     public String toString() {
         return String.format("%s (%s): %.2f km, %d min, ↑ %.1f m",
                 name,
-                type,
+                getType(),
                 distance / 1000.0,
                 movingTime / 60,
                 elevationGain);
@@ -85,11 +111,18 @@ public class Activity {
     }
 
     public String getType() {
-        return type;
+        return type == ActivityType.OTHER ? otherType : type == null ? null : type.stravaName();
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.type = type == null ? null : ActivityType.fromStrava(type);
+        this.otherType = this.type == ActivityType.OTHER ? type : null;
+    }
+
+    /** The type as a constant, {@link ActivityType#OTHER} if unknown or missing */
+    @JsonIgnore
+    public ActivityType getActivityType() {
+        return type == null ? ActivityType.OTHER : type;
     }
 
     public int getKudosCount() {
@@ -100,11 +133,80 @@ public class Activity {
         this.kudosCount = kudosCount;
     }
 
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+
+    @JsonProperty("start_date_local")
     public String getStartDateLocal() {
-        return startDateLocal;
+        if (startDateLocalText != null) return startDateLocalText;
+        return startLocalEpochSecond == NO_START ? null : StravaDates.format(startLocalEpochSecond);
     }
 
     public void setStartDateLocal(String startDateLocal) {
-        this.startDateLocal = startDateLocal;
+        this.startDateLocalText = null;
+        this.startLocalEpochSecond = NO_START;
+        if (startDateLocal == null) return;
+
+        long epochSecond = StravaDates.epochSecond(startDateLocal);
+        if (epochSecond != StravaDates.INVALID) {
+            this.startLocalEpochSecond = epochSecond;
+            return;
+        }
+        this.startDateLocalText = startDateLocal;
+        try {
+            this.startLocalEpochSecond = LocalDateTime.parse(startDateLocal, DateTimeFormatter.ISO_DATE_TIME)
+                    .toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            this.startLocalEpochSecond = NO_START;
+        }
+    }
+
+    /** Local start as seconds since 1970-01-01T00:00 local time, {@link #NO_START} if missing or unreadable */
+    @JsonIgnore
+    public long getStartLocalEpochSecond() {
+        return startLocalEpochSecond;
+    }
+
+    public void setStartLocalEpochSecond(long startLocalEpochSecond) {
+        this.startLocalEpochSecond = startLocalEpochSecond;
+        this.startDateLocalText = null;
+    }
+
+    /**
+     * Local start date-time.
+     *
+     * @throws DateTimeParseException if the activity has no readable {@code start_date_local}
+     */
+    @JsonIgnore
+    public LocalDateTime getStartDateTimeLocal() {
+        if (startLocalEpochSecond == NO_START) {
+            throw new DateTimeParseException("Unreadable start_date_local of activity " + id,
+                    String.valueOf(startDateLocalText), 0);
+        }
+        return LocalDateTime.ofEpochSecond(startLocalEpochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /** Local start date, see {@link #getStartDateTimeLocal()} */
+    @JsonIgnore
+    public LocalDate getStartLocalDate() {
+        return getStartDateTimeLocal().toLocalDate();
+    }
+
+    public String getSummaryPolyline() {
+        return summaryPolyline;
+    }
+
+    public void setSummaryPolyline(String summaryPolyline) {
+        this.summaryPolyline = summaryPolyline;
+    }
+
+    @JsonProperty("map")
+    RouteMap getMap() {
+        return summaryPolyline == null ? null : new RouteMap(summaryPolyline);
     }
 }
@@ -0,0 +1,112 @@
+package com.strava.stravacli.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.strava.stravacli.util.StringInterner;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Reads an {@link Activity} straight off the token stream, with no bean introspection and no
+ * intermediate tree. Names and types go through one process-wide {@link StringInterner}, looked
+ * up from the parser's character buffer, so the thousandth "Morning Ride" allocates nothing;
+ * {@code start_date_local} is parsed once into epoch seconds. Unknown fields are skipped.
+ */
+class ActivityDeserializer extends StdDeserializer<Activity> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Distinct names and types kept; a long history has a few hundred of either */
+    private static final int INTERNED_VALUES = 4096;
+    /** Longer names are rarely repeated: a custom title, not the default "Evening Run" */
+    private static final int INTERNED_LENGTH = 48;
+
+    private static final StringInterner NAMES = new StringInterner(INTERNED_VALUES, INTERNED_LENGTH);
+
+    ActivityDeserializer() {
+        super(Activity.class);
+    }
+
+    @Override
+    public Activity deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (Activity) context.handleUnexpectedToken(Activity.class, parser);
+        }
+
+        Activity activity = new Activity();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> activity.setId(text(parser));
+                case "name" -> activity.setName(interned(parser));
+                case "distance" -> activity.setDistance(decimal(parser));
+                case "moving_time" -> activity.setMovingTime(integer(parser));
+                case "elapsed_time" -> activity.setElapsedTime(integer(parser));
+                case "total_elevation_gain" -> activity.setElevationGain(decimal(parser));
+                case "type" -> activity.setType(interned(parser));
+                case "kudos_count" -> activity.setKudosCount((int) integer(parser));
+                case "start_date" -> activity.setStartDate(text(parser));
+                case "start_date_local" -> activity.setStartDateLocal(text(parser));
+                case "map" -> activity.setSummaryPolyline(summaryPolyline(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return activity;
+    }
+
+    /** The {@code summary_polyline} of a {@code map} object */
+    private static String summaryPolyline(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String polyline = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("summary_polyline")) {
+                polyline = text(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return polyline;
+    }
+
+    /** A scalar as text (numbers as written), null for null or a structure */
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static String interned(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) return NAMES.intern(text(parser));
+        return NAMES.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static double decimal(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return 0;
+        }
+        return parser.getValueAsDouble();
+    }
+
+    private static long integer(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return 0;
+        }
+        return parser.getValueAsLong();
+    }
+}
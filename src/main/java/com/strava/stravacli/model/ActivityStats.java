@@ -16,8 +16,22 @@ public record ActivityStats(
         double bestWeekDistanceKm,
         int longestStreakDays,
         double elevationPerKm,
-        Duration averagePacePerKm
+        Duration averagePacePerKm,
+        Percentiles distancePercentilesKm,
+        Percentiles pacePercentilesSecondsPerKm,
+        Percentiles movingTimePercentilesMinutes,
+        Percentiles elevationPercentilesMeters,
+        BestEffortRollup bestEfforts
 ) {
+    /** Copy of these statistics with the given best efforts */
+    public ActivityStats withBestEfforts(BestEffortRollup bestEfforts) {
+        return new ActivityStats(totalActivities, totalDistanceKm, averageDistanceKm, longestDistanceKm,
+                totalMovingTime, averageSpeedKmh, totalElevationGain, mostFrequentActivityType, medianDistanceKm,
+                bestWeekNumber, bestWeekDistanceKm, longestStreakDays, elevationPerKm, averagePacePerKm,
+                distancePercentilesKm, pacePercentilesSecondsPerKm, movingTimePercentilesMinutes,
+                elevationPercentilesMeters, bestEfforts);
+    }
+
     @Override
     public String toString() {
         return """
@@ -32,6 +46,13 @@ public record ActivityStats(
                Longest Streak        : %d days
                Best Week Number      : %d
                Best Week Distance    : %.2f km
+               Median Distance       : %.2f km
+
+               Percentiles (p10 / p50 / p90 / p99)
+               Distance              : %s km
+               Pace                  : %s s/km
+               Moving Time           : %s min
+               Elevation Gain        : %s m
                """.formatted(
                 totalActivities,
                 totalDistanceKm,
@@ -41,7 +62,12 @@ public record ActivityStats(
                 averageSpeedKmh,
                 longestStreakDays,
                 bestWeekNumber,
-                bestWeekDistanceKm
-        );
+                bestWeekDistanceKm,
+                medianDistanceKm,
+                distancePercentilesKm.format("%.2f"),
+                pacePercentilesSecondsPerKm.format("%.0f"),
+                movingTimePercentilesMinutes.format("%.0f"),
+                elevationPercentilesMeters.format("%.0f")
+        ) + (bestEfforts.isEmpty() ? "" : "\n" + bestEfforts);
     }
 }
\ No newline at end of file
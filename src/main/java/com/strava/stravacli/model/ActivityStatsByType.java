@@ -0,0 +1,31 @@
+package com.strava.stravacli.model;
+
+import java.util.Map;
+
+/** Statistics for the whole history plus one full {@link ActivityStats} per activity type */
+public record ActivityStatsByType(
+        ActivityStats overall,
+        Map<ActivityType, ActivityStats> byType
+) {
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder("""
+               🏷️ By Activity Type
+               ------------------------
+               Type              Count   Distance km   Avg km/h   Median pace/km
+               """);
+        byType.forEach((type, stats) -> table.append("%-16s %6d %13.2f %10.2f %14s%n".formatted(
+                type,
+                stats.totalActivities(),
+                stats.totalDistanceKm(),
+                stats.averageSpeedKmh(),
+                pace(stats.pacePercentilesSecondsPerKm().p50()))));
+        return overall + "\n" + table;
+    }
+
+    private static String pace(double secondsPerKm) {
+        if (secondsPerKm <= 0) return "-";
+        long seconds = Math.round(secondsPerKm);
+        return "%d:%02d".formatted(seconds / 60, seconds % 60);
+    }
+}
@@ -0,0 +1,114 @@
+package com.strava.stravacli.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-sample data of one activity (Strava streams), held as primitive little-endian buffers.
+ * <p>
+ * Every channel has {@link #size()} samples. The buffers are either heap buffers filled by the
+ * parser or slices of a memory-mapped file, so reading a stored activity copies nothing;
+ * accessors decode single samples on demand. Coordinates are stored as integer 1e-7 degrees
+ * (about 1 cm resolution), distance and altitude as 32-bit floats, heart rate, power and
+ * cadence as unsigned 16-bit values.
+ */
+public final class ActivityStreams {
+
+    public enum Channel {
+        TIME("time", 4),
+        LATLNG("latlng", 8),
+        DISTANCE("distance", 4),
+        ALTITUDE("altitude", 4),
+        HEARTRATE("heartrate", 2),
+        WATTS("watts", 2),
+        CADENCE("cadence", 2);
+
+        private final String key;
+        private final int bytesPerSample;
+
+        Channel(String key, int bytesPerSample) {
+            this.key = key;
+            this.bytesPerSample = bytesPerSample;
+        }
+
+        /** Stream type as named by the Strava API */
+        public String key() { return key; }
+        public int bytesPerSample() { return bytesPerSample; }
+
+        public static Channel fromKey(String key) {
+            for (Channel channel : values()) {
+                if (channel.key.equals(key)) return channel;
+            }
+            return null;
+        }
+    }
+
+    private static final double DEGREE_SCALE = 1e7;
+
+    private final int size;
+    private final Map<Channel, ByteBuffer> channels;
+
+    private ActivityStreams(int size, Map<Channel, ByteBuffer> channels) {
+        this.size = size;
+        this.channels = Collections.unmodifiableMap(channels);
+    }
+
+    /**
+     * Wraps channel buffers holding {@code size} samples each, in the layout described above.
+     * The buffers are used as they are, not copied.
+     */
+    public static ActivityStreams of(int size, Map<Channel, ByteBuffer> channels) {
+        Map<Channel, ByteBuffer> ordered = new EnumMap<>(Channel.class);
+        channels.forEach((channel, buffer) -> {
+            if (buffer.remaining() < size * channel.bytesPerSample()) {
+                throw new IllegalArgumentException(channel + " holds fewer than " + size + " samples");
+            }
+            ordered.put(channel, buffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+        });
+        return new ActivityStreams(size, ordered);
+    }
+
+    public static ActivityStreams empty() {
+        return new ActivityStreams(0, Map.of());
+    }
+
+    /** Number of samples per channel */
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public boolean has(Channel channel) { return channels.containsKey(channel); }
+    public Map<Channel, ByteBuffer> channels() { return channels; }
+
+    /** Read-only view of a channel's raw little-endian samples */
+    public ByteBuffer buffer(Channel channel) {
+        ByteBuffer buffer = channels.get(channel);
+        return buffer == null ? null : buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Seconds since the start of the activity */
+    public int time(int sample) { return channel(Channel.TIME).getInt(sample * 4); }
+    public double latitude(int sample) { return channel(Channel.LATLNG).getInt(sample * 8) / DEGREE_SCALE; }
+    public double longitude(int sample) { return channel(Channel.LATLNG).getInt(sample * 8 + 4) / DEGREE_SCALE; }
+    /** Meters since the start of the activity */
+    public float distance(int sample) { return channel(Channel.DISTANCE).getFloat(sample * 4); }
+    /** Meters above sea level */
+    public float altitude(int sample) { return channel(Channel.ALTITUDE).getFloat(sample * 4); }
+    public int heartrate(int sample) { return channel(Channel.HEARTRATE).getShort(sample * 2) & 0xFFFF; }
+    public int watts(int sample) { return channel(Channel.WATTS).getShort(sample * 2) & 0xFFFF; }
+    public int cadence(int sample) { return channel(Channel.CADENCE).getShort(sample * 2) & 0xFFFF; }
+
+    /** Encodes a coordinate in the stored 1e-7 degree format */
+    public static int encodeDegrees(double degrees) {
+        return (int) Math.round(degrees * DEGREE_SCALE);
+    }
+
+    private ByteBuffer channel(Channel channel) {
+        ByteBuffer buffer = channels.get(channel);
+        if (buffer == null) {
+            throw new IllegalStateException("No " + channel.key() + " stream");
+        }
+        return buffer;
+    }
+}
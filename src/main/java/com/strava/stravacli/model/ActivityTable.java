@@ -0,0 +1,139 @@
+package com.strava.stravacli.model;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, primitive-typed view of an activity history for analytics.
+ * Each metric lives in its own array, dates are stored as epoch days and the
+ * activity type as its one-byte {@link ActivityType} ordinal; the original text of
+ * {@link ActivityType#OTHER} types is kept aside for the few rows that have one.
+ * Instances are immutable; build them with {@link #from(List)} or a {@link Builder}.
+ */
+public final class ActivityTable {
+    private static final ActivityType[] TYPES = ActivityType.values();
+    private static final int OTHER = ActivityType.OTHER.ordinal();
+
+    private final int size;
+    private final double[] distance;      // meters
+    private final long[] movingTime;      // seconds
+    private final long[] elapsedTime;     // seconds
+    private final double[] elevationGain; // meters
+    private final int[] epochDay;         // local start date
+    private final byte[] isoWeek;         // ISO week-of-week-based-year of the local start date
+    private final byte[] type;            // ActivityType ordinal
+    private final Map<Integer, String> otherTypes; // row -> original type, for OTHER rows only
+
+    private ActivityTable(Builder builder) {
+        this.size = builder.size;
+        this.distance = Arrays.copyOf(builder.distance, size);
+        this.movingTime = Arrays.copyOf(builder.movingTime, size);
+        this.elapsedTime = Arrays.copyOf(builder.elapsedTime, size);
+        this.elevationGain = Arrays.copyOf(builder.elevationGain, size);
+        this.epochDay = Arrays.copyOf(builder.epochDay, size);
+        this.isoWeek = Arrays.copyOf(builder.isoWeek, size);
+        this.type = Arrays.copyOf(builder.type, size);
+        this.otherTypes = Collections.unmodifiableMap(new HashMap<>(builder.otherTypes));
+    }
+
+    public static ActivityTable from(List<Activity> activities) {
+        Builder builder = builder(activities.size());
+        activities.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() { return size; }
+    public double distance(int row) { return distance[row]; }
+    public long movingTime(int row) { return movingTime[row]; }
+    public long elapsedTime(int row) { return elapsedTime[row]; }
+    public double elevationGain(int row) { return elevationGain[row]; }
+    public int epochDay(int row) { return epochDay[row]; }
+    public int isoWeek(int row) { return isoWeek[row]; }
+    public int typeOrdinal(int row) { return type[row]; }
+    public ActivityType type(int row) { return TYPES[type[row]]; }
+
+    /** The type as Strava writes it, the original text for {@link ActivityType#OTHER} */
+    public String typeName(int row) {
+        return type[row] == OTHER ? otherTypes.get(row) : TYPES[type[row]].stravaName();
+    }
+
+    /** Original type text of every {@link ActivityType#OTHER} row, keyed by row */
+    public Map<Integer, String> otherTypes() { return otherTypes; }
+
+    public static final class Builder {
+        private int size;
+        private double[] distance;
+        private long[] movingTime;
+        private long[] elapsedTime;
+        private double[] elevationGain;
+        private int[] epochDay;
+        private byte[] isoWeek;
+        private byte[] type;
+        private final Map<Integer, String> otherTypes = new HashMap<>();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            distance = new double[capacity];
+            movingTime = new long[capacity];
+            elapsedTime = new long[capacity];
+            elevationGain = new double[capacity];
+            epochDay = new int[capacity];
+            isoWeek = new byte[capacity];
+            type = new byte[capacity];
+        }
+
+        public Builder add(Activity activity) {
+            LocalDate date = activity.getStartLocalDate();
+            return add(activity.getDistance(),
+                    activity.getMovingTime(),
+                    activity.getElapsedTime(),
+                    activity.getElevationGain(),
+                    activity.getType(),
+                    date);
+        }
+
+        public Builder add(double distanceMeters, long movingTimeSeconds, long elapsedTimeSeconds,
+                           double elevationGainMeters, String type, LocalDate startDate) {
+            if (size == distance.length) {
+                grow();
+            }
+            distance[size] = distanceMeters;
+            movingTime[size] = movingTimeSeconds;
+            elapsedTime[size] = elapsedTimeSeconds;
+            elevationGain[size] = elevationGainMeters;
+            epochDay[size] = Math.toIntExact(startDate.toEpochDay());
+            isoWeek[size] = (byte) startDate.get(WeekFields.ISO.weekOfWeekBasedYear());
+            ActivityType activityType = ActivityType.fromStrava(type);
+            this.type[size] = (byte) activityType.ordinal();
+            if (activityType == ActivityType.OTHER) {
+                otherTypes.put(size, type);
+            }
+            size++;
+            return this;
+        }
+
+        public ActivityTable build() {
+            return new ActivityTable(this);
+        }
+
+        private void grow() {
+            int capacity = distance.length * 2;
+            distance = Arrays.copyOf(distance, capacity);
+            movingTime = Arrays.copyOf(movingTime, capacity);
+            elapsedTime = Arrays.copyOf(elapsedTime, capacity);
+            elevationGain = Arrays.copyOf(elevationGain, capacity);
+            epochDay = Arrays.copyOf(epochDay, capacity);
+            isoWeek = Arrays.copyOf(isoWeek, capacity);
+            type = Arrays.copyOf(type, capacity);
+        }
+    }
+}
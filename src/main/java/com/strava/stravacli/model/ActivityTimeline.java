@@ -0,0 +1,86 @@
+package com.strava.stravacli.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Activities ordered by local start date, with an epoch-day index for date-range queries.
+ * Any range is located by binary search and returned as a sub-list view, so metrics over
+ * "the last 28 days" or "2024" cost O(log n) to find instead of a scan of the history.
+ * Instances are immutable.
+ */
+public final class ActivityTimeline {
+
+    private final List<Activity> activities;
+    private final int[] epochDays;
+
+    private ActivityTimeline(List<Activity> activities, int[] epochDays) {
+        this.activities = Collections.unmodifiableList(activities);
+        this.epochDays = epochDays;
+    }
+
+    /** Indexes the activities; input that is already in date order is not re-sorted */
+    public static ActivityTimeline of(List<Activity> activities) {
+        int n = activities.size();
+        long[] keyed = new long[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            long day = activities.get(i).getStartLocalDate().toEpochDay();
+            // day in the high bits, original position in the low bits: sorting keeps ties stable
+            keyed[i] = (day << 32) | i;
+            sorted &= i == 0 || keyed[i - 1] <= keyed[i];
+        }
+        if (!sorted) {
+            Arrays.sort(keyed);
+        }
+
+        List<Activity> ordered = new ArrayList<>(n);
+        int[] epochDays = new int[n];
+        for (int i = 0; i < n; i++) {
+            ordered.add(activities.get((int) keyed[i]));
+            epochDays[i] = (int) (keyed[i] >> 32);
+        }
+        return new ActivityTimeline(ordered, epochDays);
+    }
+
+    public int size() { return activities.size(); }
+    public boolean isEmpty() { return activities.isEmpty(); }
+    public Activity get(int index) { return activities.get(index); }
+    public int epochDay(int index) { return epochDays[index]; }
+
+    /** All activities, oldest first */
+    public List<Activity> activities() { return activities; }
+
+    public LocalDate firstDate() { return isEmpty() ? null : LocalDate.ofEpochDay(epochDays[0]); }
+    public LocalDate lastDate() { return isEmpty() ? null : LocalDate.ofEpochDay(epochDays[epochDays.length - 1]); }
+
+    /** Activities whose local start date lies in {@code [from, to]}, both inclusive */
+    public List<Activity> between(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return List.of();
+        return activities.subList(indexOf(from.toEpochDay()), indexOf(to.toEpochDay() + 1));
+    }
+
+    /** Activities in the {@code days} days ending with {@code asOf} (inclusive) */
+    public List<Activity> lastDays(int days, LocalDate asOf) {
+        return between(asOf.minusDays(days - 1L), asOf);
+    }
+
+    /** Activities in the given calendar year */
+    public List<Activity> year(int year) {
+        return between(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    /** Index of the first activity on or after {@code epochDay}; {@link #size()} if there is none */
+    public int indexOf(long epochDay) {
+        int low = 0, high = epochDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
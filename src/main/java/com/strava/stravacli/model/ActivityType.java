@@ -1,8 +1,99 @@
 package com.strava.stravacli.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Strava's sport types, plus {@link #OTHER} for any value this list does not know yet.
+ * The first four constants double as the categories statistics are broken down by
+ * (see {@link #category()}); everything else falls into {@link #OTHER}.
+ */
 public enum ActivityType {
-    RUN,
-    RIDE,
-    PILATES,
-    WEIGHT_TRAINING
+    RUN("Run"),
+    RIDE("Ride"),
+    PILATES("Pilates"),
+    WEIGHT_TRAINING("WeightTraining"),
+    ALPINE_SKI("AlpineSki"),
+    BACKCOUNTRY_SKI("BackcountrySki"),
+    BADMINTON("Badminton"),
+    CANOEING("Canoeing"),
+    CROSSFIT("Crossfit"),
+    E_BIKE_RIDE("EBikeRide"),
+    ELLIPTICAL("Elliptical"),
+    E_MOUNTAIN_BIKE_RIDE("EMountainBikeRide"),
+    GOLF("Golf"),
+    GRAVEL_RIDE("GravelRide"),
+    HANDCYCLE("Handcycle"),
+    HIGH_INTENSITY_INTERVAL_TRAINING("HighIntensityIntervalTraining"),
+    HIKE("Hike"),
+    ICE_SKATE("IceSkate"),
+    INLINE_SKATE("InlineSkate"),
+    KAYAKING("Kayaking"),
+    KITESURF("Kitesurf"),
+    MOUNTAIN_BIKE_RIDE("MountainBikeRide"),
+    NORDIC_SKI("NordicSki"),
+    PICKLEBALL("Pickleball"),
+    RACQUETBALL("Racquetball"),
+    ROCK_CLIMBING("RockClimbing"),
+    ROLLER_SKI("RollerSki"),
+    ROWING("Rowing"),
+    SAIL("Sail"),
+    SKATEBOARD("Skateboard"),
+    SNOWBOARD("Snowboard"),
+    SNOWSHOE("Snowshoe"),
+    SOCCER("Soccer"),
+    SQUASH("Squash"),
+    STAIR_STEPPER("StairStepper"),
+    STAND_UP_PADDLING("StandUpPaddling"),
+    SURFING("Surfing"),
+    SWIM("Swim"),
+    TABLE_TENNIS("TableTennis"),
+    TENNIS("Tennis"),
+    TRAIL_RUN("TrailRun"),
+    VELOMOBILE("Velomobile"),
+    VIRTUAL_RIDE("VirtualRide"),
+    VIRTUAL_ROW("VirtualRow"),
+    VIRTUAL_RUN("VirtualRun"),
+    WALK("Walk"),
+    WHEELCHAIR("Wheelchair"),
+    WINDSURF("Windsurf"),
+    WORKOUT("Workout"),
+    YOGA("Yoga"),
+    /** Fallback for values not listed; the activity keeps the original text */
+    OTHER(null);
+
+    private static final Map<String, ActivityType> STRAVA_TYPES = new HashMap<>();
+
+    static {
+        for (ActivityType type : values()) {
+            if (type.stravaName != null) STRAVA_TYPES.put(type.stravaName, type);
+        }
+    }
+
+    private final String stravaName;
+
+    ActivityType(String stravaName) {
+        this.stravaName = stravaName;
+    }
+
+    /** Maps a Strava {@code type}/{@code sport_type} value to its constant, {@link #OTHER} if unknown */
+    public static ActivityType fromStrava(String type) {
+        return type == null ? OTHER : STRAVA_TYPES.getOrDefault(type, OTHER);
+    }
+
+    /** The value as Strava writes it ({@code "TrailRun"}), null for {@link #OTHER} */
+    public String stravaName() {
+        return stravaName;
+    }
+
+    /** The category this type is counted under in statistics by type */
+    public ActivityType category() {
+        return switch (this) {
+            case RUN, TRAIL_RUN, VIRTUAL_RUN -> RUN;
+            case RIDE, VIRTUAL_RIDE, E_BIKE_RIDE, MOUNTAIN_BIKE_RIDE, E_MOUNTAIN_BIKE_RIDE, GRAVEL_RIDE -> RIDE;
+            case PILATES -> PILATES;
+            case WEIGHT_TRAINING -> WEIGHT_TRAINING;
+            default -> OTHER;
+        };
+    }
 }
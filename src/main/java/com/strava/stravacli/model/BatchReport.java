@@ -0,0 +1,44 @@
+package com.strava.stravacli.model;
+
+import java.util.List;
+
+/** Result of one batch run over many athletes, written as a single JSON report */
+public record BatchReport(
+        String generatedAt,
+        long durationMillis,
+        int athletes,
+        int succeeded,
+        int failed,
+        List<AthleteReport> results
+) {
+    public record AthleteReport(
+            String athlete,
+            boolean success,
+            int newActivities,
+            int totalActivities,
+            ActivityStats stats,
+            ActivityPrediction prediction,
+            String error
+    ) {
+        public static AthleteReport failure(String athlete, String error) {
+            return new AthleteReport(athlete, false, 0, 0, null, null, error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return """
+               🗂 Batch Report
+               ------------------------
+               Athletes              : %d
+               Succeeded             : %d
+               Failed                : %d
+               Duration              : %.1f s
+               """.formatted(
+                athletes,
+                succeeded,
+                failed,
+                durationMillis / 1000.0
+        );
+    }
+}
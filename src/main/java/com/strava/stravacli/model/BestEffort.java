@@ -0,0 +1,14 @@
+package com.strava.stravacli.model;
+
+/** The best value reached for one {@link EffortTarget}, and the activity it was set in */
+public record BestEffort(
+        EffortTarget target,
+        double value,
+        String activityId,
+        String date
+) {
+    @Override
+    public String toString() {
+        return "%-24s: %-10s (%s)".formatted(target.label(), target.format(value), date);
+    }
+}
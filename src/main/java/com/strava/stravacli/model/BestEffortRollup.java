@@ -0,0 +1,45 @@
+package com.strava.stravacli.model;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * All-time and per-year best efforts over a set of activities, kept apart per
+ * {@link ActivityType#category()}: a fast kilometre on a ride is not a running best.
+ */
+public record BestEffortRollup(
+        Map<ActivityType, Bests> byCategory
+) {
+    public static final BestEffortRollup EMPTY = new BestEffortRollup(Map.of());
+
+    /** All-time and per-year bests of one category */
+    public record Bests(
+            Map<EffortTarget, BestEffort> allTime,
+            Map<Integer, Map<EffortTarget, BestEffort>> byYear
+    ) {}
+
+    public boolean isEmpty() {
+        return byCategory.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) return "";
+
+        StringBuilder text = new StringBuilder();
+        byCategory.forEach((category, bests) -> {
+            if (!text.isEmpty()) text.append('\n');
+            text.append("""
+                   🏅 Best Efforts: %s (all time)
+                   ------------------------
+                   """.formatted(category));
+            bests.allTime().values().forEach(effort -> text.append(effort).append('\n'));
+
+            text.append("\nBest Efforts by Year\n");
+            bests.byYear().forEach((year, efforts) -> text.append(year).append(": ").append(efforts.values().stream()
+                    .map(effort -> effort.target().label() + " " + effort.target().format(effort.value()))
+                    .collect(Collectors.joining(" · "))).append('\n'));
+        });
+        return text.toString();
+    }
+}
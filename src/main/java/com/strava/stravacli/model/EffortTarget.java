@@ -0,0 +1,51 @@
+package com.strava.stravacli.model;
+
+/** Best efforts tracked per activity: fastest times over set distances and best averages over set durations */
+public enum EffortTarget {
+    FASTEST_1K("Fastest 1 km", Measure.TIME_FOR_DISTANCE, 1000),
+    FASTEST_5K("Fastest 5 km", Measure.TIME_FOR_DISTANCE, 5000),
+    FASTEST_10K("Fastest 10 km", Measure.TIME_FOR_DISTANCE, 10000),
+    FASTEST_HALF_MARATHON("Fastest half marathon", Measure.TIME_FOR_DISTANCE, 21097.5),
+    POWER_5_MIN("Best 5 min power", Measure.AVERAGE_POWER, 300),
+    POWER_20_MIN("Best 20 min power", Measure.AVERAGE_POWER, 1200),
+    POWER_60_MIN("Best 60 min power", Measure.AVERAGE_POWER, 3600),
+    HEARTRATE_5_MIN("Best 5 min heart rate", Measure.AVERAGE_HEARTRATE, 300),
+    HEARTRATE_20_MIN("Best 20 min heart rate", Measure.AVERAGE_HEARTRATE, 1200),
+    HEARTRATE_60_MIN("Best 60 min heart rate", Measure.AVERAGE_HEARTRATE, 3600);
+
+    public enum Measure { TIME_FOR_DISTANCE, AVERAGE_POWER, AVERAGE_HEARTRATE }
+
+    private final String label;
+    private final Measure measure;
+    private final double amount;
+
+    EffortTarget(String label, Measure measure, double amount) {
+        this.label = label;
+        this.measure = measure;
+        this.amount = amount;
+    }
+
+    public String label() { return label; }
+    public Measure measure() { return measure; }
+
+    /** Meters for {@link Measure#TIME_FOR_DISTANCE}, seconds for the averages */
+    public double amount() { return amount; }
+
+    /** True if {@code candidate} beats {@code current}: shorter times, higher averages */
+    public boolean isBetter(double candidate, double current) {
+        return measure == Measure.TIME_FOR_DISTANCE ? candidate < current : candidate > current;
+    }
+
+    public String format(double value) {
+        return switch (measure) {
+            case TIME_FOR_DISTANCE -> {
+                long seconds = Math.round(value);
+                yield seconds >= 3600
+                        ? "%d:%02d:%02d".formatted(seconds / 3600, seconds / 60 % 60, seconds % 60)
+                        : "%d:%02d".formatted(seconds / 60, seconds % 60);
+            }
+            case AVERAGE_POWER -> "%.0f W".formatted(value);
+            case AVERAGE_HEARTRATE -> "%.0f bpm".formatted(value);
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.strava.stravacli.model;
+
+/**
+ * Route heatmap: how often routes pass through each cell of a grid of Web Mercator map
+ * tiles at one zoom level (tile {@code (originX + x, originY + y)} is cell {@code (x, y)}),
+ * covering the bounding box of all routes. Counts are stored row by row, north to south.
+ *
+ * @param activities activities with a route
+ * @param points     route points decoded
+ * @param invalid    activities whose polyline could not be decoded
+ */
+public record Heatmap(
+        int zoom,
+        int originX,
+        int originY,
+        int width,
+        int height,
+        int[] counts,
+        int activities,
+        long points,
+        int invalid
+) {
+    private static final double EQUATOR_METERS = 40_075_016.686;
+
+    public static Heatmap empty(int zoom, int invalid) {
+        return new Heatmap(zoom, 0, 0, 0, 0, new int[0], 0, 0, invalid);
+    }
+
+    public int count(int x, int y) {
+        return counts[y * width + x];
+    }
+
+    /** Index into {@link #counts()} of the busiest cell, or -1 if the heatmap is empty */
+    public int busiestCell() {
+        int busiest = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && (busiest < 0 || counts[i] > counts[busiest])) busiest = i;
+        }
+        return busiest;
+    }
+
+    public int nonEmptyCells() {
+        int cells = 0;
+        for (int count : counts) {
+            if (count > 0) cells++;
+        }
+        return cells;
+    }
+
+    /** Latitude of the centre of row {@code y} */
+    public double latitude(int y) {
+        double n = Math.PI * (1 - 2 * (originY + y + 0.5) / (double) (1 << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    /** Longitude of the centre of column {@code x} */
+    public double longitude(int x) {
+        return (originX + x + 0.5) / (1 << zoom) * 360 - 180;
+    }
+
+    /** Edge length of a cell in meters, at the latitude of row {@code y} */
+    public double cellMeters(int y) {
+        return EQUATOR_METERS * Math.cos(Math.toRadians(latitude(y))) / (1 << zoom);
+    }
+
+    @Override
+    public String toString() {
+        int busiest = busiestCell();
+        String busiestText = busiest < 0 ? "-" : "%d passes at %.5f, %.5f".formatted(counts[busiest],
+                latitude(busiest / width), longitude(busiest % width));
+        return """
+               🗺️ Route Heatmap
+               ------------------------
+               Activities with routes: %d (%d unreadable)
+               Route points          : %d
+               Grid                  : %d x %d cells at zoom %d (~%.0f m per cell)
+               Visited cells         : %d
+               Busiest cell          : %s
+               """.formatted(
+                activities, invalid,
+                points,
+                width, height, zoom, height == 0 ? 0 : cellMeters(height / 2),
+                nonEmptyCells(),
+                busiestText
+        );
+    }
+}
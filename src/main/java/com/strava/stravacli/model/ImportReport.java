@@ -0,0 +1,32 @@
+package com.strava.stravacli.model;
+
+/** Outcome of importing one Strava bulk export archive */
+public record ImportReport(
+        int activities,
+        int added,
+        int files,
+        int streamsStored,
+        int failedFiles,
+        long durationMillis
+) {
+    @Override
+    public String toString() {
+        return """
+               📦 Import Report
+               ------------------------
+               Activities in export  : %d
+               New activities        : %d
+               Activity files        : %d
+               Streams stored        : %d
+               Unreadable files      : %d
+               Duration              : %.1f s
+               """.formatted(
+                activities,
+                added,
+                files,
+                streamsStored,
+                failedFiles,
+                durationMillis / 1000.0
+        );
+    }
+}
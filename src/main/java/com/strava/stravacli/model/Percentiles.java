@@ -0,0 +1,14 @@
+package com.strava.stravacli.model;
+
+/** 10th, 50th (median), 90th and 99th percentile of one metric */
+public record Percentiles(double p10, double p50, double p90, double p99) {
+    public static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0);
+
+    /** The quantiles reported, in component order */
+    public static final double[] QUANTILES = {0.10, 0.50, 0.90, 0.99};
+
+    public String format(String pattern) {
+        return "%s / %s / %s / %s".formatted(
+                pattern.formatted(p10), pattern.formatted(p50), pattern.formatted(p90), pattern.formatted(p99));
+    }
+}
@@ -0,0 +1,40 @@
+package com.strava.stravacli.model;
+
+import java.time.LocalDate;
+
+/**
+ * Rolling training volume and load for the windows ending on {@code date}.
+ * Load is measured in moving minutes per day; acute load averages the last 7 days,
+ * chronic load the last 28.
+ */
+public record TrainingLoad(
+        LocalDate date,
+        double rolling7DayKm,
+        double rolling28DayKm,
+        double rolling42DayKm,
+        double acuteLoad,
+        double chronicLoad,
+        double acuteChronicRatio
+) {
+    @Override
+    public String toString() {
+        return """
+               🏋️ Training Load (%s)
+               ------------------------
+               Last 7 days           : %.2f km
+               Last 28 days          : %.2f km
+               Last 42 days          : %.2f km
+               Acute load (7d)       : %.1f min/day
+               Chronic load (28d)    : %.1f min/day
+               Acute:chronic ratio   : %.2f
+               """.formatted(
+                date,
+                rolling7DayKm,
+                rolling28DayKm,
+                rolling42DayKm,
+                acuteLoad,
+                chronicLoad,
+                acuteChronicRatio
+        );
+    }
+}
@@ -0,0 +1,251 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.model.ActivityType;
+import com.strava.stravacli.model.BestEffortRollup;
+import com.strava.stravacli.model.Percentiles;
+import com.strava.stravacli.util.QuantileSketch;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Single-pass builder for {@link ActivityStats}.
+ * Every metric is accumulated in one traversal and each start date is parsed once.
+ * Accumulators over disjoint partitions can be {@link #merge merged}, which makes the
+ * engine usable from parallel streams and for incremental updates.
+ * Sums use the same compensated summation as {@code DoubleStream.sum()}, so results
+ * match the per-metric methods in {@link StatisticsService}.
+ * Median and percentiles come from {@link QuantileSketch}es: exact for up to
+ * {@value QuantileSketch#DEFAULT_EXACT_LIMIT} activities, within 1% rank error beyond that.
+ */
+public class ActivityStatsAccumulator {
+
+    private static final ActivityType[] TYPES = ActivityType.values();
+    private static final int MAX_ISO_WEEK = 53;
+
+    private int count;
+    private final DoubleSummaryStatistics distance = new DoubleSummaryStatistics();
+    private final DoubleSummaryStatistics elevation = new DoubleSummaryStatistics();
+    private long movingSeconds;
+    private final long[] typeCounts = new long[TYPES.length];          // by ActivityType ordinal
+    private final Map<String, long[]> otherTypeCounts = new HashMap<>(); // original text of OTHER types
+    private final DoubleSummaryStatistics[] weekDistanceKm = new DoubleSummaryStatistics[MAX_ISO_WEEK + 1];
+
+    private final QuantileSketch distanceSketch = new QuantileSketch();
+    private final QuantileSketch paceSketch = new QuantileSketch();
+    private final QuantileSketch movingTimeSketch = new QuantileSketch();
+    private final QuantileSketch elevationSketch = new QuantileSketch();
+
+    private long[] epochDays = new long[16];
+
+    public static ActivityStatsAccumulator of(List<Activity> activities) {
+        ActivityStatsAccumulator accumulator = new ActivityStatsAccumulator();
+        for (Activity activity : activities) {
+            accumulator.accept(activity);
+        }
+        return accumulator;
+    }
+
+    /** Accumulates a table; types are counted straight from its ordinal column */
+    public static ActivityStatsAccumulator of(ActivityTable table) {
+        ActivityStatsAccumulator accumulator = new ActivityStatsAccumulator();
+        for (int row = 0; row < table.size(); row++) {
+            accumulator.addMetrics(table.distance(row),
+                    table.movingTime(row),
+                    table.elevationGain(row),
+                    table.epochDay(row),
+                    table.isoWeek(row));
+            accumulator.typeCounts[table.typeOrdinal(row)]++;
+        }
+        table.otherTypes().values().forEach(accumulator::countOtherType);
+        return accumulator;
+    }
+
+    /** Collector that accumulates in parallel-safe partitions and finishes into {@link ActivityStats} */
+    public static Collector<Activity, ActivityStatsAccumulator, ActivityStats> collector() {
+        return Collector.of(
+                ActivityStatsAccumulator::new,
+                ActivityStatsAccumulator::accept,
+                ActivityStatsAccumulator::merge,
+                ActivityStatsAccumulator::toStats
+        );
+    }
+
+    public void accept(Activity activity) {
+        LocalDate date = activity.getStartLocalDate();
+        add(activity.getDistance(),
+                activity.getMovingTime(),
+                activity.getElevationGain(),
+                activity.getActivityType(),
+                activity.getType(),
+                date.toEpochDay(),
+                date.get(WeekFields.ISO.weekOfWeekBasedYear()));
+    }
+
+    /**
+     * Adds one activity from already-decoded primitive values.
+     *
+     * @param distanceMeters distance in meters
+     * @param movingTimeSeconds moving time in seconds
+     * @param elevationGainMeters elevation gain in meters
+     * @param type activity type
+     * @param typeName type as Strava writes it; only used for {@link ActivityType#OTHER}
+     * @param epochDay local start date as epoch day
+     * @param isoWeek ISO week-of-week-based-year of the local start date
+     */
+    public void add(double distanceMeters, long movingTimeSeconds, double elevationGainMeters,
+                    ActivityType type, String typeName, long epochDay, int isoWeek) {
+        addMetrics(distanceMeters, movingTimeSeconds, elevationGainMeters, epochDay, isoWeek);
+        typeCounts[type.ordinal()]++;
+        if (type == ActivityType.OTHER) {
+            countOtherType(typeName);
+        }
+    }
+
+    private void countOtherType(String typeName) {
+        otherTypeCounts.computeIfAbsent(typeName, t -> new long[1])[0]++;
+    }
+
+    private void addMetrics(double distanceMeters, long movingTimeSeconds, double elevationGainMeters,
+                            long epochDay, int isoWeek) {
+        if (count == epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, count * 2);
+        }
+        epochDays[count] = epochDay;
+        count++;
+
+        distanceSketch.add(distanceMeters);
+        movingTimeSketch.add(movingTimeSeconds);
+        elevationSketch.add(elevationGainMeters);
+        if (distanceMeters > 0) {
+            paceSketch.add(movingTimeSeconds / (distanceMeters / 1000.0));
+        }
+
+        distance.accept(distanceMeters);
+        elevation.accept(elevationGainMeters);
+        movingSeconds += movingTimeSeconds;
+        week(isoWeek).accept(distanceMeters / 1000.0);
+    }
+
+    private DoubleSummaryStatistics week(int isoWeek) {
+        DoubleSummaryStatistics week = weekDistanceKm[isoWeek];
+        if (week == null) {
+            week = weekDistanceKm[isoWeek] = new DoubleSummaryStatistics();
+        }
+        return week;
+    }
+
+    /** Folds another accumulator into this one and returns this */
+    public ActivityStatsAccumulator merge(ActivityStatsAccumulator other) {
+        if (count + other.count > epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, Math.max(epochDays.length * 2, count + other.count));
+        }
+        System.arraycopy(other.epochDays, 0, epochDays, count, other.count);
+        count += other.count;
+
+        distanceSketch.merge(other.distanceSketch);
+        paceSketch.merge(other.paceSketch);
+        movingTimeSketch.merge(other.movingTimeSketch);
+        elevationSketch.merge(other.elevationSketch);
+
+        distance.combine(other.distance);
+        elevation.combine(other.elevation);
+        movingSeconds += other.movingSeconds;
+        for (int type = 0; type < typeCounts.length; type++) {
+            typeCounts[type] += other.typeCounts[type];
+        }
+        other.otherTypeCounts.forEach((type, n) ->
+                otherTypeCounts.computeIfAbsent(type, t -> new long[1])[0] += n[0]);
+        for (int isoWeek = 0; isoWeek <= MAX_ISO_WEEK; isoWeek++) {
+            if (other.weekDistanceKm[isoWeek] != null) week(isoWeek).combine(other.weekDistanceKm[isoWeek]);
+        }
+        return this;
+    }
+
+    public ActivityStats toStats() {
+        double totalKm = distance.getSum() / 1000.0;
+        double hours = movingSeconds / 3600.0;
+        double elevationGain = elevation.getSum();
+
+        Percentiles distancePercentiles = percentiles(distanceSketch, 1000);
+        int bestWeek = -1;
+        for (int isoWeek = 0; isoWeek <= MAX_ISO_WEEK; isoWeek++) {
+            if (weekDistanceKm[isoWeek] != null
+                    && (bestWeek < 0 || weekDistanceKm[isoWeek].getSum() > weekDistanceKm[bestWeek].getSum())) {
+                bestWeek = isoWeek;
+            }
+        }
+
+        return new ActivityStats(
+                count,
+                totalKm,
+                count == 0 ? 0.0 : totalKm / count,
+                (count == 0 ? 0.0 : distance.getMax()) / 1000.0,
+                Duration.ofSeconds(movingSeconds),
+                hours == 0 ? 0.0 : totalKm / hours,
+                elevationGain,
+                mostFrequentType(),
+                distancePercentiles.p50(),
+                bestWeek < 0 ? 0 : bestWeek,
+                bestWeek < 0 ? 0.0 : weekDistanceKm[bestWeek].getSum(),
+                longestStreakDays(),
+                totalKm == 0 ? 0.0 : elevationGain / totalKm,
+                totalKm == 0 ? Duration.ZERO : Duration.ofSeconds((long) (movingSeconds / totalKm)),
+                distancePercentiles,
+                percentiles(paceSketch, 1),
+                percentiles(movingTimeSketch, 60),
+                percentiles(elevationSketch, 1),
+                BestEffortRollup.EMPTY
+        );
+    }
+
+    /** Most frequent type as Strava writes it; ties go to the earlier {@link ActivityType} constant */
+    private String mostFrequentType() {
+        String type = "N/A";
+        long most = 0;
+        for (ActivityType candidate : TYPES) {
+            if (candidate != ActivityType.OTHER && typeCounts[candidate.ordinal()] > most) {
+                most = typeCounts[candidate.ordinal()];
+                type = candidate.stravaName();
+            }
+        }
+        for (Map.Entry<String, long[]> other : otherTypeCounts.entrySet()) {
+            if (other.getValue()[0] > most) {
+                most = other.getValue()[0];
+                type = other.getKey();
+            }
+        }
+        return type;
+    }
+
+    /** Percentiles of a sketch, each divided by {@code divisor} to convert units */
+    static Percentiles percentiles(QuantileSketch sketch, double divisor) {
+        if (sketch.isEmpty()) return Percentiles.EMPTY;
+        double[] values = sketch.quantiles(Percentiles.QUANTILES);
+        return new Percentiles(values[0] / divisor, values[1] / divisor, values[2] / divisor, values[3] / divisor);
+    }
+
+    private int longestStreakDays() {
+        long[] days = Arrays.copyOf(epochDays, count);
+        Arrays.sort(days);
+
+        int maxStreak = 0, currentStreak = 0;
+        for (int i = 0; i < days.length; i++) {
+            if (i > 0 && days[i] == days[i - 1]) continue;
+            if (i == 0 || days[i - 1] + 1 == days[i]) currentStreak++;
+            else currentStreak = 1;
+            maxStreak = Math.max(maxStreak, currentStreak);
+        }
+        return maxStreak;
+    }
+}
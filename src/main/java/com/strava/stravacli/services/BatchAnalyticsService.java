@@ -0,0 +1,156 @@
+package com.strava.stravacli.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.strava.stravacli.client.HttpTransport;
+import com.strava.stravacli.client.StravaClient;
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.BatchReport;
+import com.strava.stravacli.model.BatchReport.AthleteReport;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.token.AccessTokenProvider;
+import com.strava.stravacli.token.TokenManager;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Syncs and analyses many athletes in one run.
+ * <p>
+ * The input is a directory with one token file per athlete ({@code <athlete>.json}, same
+ * format as {@code .strava_token.json}); each athlete's history is kept in
+ * {@code activities/<athlete>.json} under that directory. Athletes are processed on a
+ * bounded pool of {@code strava.batch-parallelism} workers, while every API call still goes
+ * through the shared {@link StravaClient}, so all athletes draw on one HTTP client and one
+ * rate-limit budget. Refreshed tokens are written back to their token files.
+ */
+@Service
+public class BatchAnalyticsService {
+    private static final String STORE_DIRECTORY = "activities";
+
+    private final StravaClient client;
+    private final HttpTransport transport;
+    private final StatisticsService statisticsService;
+    private final PredictionService predictionService;
+    private final StravaConfig config;
+    private final MetricsRegistry metrics;
+    private final ObjectMapper reportMapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .registerModule(new SimpleModule().addSerializer(Duration.class, ToStringSerializer.instance));
+
+    public BatchAnalyticsService(StravaClient client, HttpTransport transport, StatisticsService statisticsService,
+                                 PredictionService predictionService, StravaConfig config, MetricsRegistry metrics) {
+        this.client = client;
+        this.transport = transport;
+        this.statisticsService = statisticsService;
+        this.predictionService = predictionService;
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /** Syncs and analyses every athlete with a token file in {@code tokenDirectory} */
+    public BatchReport run(Path tokenDirectory) throws IOException {
+        long started = System.nanoTime();
+        List<Path> tokenFiles = tokenFiles(tokenDirectory);
+        Path storeDirectory = Files.createDirectories(tokenDirectory.resolve(STORE_DIRECTORY));
+
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, config.getBatchParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<AthleteReport> results = new ArrayList<>(tokenFiles.size());
+        try {
+            List<Future<AthleteReport>> futures = new ArrayList<>(tokenFiles.size());
+            for (Path tokenFile : tokenFiles) {
+                futures.add(workers.submit(() -> {
+                    AthleteReport report = analyse(tokenFile, storeDirectory);
+                    System.out.printf("%s [%d/%d] %s%n", report.success() ? "✅" : "❌",
+                            done.incrementAndGet(), tokenFiles.size(), report.athlete());
+                    return report;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), athleteName(tokenFiles.get(i))));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        int succeeded = (int) results.stream().filter(AthleteReport::success).count();
+        return new BatchReport(Instant.now().toString(), (System.nanoTime() - started) / 1_000_000,
+                results.size(), succeeded, results.size() - succeeded, results);
+    }
+
+    public void writeReport(BatchReport report, Path target) throws IOException {
+        reportMapper.writeValue(target.toFile(), report);
+    }
+
+    private AthleteReport analyse(Path tokenFile, Path storeDirectory) {
+        String athlete = athleteName(tokenFile);
+        AccessTokenProvider tokenProvider = new AccessTokenProvider(
+                new TokenManager(config, tokenFile, transport, metrics), config);
+        try {
+            ActivityStore store = new ActivityStore(storeDirectory.resolve(athlete + ".json"));
+            StravaService stravaService = new StravaService(client, tokenProvider, store, config, metrics);
+
+            int added = stravaService.sync();
+            if (added < 0) {
+                return AthleteReport.failure(athlete, "sync failed");
+            }
+
+            List<Activity> activities = store.getActivities();
+            return new AthleteReport(athlete, true, added, activities.size(),
+                    statisticsService.getStatistics(activities),
+                    predictionService.getPredictions(activities),
+                    null);
+        } catch (RuntimeException e) {
+            return AthleteReport.failure(athlete, e.getMessage());
+        } finally {
+            tokenProvider.shutdown();
+        }
+    }
+
+    private static AthleteReport await(Future<AthleteReport> future, String athlete) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AthleteReport.failure(athlete, "interrupted");
+        } catch (ExecutionException e) {
+            return AthleteReport.failure(athlete, String.valueOf(e.getCause()));
+        }
+    }
+
+    private static List<Path> tokenFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String athleteName(Path tokenFile) {
+        String name = tokenFile.getFileName().toString();
+        return name.substring(0, name.length() - ".json".length());
+    }
+}
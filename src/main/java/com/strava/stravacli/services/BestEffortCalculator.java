@@ -0,0 +1,121 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import com.strava.stravacli.model.EffortTarget;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Best efforts of a single activity from its per-second streams.
+ * <p>
+ * Every target is one two-pointer sweep: both ends of the window only ever move forward,
+ * so each target costs O(n) instead of O(n²) and reads the (possibly memory-mapped)
+ * buffers sample by sample without copying them.
+ * <ul>
+ *   <li>Fastest distance: shortest elapsed time between two samples at least the target
+ *       distance apart.</li>
+ *   <li>Best average power / heart rate: highest time-weighted average over a window of
+ *       exactly the target duration. Each sample's value holds for the time since the previous
+ *       sample, capped at {@value #MAX_SAMPLE_GAP_SECONDS} s, so a paused recording counts as
+ *       zero rather than as the value recorded on resume.</li>
+ * </ul>
+ */
+public final class BestEffortCalculator {
+    static final int MAX_SAMPLE_GAP_SECONDS = 5;
+
+    private BestEffortCalculator() {}
+
+    /** Every target the activity's streams allow; targets the activity never reaches are absent */
+    public static Map<EffortTarget, Double> compute(ActivityStreams streams) {
+        Map<EffortTarget, Double> efforts = new EnumMap<>(EffortTarget.class);
+        if (streams.size() < 2 || !streams.has(Channel.TIME)) return efforts;
+
+        for (EffortTarget target : EffortTarget.values()) {
+            double value = switch (target.measure()) {
+                case TIME_FOR_DISTANCE -> streams.has(Channel.DISTANCE) ? fastestTime(streams, target.amount()) : -1;
+                case AVERAGE_POWER -> streams.has(Channel.WATTS)
+                        ? bestAverage(streams, Channel.WATTS, (int) target.amount()) : -1;
+                case AVERAGE_HEARTRATE -> streams.has(Channel.HEARTRATE)
+                        ? bestAverage(streams, Channel.HEARTRATE, (int) target.amount()) : -1;
+            };
+            if (value > 0) {
+                efforts.put(target, value);
+            }
+        }
+        return efforts;
+    }
+
+    /** Shortest time (s) to cover {@code meters}, or -1 if the activity is shorter */
+    static double fastestTime(ActivityStreams streams, double meters) {
+        int n = streams.size();
+        int best = Integer.MAX_VALUE;
+        int start = 0;
+        for (int end = 1; end < n; end++) {
+            float distance = streams.distance(end);
+            while (start + 1 < end && distance - streams.distance(start + 1) >= meters) {
+                start++;
+            }
+            if (distance - streams.distance(start) >= meters) {
+                best = Math.min(best, streams.time(end) - streams.time(start));
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /** Highest average of {@code channel} over exactly {@code seconds}, or -1 if the activity is shorter */
+    static double bestAverage(ActivityStreams streams, Channel channel, int seconds) {
+        int duration = streams.time(streams.size() - 1) - streams.time(0);
+        if (duration < seconds) return -1;
+
+        // windows (end - seconds, end] for every whole second; sample times are whole seconds,
+        // so the integral is linear in between and the maximum falls on one of these windows
+        Integral leading = new Integral(streams, channel);
+        Integral trailing = new Integral(streams, channel);
+        long best = 0;
+        for (int end = seconds; end <= duration; end++) {
+            best = Math.max(best, leading.upTo(end) - trailing.upTo(end - seconds));
+        }
+        return (double) best / seconds;
+    }
+
+    /**
+     * Running integral of a channel over time since the first sample, for non-decreasing
+     * query times. A sample's value holds for the (capped) time since the previous sample.
+     */
+    private static final class Integral {
+        private final ActivityStreams streams;
+        private final boolean watts;
+        private final int origin;
+        private int next = 1;
+        private long completed;
+
+        Integral(ActivityStreams streams, Channel channel) {
+            this.streams = streams;
+            this.watts = channel == Channel.WATTS;
+            this.origin = streams.time(0);
+        }
+
+        long upTo(int time) {
+            int n = streams.size();
+            while (next < n && streams.time(next) - origin <= time) {
+                completed += (long) value(next) * active(next);
+                next++;
+            }
+            if (next == n) return completed;
+
+            // part of the current sample's interval that lies before the query time
+            int overlap = time - (streams.time(next) - origin - active(next));
+            return completed + (long) value(next) * Math.max(0, overlap);
+        }
+
+        private int active(int sample) {
+            return Math.max(0, Math.min(MAX_SAMPLE_GAP_SECONDS, streams.time(sample) - streams.time(sample - 1)));
+        }
+
+        private int value(int sample) {
+            return watts ? streams.watts(sample) : streams.heartrate(sample);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityType;
+import com.strava.stravacli.model.BestEffort;
+import com.strava.stravacli.model.BestEffortRollup;
+import com.strava.stravacli.model.EffortTarget;
+import com.strava.stravacli.store.BestEffortCache;
+import com.strava.stravacli.store.StreamStore;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Best efforts (fastest distances, best average power and heart rate) from stored streams.
+ * Each activity's efforts are computed once by {@link BestEffortCalculator} and cached;
+ * activities whose streams have not been downloaded are left out.
+ */
+@Service
+public class BestEffortService {
+    private final StreamStore streamStore;
+    private final BestEffortCache cache;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer computeTime;
+
+    public BestEffortService(StreamStore streamStore, BestEffortCache cache, MetricsRegistry metrics) {
+        this.streamStore = streamStore;
+        this.cache = cache;
+        this.cacheHits = metrics.counter("cache_requests_total", "cache", "best_efforts", "result", "hit");
+        this.cacheMisses = metrics.counter("cache_requests_total", "cache", "best_efforts", "result", "miss");
+        this.computeTime = metrics.timer("best_effort_compute_seconds");
+    }
+
+    /** Best efforts of one activity, or an empty map if its streams are not stored */
+    public Map<EffortTarget, Double> efforts(String activityId) {
+        Map<EffortTarget, Double> cached = cache.get(activityId);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+
+        Map<EffortTarget, Double> computed = compute(activityId);
+        if (computed == null) return Map.of();
+        cache.putAll(Map.of(activityId, computed));
+        return computed;
+    }
+
+    /**
+     * All-time and per-year bests over the activities, per {@link ActivityType#category()},
+     * computing uncached ones in parallel. Activities without a readable start are left out.
+     */
+    public BestEffortRollup rollup(List<Activity> activities) {
+        Map<String, Map<EffortTarget, Double>> computed = new ConcurrentHashMap<>();
+        activities.parallelStream()
+                .map(Activity::getId)
+                .filter(id -> id != null)
+                .distinct()
+                .filter(this::isUncached)
+                .forEach(id -> {
+                    Map<EffortTarget, Double> efforts = compute(id);
+                    if (efforts != null) computed.put(id, efforts);
+                });
+        cache.putAll(computed);
+
+        Map<ActivityType, Map<EffortTarget, BestEffort>> allTime = new EnumMap<>(ActivityType.class);
+        Map<ActivityType, Map<Integer, Map<EffortTarget, BestEffort>>> byYear = new EnumMap<>(ActivityType.class);
+        for (Activity activity : activities) {
+            if (activity.getId() == null || activity.getStartLocalEpochSecond() == Activity.NO_START) continue;
+            Map<EffortTarget, Double> efforts = cache.get(activity.getId());
+            if (efforts == null || efforts.isEmpty()) continue;
+
+            ActivityType category = activity.getActivityType().category();
+            LocalDateTime start = activity.getStartDateTimeLocal();
+            String date = start.toLocalDate().toString();
+            Map<EffortTarget, BestEffort> sport = allTime.computeIfAbsent(category,
+                    c -> new EnumMap<>(EffortTarget.class));
+            Map<EffortTarget, BestEffort> year = byYear.computeIfAbsent(category, c -> new TreeMap<>())
+                    .computeIfAbsent(start.getYear(), y -> new EnumMap<>(EffortTarget.class));
+            efforts.forEach((target, value) -> {
+                BestEffort effort = new BestEffort(target, value, activity.getId(), date);
+                keepBest(sport, effort);
+                keepBest(year, effort);
+            });
+        }
+        if (allTime.isEmpty()) return BestEffortRollup.EMPTY;
+
+        Map<ActivityType, BestEffortRollup.Bests> byCategory = new EnumMap<>(ActivityType.class);
+        allTime.forEach((category, bests) ->
+                byCategory.put(category, new BestEffortRollup.Bests(bests, byYear.get(category))));
+        return new BestEffortRollup(byCategory);
+    }
+
+    private boolean isUncached(String activityId) {
+        boolean uncached = cache.get(activityId) == null;
+        (uncached ? cacheMisses : cacheHits).increment();
+        return uncached;
+    }
+
+    private static void keepBest(Map<EffortTarget, BestEffort> bests, BestEffort effort) {
+        bests.merge(effort.target(), effort,
+                (current, candidate) -> effort.target().isBetter(candidate.value(), current.value()) ? candidate : current);
+    }
+
+    /** Efforts from the stored streams, or null if none are stored or they cannot be read */
+    private Map<EffortTarget, Double> compute(String activityId) {
+        try {
+            ActivityStreams streams = streamStore.load(activityId);
+            if (streams == null) return null;
+            long started = System.nanoTime();
+            Map<EffortTarget, Double> efforts = BestEffortCalculator.compute(streams);
+            computeTime.recordSince(started);
+            return efforts;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("⚠️ Could not read streams of activity " + activityId + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
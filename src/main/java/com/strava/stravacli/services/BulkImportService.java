@@ -0,0 +1,178 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.importer.ActivitiesCsvReader;
+import com.strava.stravacli.importer.ActivitiesCsvReader.Row;
+import com.strava.stravacli.importer.ActivityFileParser;
+import com.strava.stravacli.importer.TrackData;
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ImportReport;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.store.StreamStore;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Imports a Strava bulk export archive ({@code export_*.zip}) into the same stores the API
+ * sync fills: activities from {@code activities.csv} go to the {@link ActivityStore}, the
+ * tracks of their GPX/TCX/FIT files to the {@link StreamStore}.
+ * <p>
+ * Entries are read straight from the archive through {@link ZipFile}, whose central directory
+ * lets every worker open its own entry, so nothing is extracted to disk. Activity files are
+ * parsed on {@code strava.import-parallelism} workers, each holding one file at a time, which
+ * bounds memory by the worker count rather than the archive size. Files whose streams are
+ * already stored are skipped, so an interrupted import can simply be run again.
+ */
+@Service
+public class BulkImportService {
+    private static final String ACTIVITIES_CSV = "activities.csv";
+    private static final int PROGRESS_EVERY = 1000;
+
+    private final ActivityStore activityStore;
+    private final StreamStore streamStore;
+    private final StravaConfig config;
+    private final MetricsRegistry metrics;
+    private final Counter filesStored;
+    private final Counter filesFailed;
+
+    public BulkImportService(ActivityStore activityStore, StreamStore streamStore, StravaConfig config,
+                             MetricsRegistry metrics) {
+        this.activityStore = activityStore;
+        this.streamStore = streamStore;
+        this.config = config;
+        this.metrics = metrics;
+        this.filesStored = metrics.counter("import_files_total", "result", "stored");
+        this.filesFailed = metrics.counter("import_files_total", "result", "failed");
+    }
+
+    public ImportReport importArchive(Path archive) throws IOException {
+        long started = System.nanoTime();
+        try (ZipFile zip = new ZipFile(archive.toFile(), StandardCharsets.UTF_8)) {
+            ZipEntry csv = zip.getEntry(ACTIVITIES_CSV);
+            if (csv == null) {
+                throw new IOException("Not a Strava export: no " + ACTIVITIES_CSV + " in " + archive);
+            }
+            List<Row> rows;
+            try (Reader reader = new InputStreamReader(zip.getInputStream(csv), StandardCharsets.UTF_8)) {
+                rows = ActivitiesCsvReader.read(reader);
+            }
+
+            List<Row> withFiles = rows.stream()
+                    .filter(row -> row.fileName() != null && ActivityFileParser.isSupported(row.fileName()))
+                    .filter(row -> zip.getEntry(row.fileName()) != null)
+                    .filter(row -> needsSummary(row.activity()) || !streamStore.contains(row.activity().getId()))
+                    .toList();
+            System.out.println("\n📦 Importing " + rows.size() + " activities, reading " + withFiles.size() + " activity files...");
+            int[] outcome = parseFiles(zip, withFiles);
+
+            List<Activity> activities = rows.stream()
+                    .map(Row::activity)
+                    .filter(activity -> activity.getStartDate() != null)
+                    .toList();
+            int added = activityStore.addAll(activities);
+            return new ImportReport(rows.size(), added, withFiles.size(), outcome[0], outcome[1],
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /** @return number of files whose streams were stored, and number of files that could not be read */
+    private int[] parseFiles(ZipFile zip, List<Row> rows) throws IOException {
+        int parallelism = config.getImportParallelism() > 0
+                ? config.getImportParallelism() : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "import-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger done = new AtomicInteger();
+        int stored = 0, failed = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                futures.add(workers.submit(() -> {
+                    boolean ok = importFile(zip, row);
+                    int count = done.incrementAndGet();
+                    if (count % PROGRESS_EVERY == 0) {
+                        System.out.printf("📦 %d/%d activity files%n", count, rows.size());
+                    }
+                    return ok;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                if (future.get()) stored++;
+                else failed++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return new int[] {stored, failed};
+    }
+
+    /** Parses one activity file, stores its streams and fills what the CSV row left out */
+    private boolean importFile(ZipFile zip, Row row) {
+        Activity activity = row.activity();
+        long start = System.nanoTime();
+        try (InputStream in = zip.getInputStream(zip.getEntry(row.fileName()))) {
+            TrackData track = ActivityFileParser.parse(row.fileName(), in);
+            metrics.timer("import_file_parse_seconds", "format", format(row.fileName())).recordSince(start);
+            streamStore.save(activity.getId(), track.streams());
+            fillSummary(activity, track);
+            filesStored.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // one corrupt file should not cost the rest of the archive
+            System.out.println("⚠️ Skipped " + row.fileName() + ": " + e.getMessage());
+            filesFailed.increment();
+            return false;
+        }
+    }
+
+    private static boolean needsSummary(Activity activity) {
+        return activity.getStartDate() == null || activity.getElapsedTime() == 0 || activity.getMovingTime() == 0;
+    }
+
+    private static void fillSummary(Activity activity, TrackData track) {
+        if (track.isEmpty()) return;
+        if (activity.getStartDate() == null) {
+            String start = Instant.ofEpochSecond(track.startEpochSecond()).toString();
+            activity.setStartDate(start);
+            activity.setStartDateLocal(start);
+        }
+        if (activity.getElapsedTime() == 0) activity.setElapsedTime(track.elapsedSeconds());
+        if (activity.getMovingTime() == 0) activity.setMovingTime(track.movingSeconds());
+        if (activity.getDistance() == 0) activity.setDistance(track.distanceMeters());
+        if (activity.getElevationGain() == 0) activity.setElevationGain(track.elevationGainMeters());
+    }
+
+    /** "gpx", "tcx" or "fit", ignoring a trailing ".gz" */
+    private static String format(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.strava.stravacli.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.export.ActivityBinaryFormat;
+import com.strava.stravacli.export.ActivityCsvWriter;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.store.ActivityStore;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Writes the stored activity history as JSON, CSV or the columnar {@link ActivityBinaryFormat} */
+@Service
+public class ExportService {
+
+    public enum Format {
+        JSON, CSV, BINARY;
+
+        /** Format by (case-insensitive) name, or null if there is none */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) return format;
+            }
+            return null;
+        }
+    }
+
+    private final ActivityStore activityStore;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    public ExportService(ActivityStore activityStore) {
+        this.activityStore = activityStore;
+    }
+
+    /** Exports the stored history to a file, replacing it */
+    public void export(Format format, Path target) throws IOException {
+        List<Activity> activities = activityStore.getActivities();
+        switch (format) {
+            case JSON -> {
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    objectMapper.writeValue(out, activities);
+                }
+            }
+            case CSV -> ActivityCsvWriter.write(activities, target);
+            case BINARY -> ActivityBinaryFormat.write(activities, target);
+        }
+    }
+
+    /** Exports the stored history as text (JSON or CSV) to a stream, which is flushed but not closed */
+    public void export(Format format, OutputStream out) throws IOException {
+        List<Activity> activities = activityStore.getActivities();
+        switch (format) {
+            case JSON -> {
+                objectMapper.writeValue(out, activities);
+                out.flush();
+            }
+            case CSV -> ActivityCsvWriter.write(activities,
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024));
+            case BINARY -> throw new IllegalArgumentException("The binary format can only be written to a file");
+        }
+    }
+}
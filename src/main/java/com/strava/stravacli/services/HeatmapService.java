@@ -0,0 +1,223 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.Heatmap;
+import com.strava.stravacli.util.PolylineDecoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Route heatmaps from the activities' summary polylines.
+ * <p>
+ * Two passes over fixed-size chunks of activities, both on the common fork-join pool, each
+ * chunk with its own {@link PolylineDecoder}: the first finds the bounding box of all routes
+ * (Web Mercator preserves the order of latitudes and longitudes, so the box of the decoded
+ * coordinates is the box of the projected ones), the second projects every route onto the
+ * grid of map tiles at the requested zoom and walks each segment cell by cell, counting one
+ * pass per cell entered. If the box would need more than {@value #MAX_CELLS} cells the zoom
+ * is lowered until it fits. Segments longer than {@value #MAX_SEGMENT_CELLS} cells are GPS
+ * gaps, not roads, and only their end points are counted.
+ */
+@Service
+public class HeatmapService {
+    public static final int DEFAULT_ZOOM = 17;
+    public static final int MAX_ZOOM = 22;
+    static final int MAX_CELLS = 1 << 23;
+    private static final int MAX_SEGMENT_CELLS = 1024;
+    private static final int CHUNK_SIZE = 256;
+    private static final int MAX_LATITUDE_E5 = 8_505_112; // Web Mercator's edge
+    /** Latitude step of the projection table; interpolating over 0.01° is exact to far below a cell */
+    private static final int TABLE_STEP_E5 = 1000;
+
+    private final Timer computeTime;
+
+    public HeatmapService(MetricsRegistry metrics) {
+        this.computeTime = metrics.timer("heatmap_compute_seconds");
+    }
+
+    /**
+     * Heatmap of the activities' routes on tiles of {@code zoom} (lowered if needed, see above).
+     * Activities without a polyline are skipped; unreadable polylines are skipped and counted.
+     */
+    public Heatmap heatmap(List<Activity> activities, int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM + ": " + zoom);
+        }
+        long started = System.nanoTime();
+        int chunks = (activities.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        Bounds bounds = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> Bounds.of(activities, chunk * CHUNK_SIZE,
+                        Math.min(activities.size(), (chunk + 1) * CHUNK_SIZE)))
+                .reduce(Bounds::merge)
+                .orElseGet(Bounds::new);
+        if (bounds.activities == 0) {
+            computeTime.recordSince(started);
+            return Heatmap.empty(zoom, bounds.invalid);
+        }
+
+        while (cells(bounds, zoom) > MAX_CELLS) zoom--;
+        Grid grid = new Grid(zoom, bounds);
+        IntStream.range(0, chunks).parallel().forEach(chunk -> grid.add(activities, chunk * CHUNK_SIZE,
+                Math.min(activities.size(), (chunk + 1) * CHUNK_SIZE)));
+
+        int[] counts = new int[grid.width * grid.height];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = grid.counts.get(i);
+        }
+        computeTime.recordSince(started);
+        return new Heatmap(zoom, grid.originX, grid.originY, grid.width, grid.height, counts,
+                bounds.activities, bounds.points, bounds.invalid);
+    }
+
+    private static long cells(Bounds bounds, int zoom) {
+        long width = tile(projectX(bounds.maxLongitude, zoom)) - tile(projectX(bounds.minLongitude, zoom)) + 1;
+        long height = tile(projectY(bounds.minLatitude, zoom)) - tile(projectY(bounds.maxLatitude, zoom)) + 1;
+        return width * height;
+    }
+
+    /** Column, in tiles of {@code zoom} with fraction, of a longitude in degrees × 10⁵ */
+    private static double projectX(int longitudeE5, int zoom) {
+        double x = (longitudeE5 * PolylineDecoder.DEGREES_PER_UNIT + 180) / 360;
+        return Math.min(Math.max(x, 0), Math.nextDown(1.0)) * (1 << zoom);
+    }
+
+    /** Row, in tiles of {@code zoom} with fraction (north is 0), of a latitude in degrees × 10⁵ */
+    private static double projectY(int latitudeE5, int zoom) {
+        int clamped = Math.max(-MAX_LATITUDE_E5, Math.min(MAX_LATITUDE_E5, latitudeE5));
+        double sin = Math.sin(Math.toRadians(clamped * PolylineDecoder.DEGREES_PER_UNIT));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return Math.min(Math.max(y, 0), Math.nextDown(1.0)) * (1 << zoom);
+    }
+
+    private static int tile(double projected) {
+        return (int) projected;
+    }
+
+    /** Bounding box of the routes in a range of activities, in degrees × 10⁵; mergeable */
+    private static final class Bounds {
+        int minLatitude = Integer.MAX_VALUE, maxLatitude = Integer.MIN_VALUE;
+        int minLongitude = Integer.MAX_VALUE, maxLongitude = Integer.MIN_VALUE;
+        int activities;
+        long points;
+        int invalid;
+
+        static Bounds of(List<Activity> activities, int from, int to) {
+            Bounds bounds = new Bounds();
+            PolylineDecoder decoder = new PolylineDecoder();
+            for (int i = from; i < to; i++) {
+                int size;
+                try {
+                    size = decoder.decode(activities.get(i).getSummaryPolyline());
+                } catch (IllegalArgumentException e) {
+                    bounds.invalid++;
+                    continue;
+                }
+                if (size == 0) continue;
+                bounds.activities++;
+                bounds.points += size;
+                for (int p = 0; p < size; p++) {
+                    int latitude = decoder.latitudeE5(p), longitude = decoder.longitudeE5(p);
+                    bounds.minLatitude = Math.min(bounds.minLatitude, latitude);
+                    bounds.maxLatitude = Math.max(bounds.maxLatitude, latitude);
+                    bounds.minLongitude = Math.min(bounds.minLongitude, longitude);
+                    bounds.maxLongitude = Math.max(bounds.maxLongitude, longitude);
+                }
+            }
+            return bounds;
+        }
+
+        Bounds merge(Bounds other) {
+            minLatitude = Math.min(minLatitude, other.minLatitude);
+            maxLatitude = Math.max(maxLatitude, other.maxLatitude);
+            minLongitude = Math.min(minLongitude, other.minLongitude);
+            maxLongitude = Math.max(maxLongitude, other.maxLongitude);
+            activities += other.activities;
+            points += other.points;
+            invalid += other.invalid;
+            return this;
+        }
+    }
+
+    /**
+     * Shared count grid over the bounding box; chunks add to it concurrently. Rows are found
+     * by interpolating a table of projected latitudes instead of a logarithm per point.
+     */
+    private static final class Grid {
+        final int zoom, originX, originY, width, height;
+        final AtomicIntegerArray counts;
+        final int tableBase;
+        final double[] rowTable;
+
+        Grid(int zoom, Bounds bounds) {
+            this.zoom = zoom;
+            this.originX = tile(projectX(bounds.minLongitude, zoom));
+            this.originY = tile(projectY(bounds.maxLatitude, zoom));
+            this.width = tile(projectX(bounds.maxLongitude, zoom)) - originX + 1;
+            this.height = tile(projectY(bounds.minLatitude, zoom)) - originY + 1;
+            this.counts = new AtomicIntegerArray(width * height);
+            this.tableBase = bounds.minLatitude;
+            this.rowTable = new double[(bounds.maxLatitude - bounds.minLatitude) / TABLE_STEP_E5 + 2];
+            for (int i = 0; i < rowTable.length; i++) {
+                rowTable[i] = projectY(tableBase + i * TABLE_STEP_E5, zoom) - originY;
+            }
+        }
+
+        private double row(int latitudeE5) {
+            int offset = latitudeE5 - tableBase;
+            int index = offset / TABLE_STEP_E5;
+            double fraction = (offset - index * TABLE_STEP_E5) / (double) TABLE_STEP_E5;
+            return rowTable[index] + (rowTable[index + 1] - rowTable[index]) * fraction;
+        }
+
+        void add(List<Activity> activities, int from, int to) {
+            PolylineDecoder decoder = new PolylineDecoder();
+            for (int i = from; i < to; i++) {
+                int size;
+                try {
+                    size = decoder.decode(activities.get(i).getSummaryPolyline());
+                } catch (IllegalArgumentException e) {
+                    continue; // counted by Bounds
+                }
+                if (size > 0) addRoute(decoder, size);
+            }
+        }
+
+        private void addRoute(PolylineDecoder route, int size) {
+            double x = projectX(route.longitudeE5(0), zoom) - originX;
+            double y = row(route.latitudeE5(0));
+            int cell = visit(x, y, -1);
+            for (int p = 1; p < size; p++) {
+                double nextX = projectX(route.longitudeE5(p), zoom) - originX;
+                double nextY = row(route.latitudeE5(p));
+                double dx = nextX - x, dy = nextY - y;
+                double span = Math.max(Math.abs(dx), Math.abs(dy));
+                if (span > MAX_SEGMENT_CELLS) {
+                    cell = visit(nextX, nextY, -1);
+                } else {
+                    int steps = Math.max(1, (int) Math.ceil(span));
+                    for (int step = 1; step <= steps; step++) {
+                        double t = step / (double) steps;
+                        cell = visit(x + dx * t, y + dy * t, cell);
+                    }
+                }
+                x = nextX;
+                y = nextY;
+            }
+        }
+
+        /** Counts the cell under the point unless it is {@code previous}; returns the cell */
+        private int visit(double x, double y, int previous) {
+            int column = Math.min(width - 1, Math.max(0, (int) x));
+            int row = Math.min(height - 1, Math.max(0, (int) y));
+            int cell = row * width + column;
+            if (cell != previous) counts.incrementAndGet(cell);
+            return cell;
+        }
+    }
+}
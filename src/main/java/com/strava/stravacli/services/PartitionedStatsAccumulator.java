@@ -0,0 +1,60 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityStatsByType;
+import com.strava.stravacli.model.ActivityType;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass builder for {@link ActivityStatsByType}: every activity is parsed once and
+ * fed both to the overall accumulator and to the one for its {@link ActivityType}.
+ * Like {@link ActivityStatsAccumulator}, partial results over disjoint chunks can be merged.
+ */
+public class PartitionedStatsAccumulator {
+
+    private final ActivityStatsAccumulator overall = new ActivityStatsAccumulator();
+    private final Map<ActivityType, ActivityStatsAccumulator> byType = new EnumMap<>(ActivityType.class);
+
+    /** Accumulates {@code activities[from, to)} */
+    public static PartitionedStatsAccumulator of(List<Activity> activities, int from, int to) {
+        PartitionedStatsAccumulator accumulator = new PartitionedStatsAccumulator();
+        for (int i = from; i < to; i++) {
+            accumulator.accept(activities.get(i));
+        }
+        return accumulator;
+    }
+
+    public void accept(Activity activity) {
+        LocalDate date = activity.getStartLocalDate();
+        long epochDay = date.toEpochDay();
+        int isoWeek = date.get(WeekFields.ISO.weekOfWeekBasedYear());
+
+        ActivityType type = activity.getActivityType();
+        overall.add(activity.getDistance(), activity.getMovingTime(), activity.getElevationGain(),
+                type, activity.getType(), epochDay, isoWeek);
+        byType.computeIfAbsent(type.category(), category -> new ActivityStatsAccumulator())
+                .add(activity.getDistance(), activity.getMovingTime(), activity.getElevationGain(),
+                        type, activity.getType(), epochDay, isoWeek);
+    }
+
+    /** Folds another accumulator into this one and returns this */
+    public PartitionedStatsAccumulator merge(PartitionedStatsAccumulator other) {
+        overall.merge(other.overall);
+        other.byType.forEach((type, accumulator) ->
+                byType.computeIfAbsent(type, t -> new ActivityStatsAccumulator()).merge(accumulator));
+        return this;
+    }
+
+    public ActivityStatsByType toStats() {
+        Map<ActivityType, ActivityStats> stats = new EnumMap<>(ActivityType.class);
+        byType.forEach((type, accumulator) -> stats.put(type, accumulator.toStats()));
+        return new ActivityStatsByType(overall.toStats(), Collections.unmodifiableMap(stats));
+    }
+}
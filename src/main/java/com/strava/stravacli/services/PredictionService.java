@@ -1,75 +1,73 @@
 package com.strava.stravacli.services;
 
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
 import com.strava.stravacli.model.Activity;
 import com.strava.stravacli.model.ActivityPrediction;
-import com.strava.stravacli.util.ActivityWrapper;
-import org.apache.commons.math3.stat.regression.SimpleRegression;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.store.ActivityStore;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class PredictionService {
 
+    private WeeklyTrendModel storeModel = new WeeklyTrendModel();
+    private int storeActivitiesSeen;
+    private long storeGeneration = -1;
+    private final Timer predictionTime;
+
+    public PredictionService(MetricsRegistry metrics) {
+        this.predictionTime = metrics.timer("prediction_compute_seconds");
+    }
+
     public ActivityPrediction getPredictions(List<Activity> activities) {
-        return new ActivityPrediction(
-                distanceGrowthPerWeek(activities),
-                averageSpeedTrendKmh(activities),
-                predictedNextWeekDistanceKm(activities)
-        );
+        return predictionTime.record(() -> WeeklyTrendModel.of(activities).predictions());
     }
 
-    /** Distance growth per week (slope of weekly distance trend) */
-    public double distanceGrowthPerWeek(List<Activity> activities) {
-        Map<Integer, Double> weekDistance = activities.stream()
-                .map(ActivityWrapper::new)
-                .collect(Collectors.groupingBy(
-                        ActivityWrapper::getWeekNumber,
-                        Collectors.summingDouble(aw -> aw.getActivity().getDistance() / 1000.0)
-                ));
+    /**
+     * Computes the same predictions from a columnar activity table.
+     */
+    public ActivityPrediction getPredictions(ActivityTable table) {
+        return predictionTime.record(() -> WeeklyTrendModel.of(table).predictions());
+    }
+
+    /**
+     * Predictions over the local activity store, updated incrementally.
+     * Only activities appended since the previous call are folded into the model;
+     * the model is rebuilt only when the store history was rewritten. The new activities
+     * are copied under the store's lock, so a concurrent sync cannot change them mid-way.
+     */
+    public synchronized ActivityPrediction getPredictions(ActivityStore store) {
+        long started = System.nanoTime();
+        ActivityStore.Tail tail = store.tail(storeGeneration, storeActivitiesSeen);
 
-        SimpleRegression regression = new SimpleRegression();
-        weekDistance.forEach(regression::addData);
+        if (tail.generation() != storeGeneration || tail.from() != storeActivitiesSeen) {
+            storeModel = new WeeklyTrendModel();
+            storeGeneration = tail.generation();
+        }
 
-        return regression.getSlope(); // km/week
+        tail.activities().forEach(storeModel::add);
+        storeActivitiesSeen = tail.from() + tail.activities().size();
+
+        ActivityPrediction predictions = storeModel.predictions();
+        predictionTime.recordSince(started);
+        return predictions;
+    }
+
+    /** Distance growth per week (slope of weekly distance trend) */
+    public double distanceGrowthPerWeek(List<Activity> activities) {
+        return WeeklyTrendModel.of(activities).distanceGrowthPerWeek(); // km/week
     }
 
     /** Average speed trend per week (slope of weekly average speed) */
     public double averageSpeedTrendKmh(List<Activity> activities) {
-        Map<Integer, Double> weekAvgSpeed = activities.stream()
-                .map(ActivityWrapper::new)
-                .collect(Collectors.groupingBy(
-                        ActivityWrapper::getWeekNumber,
-                        Collectors.averagingDouble(aw -> {
-                            double hours = aw.getActivity().getMovingTime() / 3600.0;
-                            return hours == 0 ? 0.0 : (aw.getActivity().getDistance() / 1000.0) / hours;
-                        })
-                ));
-
-        SimpleRegression regression = new SimpleRegression();
-        weekAvgSpeed.forEach(regression::addData);
-
-        return regression.getSlope(); // km/h per week
+        return WeeklyTrendModel.of(activities).speedTrendPerWeek(); // km/h per week
     }
 
     /** Predicts next week's total distance (km) based on weekly trend */
     public double predictedNextWeekDistanceKm(List<Activity> activities) {
-        Map<Integer, Double> weekDistance = activities.stream()
-                .map(ActivityWrapper::new)
-                .collect(Collectors.groupingBy(
-                        ActivityWrapper::getWeekNumber,
-                        Collectors.summingDouble(aw -> aw.getActivity().getDistance() / 1000.0)
-                ));
-
-        if (weekDistance.isEmpty()) return 0.0;
-
-        SimpleRegression regression = new SimpleRegression();
-        weekDistance.forEach(regression::addData);
-
-        int lastWeek = Collections.max(weekDistance.keySet());
-        return regression.predict(lastWeek + 1); // km for next week
+        return WeeklyTrendModel.of(activities).predictedNextWeekDistanceKm(); // km for next week
     }
 }
@@ -1,37 +1,88 @@
 package com.strava.stravacli.services;
 
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
 import com.strava.stravacli.model.Activity;
 import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityStatsByType;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.model.ActivityTimeline;
+import com.strava.stravacli.model.Percentiles;
 import com.strava.stravacli.util.ActivityWrapper;
+import com.strava.stravacli.util.QuantileSketch;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.WeekFields;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class StatisticsService {
+    static final int CHUNK_SIZE = 8192;
+    public static final int PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+
+    private final Timer statisticsTime;
+    private final Timer statisticsByTypeTime;
+
+    public StatisticsService(MetricsRegistry metrics) {
+        this.statisticsTime = metrics.timer("statistics_compute_seconds", "operation", "statistics");
+        this.statisticsByTypeTime = metrics.timer("statistics_compute_seconds", "operation", "by_type");
+    }
+
+    /**
+     * Computes every statistic in a single pass over the activities.
+     * Results are identical to calling the individual metric methods below.
+     */
     public ActivityStats getStatistics(List<Activity> activities) {
-        return new ActivityStats(
-                totalActivities(activities),
-                totalDistanceKm(activities),
-                averageDistanceKm(activities),
-                longestDistanceKm(activities),
-                totalMovingTime(activities),
-                averageSpeedKmh(activities),
-                totalElevationGain(activities),
-                mostFrequentActivityType(activities),
-                medianDistanceKm(activities),
-                bestWeekNumber(activities),
-                bestWeekDistance(activities),
-                longestStreakDays(activities),
-                elevationPerKm(activities),
-                averagePacePerKm(activities)
-        );
+        return statisticsTime.record(() -> ActivityStatsAccumulator.of(activities).toStats());
+    }
+
+    /**
+     * Computes every statistic from a columnar activity table.
+     */
+    public ActivityStats getStatistics(ActivityTable table) {
+        return statisticsTime.record(() -> ActivityStatsAccumulator.of(table).toStats());
+    }
+
+    /**
+     * Computes full statistics for the whole history and for each activity type in one pass.
+     * <p>
+     * The input is always cut into the same fixed-size chunks, and chunk results are merged
+     * in order. From {@value #PARALLEL_THRESHOLD} activities on (and with more than one CPU),
+     * the chunks are accumulated concurrently on the common fork-join pool. Because chunking and merge order do not depend
+     * on the mode, the parallel result is identical to the sequential one.
+     */
+    public ActivityStatsByType getStatisticsByType(List<Activity> activities) {
+        boolean parallel = activities.size() >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1;
+        return getStatisticsByType(activities, parallel);
+    }
+
+    /** As {@link #getStatisticsByType(List)}, with the execution mode chosen explicitly */
+    public ActivityStatsByType getStatisticsByType(List<Activity> activities, boolean parallel) {
+        long started = System.nanoTime();
+        int chunks = (activities.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream indices = IntStream.range(0, chunks);
+        List<PartitionedStatsAccumulator> partials = (parallel ? indices.parallel() : indices)
+                .mapToObj(chunk -> PartitionedStatsAccumulator.of(activities,
+                        chunk * CHUNK_SIZE, Math.min(activities.size(), (chunk + 1) * CHUNK_SIZE)))
+                .toList();
+
+        PartitionedStatsAccumulator result = new PartitionedStatsAccumulator();
+        partials.forEach(result::merge);
+        ActivityStatsByType stats = result.toStats();
+        statisticsByTypeTime.recordSince(started);
+        return stats;
+    }
+
+    /**
+     * Computes every statistic for the activities between {@code from} and {@code to}
+     * (inclusive), located by binary search on the timeline's date index.
+     */
+    public ActivityStats getStatistics(ActivityTimeline timeline, LocalDate from, LocalDate to) {
+        return getStatistics(timeline.between(from, to));
     }
 
     private List<ActivityWrapper> wrap(List<Activity> activities) {
@@ -117,21 +168,19 @@ public class StatisticsService {
 
     /**
      * Computes the median distance across all activities (robust central tendency).
+     * Exact for up to {@value QuantileSketch#DEFAULT_EXACT_LIMIT} activities, a sketch estimate beyond that.
      */
     public double medianDistanceKm(List<Activity> activities) {
-        double[] distances = activities.stream()
-                .mapToDouble(Activity::getDistance)
-                .sorted()
-                .toArray();
-        int n = distances.length;
-        if (n == 0) return 0.0;
-        double median;
-        if (n % 2 == 1) {
-            median = distances[n / 2];
-        } else {
-            median = (distances[(n / 2) - 1] + distances[n / 2]) / 2.0;
-        }
-        return median / 1000.0;
+        return distancePercentilesKm(activities).p50();
+    }
+
+    /**
+     * Computes the 10th/50th/90th/99th percentile distance in kilometers.
+     */
+    public Percentiles distancePercentilesKm(List<Activity> activities) {
+        QuantileSketch sketch = new QuantileSketch();
+        activities.forEach(activity -> sketch.add(activity.getDistance()));
+        return ActivityStatsAccumulator.percentiles(sketch, 1000);
     }
 
     /**
@@ -146,10 +195,7 @@ public class StatisticsService {
         Map<Integer, Double> weekDistance = activities.stream()
                 .collect(Collectors.groupingBy(
                         activity -> {
-                            LocalDate date = LocalDateTime.parse(
-                                    activity.getStartDateLocal(),
-                                    DateTimeFormatter.ISO_DATE_TIME
-                            ).toLocalDate();
+                            LocalDate date = activity.getStartLocalDate();
                             return date.get(WeekFields.ISO.weekOfWeekBasedYear());
                         },
                         Collectors.summingDouble(activity -> activity.getDistance() / 1000.0)
@@ -171,10 +217,7 @@ public class StatisticsService {
         Map<Integer, Double> weekDistance = activities.stream()
                 .collect(Collectors.groupingBy(
                         activity -> {
-                            LocalDate date = LocalDateTime.parse(
-                                    activity.getStartDateLocal(),
-                                    DateTimeFormatter.ISO_DATE_TIME
-                            ).toLocalDate();
+                            LocalDate date = activity.getStartLocalDate();
                             return date.get(WeekFields.ISO.weekOfWeekBasedYear());
                         },
                         Collectors.summingDouble(activity -> activity.getDistance() / 1000.0)
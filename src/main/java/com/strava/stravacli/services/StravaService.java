@@ -1,36 +1,160 @@
 package com.strava.stravacli.services;
 
 import com.strava.stravacli.client.StravaClient;
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.Gauge;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.metrics.Timer;
 import com.strava.stravacli.model.Activity;
-import com.strava.stravacli.token.TokenData;
-import com.strava.stravacli.token.TokenManager;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.token.AccessTokenProvider;
+import com.strava.stravacli.util.TtlCache;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class StravaService {
     private final StravaClient client;
-    private final TokenManager tokenManager;
+    private final AccessTokenProvider tokenProvider;
+    private final ActivityStore store;
+    private final TtlCache<CompletableFuture<List<Activity>>> cache;
+    private final Timer syncTime;
+    private final Counter syncedActivities;
+    private final Gauge syncThroughput;
 
-    public StravaService(StravaClient client, TokenManager tokenManager) {
+    public StravaService(StravaClient client, AccessTokenProvider tokenProvider, ActivityStore store, StravaConfig config,
+                         MetricsRegistry metrics) {
         this.client = client;
-        this.tokenManager = tokenManager;
+        this.tokenProvider = tokenProvider;
+        this.store = store;
+        this.cache = new TtlCache<>(Duration.ofSeconds(config.getCacheTtlSeconds()),
+                metrics.counter("cache_requests_total", "cache", "activities", "result", "hit"),
+                metrics.counter("cache_requests_total", "cache", "activities", "result", "miss"));
+        this.syncTime = metrics.timer("strava_sync_seconds");
+        this.syncedActivities = metrics.counter("strava_sync_activities_total");
+        this.syncThroughput = metrics.gauge("strava_sync_activities_per_second");
     }
 
+    /**
+     * Returns the full stored history. The store is synced at most once per cache TTL;
+     * within the TTL no request is made at all.
+     */
     public List<Activity> getActivities() {
-        TokenData tokenData = tokenManager.loadToken();
+        return join(getActivitiesAsync());
+    }
 
-        if (tokenData == null) {
-            System.out.println("No token found");
-            return Collections.emptyList();
-        };
+    /**
+     * Asynchronous {@link #getActivities()}. Callers within the TTL share one future, so a
+     * prefetch that is still running is awaited rather than repeated. A failed load is not
+     * kept: the next call starts a new one.
+     */
+    public CompletableFuture<List<Activity>> getActivitiesAsync() {
+        return getActivitiesAsync(System.out);
+    }
 
-        if (tokenManager.isExpired(tokenData)) {
-            tokenData = tokenManager.refreshToken(tokenData);
+    /**
+     * As {@link #getActivitiesAsync()}, with the progress and errors of a sync it starts printed
+     * to {@code out}, e.g. a buffer while the menu is waiting for input.
+     */
+    public CompletableFuture<List<Activity>> getActivitiesAsync(PrintStream out) {
+        CompletableFuture<List<Activity>> activities = cache.get(() -> loadActivities(out));
+        if (activities.isCompletedExceptionally()) {
+            cache.invalidate();
+            activities = cache.get(() -> loadActivities(out));
         }
+        return activities;
+    }
+
+    private CompletableFuture<List<Activity>> loadActivities(PrintStream out) {
+        return syncAsync(out).thenApply(added -> store.getActivities());
+    }
+
+    /** Forces the next {@link #getActivities()} to sync, unconditionally */
+    public void invalidateCache() {
+        cache.invalidate();
+        client.clearValidators();
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
 
-        return client.fetchRecentActivities(tokenData.getAccessToken());
+    /** Incremental syncs that the server answered with 304 Not Modified */
+    public long getNotModifiedCount() {
+        return client.getNotModifiedCount();
+    }
+
+    /**
+     * Brings the local store up to date. An empty store triggers a full history download;
+     * otherwise only activities newer than the latest stored start date are requested.
+     *
+     * Nothing is stored unless the fetch completed, so a failed full download never
+     * leaves a partial history behind.
+     *
+     * @return number of activities added to the store, or -1 if there is no token or the fetch failed
+     */
+    public int sync() {
+        return join(syncAsync());
+    }
+
+    /** Asynchronous {@link #sync()}; the fetch runs on the client's background threads */
+    public CompletableFuture<Integer> syncAsync() {
+        return syncAsync(System.out);
+    }
+
+    /** As {@link #syncAsync()}, printing progress and errors to {@code out} */
+    public CompletableFuture<Integer> syncAsync(PrintStream out) {
+        return tokenProvider.getAccessTokenAsync().thenCompose(accessToken -> {
+            if (accessToken == null) {
+                out.println("No token found");
+                return CompletableFuture.completedFuture(-1);
+            }
+
+            long started = System.nanoTime();
+            List<Activity> fetched = new ArrayList<>();
+            Map<String, StravaClient.PageValidator> validators = new ConcurrentHashMap<>();
+            CompletableFuture<Boolean> fetch = store.isEmpty()
+                    ? client.fetchAllActivitiesAsync(accessToken, fetched::add, out)
+                    : client.fetchActivitiesAfterAsync(accessToken, store.latestStartEpochSecond(), fetched::add, out,
+                            validators);
+            return fetch.thenApply(complete -> {
+                int added = complete ? store.addAll(fetched) : -1;
+                // a validator stands for a stored page: never keep one for a fetch that was dropped
+                if (complete) {
+                    client.commitValidators(validators);
+                } else {
+                    client.clearValidators(accessToken);
+                }
+
+                long elapsed = System.nanoTime() - started;
+                syncTime.record(elapsed);
+                syncedActivities.increment(fetched.size());
+                syncThroughput.set(fetched.size() / Math.max(elapsed / 1e9, 1e-9));
+                return added;
+            });
+        });
+    }
+
+    /** Waits for the future, rethrowing a runtime failure as itself rather than wrapped */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
     }
 }
@@ -0,0 +1,76 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.client.StravaClient;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.store.StreamStore;
+import com.strava.stravacli.token.AccessTokenProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+
+/** Downloads per-second streams for stored activities that the {@link StreamStore} does not have yet */
+@Service
+public class StreamSyncService {
+    private final StravaClient client;
+    private final AccessTokenProvider tokenProvider;
+    private final StreamStore streamStore;
+
+    public StreamSyncService(StravaClient client, AccessTokenProvider tokenProvider, StreamStore streamStore) {
+        this.client = client;
+        this.tokenProvider = tokenProvider;
+        this.streamStore = streamStore;
+    }
+
+    /**
+     * Fetches and stores the streams of every activity that has none stored.
+     *
+     * @return number of activities whose streams were stored, or -1 if there is no token, storing
+     *         failed or the download stopped early on an error
+     */
+    public int syncStreams(Collection<Activity> activities) {
+        List<String> missing = activities.stream()
+                .map(Activity::getId)
+                .filter(id -> id != null && !streamStore.contains(id))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) return 0;
+
+        String accessToken = tokenProvider.getAccessToken();
+        if (accessToken == null) {
+            System.out.println("No token found");
+            return -1;
+        }
+
+        System.out.println("\n🔄 Fetching streams for " + missing.size() + " activities...");
+        try {
+            int stored = client.fetchStreams(accessToken, missing, this::save);
+            if (stored < missing.size()) {
+                System.out.println("⚠️ Stored streams for " + stored + " of " + missing.size()
+                        + " activities; run again to fetch the rest.");
+                return -1;
+            }
+            System.out.println("✅ Stored streams for " + stored + " activities.");
+            return stored;
+        } catch (UncheckedIOException e) {
+            System.out.println("⚠️ " + e.getMessage() + ": " + e.getCause().getMessage());
+            return -1;
+        }
+    }
+
+    /** Memory-mapped streams of one activity, or null if they have not been downloaded */
+    public ActivityStreams getStreams(String activityId) throws IOException {
+        return streamStore.load(activityId);
+    }
+
+    private void save(String activityId, ActivityStreams streams) {
+        try {
+            streamStore.save(activityId, streams);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store streams of activity " + activityId, e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityTimeline;
+import com.strava.stravacli.model.TrainingLoad;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sliding-window aggregates over an {@link ActivityTimeline}.
+ * Activities are bucketed into daily totals once, and every window is then read from
+ * prefix sums, so a whole series of overlapping windows costs O(n + days) rather than
+ * one rescan per window.
+ */
+@Service
+public class TrainingLoadService {
+    public static final int ACUTE_DAYS = 7;
+    public static final int CHRONIC_DAYS = 28;
+    private static final int LONGEST_WINDOW_DAYS = 42;
+
+    /** Rolling volume and load for the windows ending on {@code asOf} */
+    public TrainingLoad trainingLoad(ActivityTimeline timeline, LocalDate asOf) {
+        return series(timeline, asOf, asOf).get(0);
+    }
+
+    /** One {@link TrainingLoad} per day from {@code from} to {@code to}, both inclusive */
+    public List<TrainingLoad> series(ActivityTimeline timeline, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return List.of();
+
+        DailyTotals totals = DailyTotals.of(timeline, from.minusDays(LONGEST_WINDOW_DAYS - 1), to);
+        List<TrainingLoad> series = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int day = totals.index(date);
+            double acute = totals.loadMinutes(day, ACUTE_DAYS) / ACUTE_DAYS;
+            double chronic = totals.loadMinutes(day, CHRONIC_DAYS) / CHRONIC_DAYS;
+            series.add(new TrainingLoad(
+                    date,
+                    totals.distanceKm(day, 7),
+                    totals.distanceKm(day, 28),
+                    totals.distanceKm(day, 42),
+                    acute,
+                    chronic,
+                    chronic == 0 ? 0.0 : acute / chronic
+            ));
+        }
+        return series;
+    }
+
+    /** Total distance (km) of the {@code windowDays} days ending on each day from {@code from} to {@code to} */
+    public double[] rollingDistanceKm(ActivityTimeline timeline, LocalDate from, LocalDate to, int windowDays) {
+        if (windowDays < 1) throw new IllegalArgumentException("Window must be at least one day: " + windowDays);
+        if (to.isBefore(from)) return new double[0];
+
+        DailyTotals totals = DailyTotals.of(timeline, from.minusDays(windowDays - 1L), to);
+        double[] rolling = new double[(int) (to.toEpochDay() - from.toEpochDay() + 1)];
+        int first = totals.index(from);
+        for (int i = 0; i < rolling.length; i++) {
+            rolling[i] = totals.distanceKm(first + i, windowDays);
+        }
+        return rolling;
+    }
+
+    /** Prefix sums of per-day distance and moving time over a contiguous range of days */
+    private static final class DailyTotals {
+        private final long firstEpochDay;
+        private final double[] distanceKm;  // distanceKm[i] = total of days [0, i)
+        private final double[] loadMinutes;
+
+        private DailyTotals(long firstEpochDay, int days) {
+            this.firstEpochDay = firstEpochDay;
+            this.distanceKm = new double[days + 1];
+            this.loadMinutes = new double[days + 1];
+        }
+
+        static DailyTotals of(ActivityTimeline timeline, LocalDate from, LocalDate to) {
+            int days = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+            DailyTotals totals = new DailyTotals(from.toEpochDay(), days);
+
+            int start = timeline.indexOf(from.toEpochDay());
+            int end = timeline.indexOf(to.toEpochDay() + 1);
+            for (int i = start; i < end; i++) {
+                Activity activity = timeline.get(i);
+                int day = (int) (timeline.epochDay(i) - totals.firstEpochDay) + 1;
+                totals.distanceKm[day] += activity.getDistance() / 1000.0;
+                totals.loadMinutes[day] += activity.getMovingTime() / 60.0;
+            }
+            for (int day = 1; day <= days; day++) {
+                totals.distanceKm[day] += totals.distanceKm[day - 1];
+                totals.loadMinutes[day] += totals.loadMinutes[day - 1];
+            }
+            return totals;
+        }
+
+        int index(LocalDate date) {
+            return (int) (date.toEpochDay() - firstEpochDay);
+        }
+
+        double distanceKm(int day, int windowDays) {
+            return window(distanceKm, day, windowDays);
+        }
+
+        double loadMinutes(int day, int windowDays) {
+            return window(loadMinutes, day, windowDays);
+        }
+
+        private static double window(double[] prefix, int day, int windowDays) {
+            return prefix[day + 1] - prefix[Math.max(0, day + 1 - windowDays)];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityPrediction;
+import com.strava.stravacli.model.ActivityTable;
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Weekly buckets of distance and speed with regressions over them, kept up to date
+ * as activities arrive. Weeks are keyed by absolute Monday-based epoch week, so
+ * activities from different years never share a bucket.
+ * Adding an activity only updates its week's bucket; the regressions are refit from the
+ * buckets (one point per week, a few hundred at most) the next time they are read. Removing
+ * and re-adding points instead would let rounding errors pile up over many updates.
+ */
+public class WeeklyTrendModel {
+
+    private final Map<Long, Week> weeks = new TreeMap<>();
+    private final SimpleRegression distanceRegression = new SimpleRegression();
+    private final SimpleRegression speedRegression = new SimpleRegression();
+    private boolean fitted = true;
+    private long lastWeek = Long.MIN_VALUE;
+
+    private static final class Week {
+        double distanceKm;
+        double speedSumKmh;
+        int count;
+
+        double averageSpeedKmh() {
+            return speedSumKmh / count;
+        }
+    }
+
+    public static WeeklyTrendModel of(List<Activity> activities) {
+        WeeklyTrendModel model = new WeeklyTrendModel();
+        activities.forEach(model::add);
+        return model;
+    }
+
+    public static WeeklyTrendModel of(ActivityTable table) {
+        WeeklyTrendModel model = new WeeklyTrendModel();
+        for (int row = 0; row < table.size(); row++) {
+            model.add(table.epochDay(row), table.distance(row), table.movingTime(row));
+        }
+        return model;
+    }
+
+    /** Monday-based week number counted from the epoch (1970-01-01 was a Thursday) */
+    public static long epochWeek(long epochDay) {
+        return Math.floorDiv(epochDay + 3, 7);
+    }
+
+    public void add(Activity activity) {
+        long epochDay = activity.getStartLocalDate().toEpochDay();
+        add(epochDay, activity.getDistance(), activity.getMovingTime());
+    }
+
+    public void add(long epochDay, double distanceMeters, long movingTimeSeconds) {
+        long week = epochWeek(epochDay);
+        double km = distanceMeters / 1000.0;
+        double hours = movingTimeSeconds / 3600.0;
+
+        Week bucket = weeks.computeIfAbsent(week, w -> new Week());
+        bucket.distanceKm += km;
+        bucket.speedSumKmh += hours == 0 ? 0.0 : km / hours;
+        bucket.count++;
+        lastWeek = Math.max(lastWeek, week);
+        fitted = false;
+    }
+
+    /** Refits both regressions from the weekly buckets if anything changed since the last fit */
+    private void fit() {
+        if (fitted) return;
+        distanceRegression.clear();
+        speedRegression.clear();
+        weeks.forEach((week, bucket) -> {
+            distanceRegression.addData(week, bucket.distanceKm);
+            speedRegression.addData(week, bucket.averageSpeedKmh());
+        });
+        fitted = true;
+    }
+
+    /** Slope of weekly distance (km/week) */
+    public double distanceGrowthPerWeek() {
+        fit();
+        return distanceRegression.getSlope();
+    }
+
+    /** Slope of weekly average speed (km/h per week) */
+    public double speedTrendPerWeek() {
+        fit();
+        return speedRegression.getSlope();
+    }
+
+    /** Predicted total distance (km) for the week after the latest recorded week */
+    public double predictedNextWeekDistanceKm() {
+        fit();
+        return weeks.isEmpty() ? 0.0 : distanceRegression.predict(lastWeek + 1);
+    }
+
+    public ActivityPrediction predictions() {
+        return new ActivityPrediction(
+                distanceGrowthPerWeek(),
+                speedTrendPerWeek(),
+                predictedNextWeekDistanceKm()
+        );
+    }
+}
@@ -0,0 +1,213 @@
+package com.strava.stravacli.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.export.ActivityBinaryFormat;
+import com.strava.stravacli.model.Activity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local on-disk copy of the athlete's activity history, kept next to the token file.
+ * Activities are held in start-date order so the newest one marks where the next
+ * incremental sync should resume.
+ * <p>
+ * The JSON file is the source of truth. Every save also writes a columnar snapshot
+ * ({@link ActivityBinaryFormat}, same name with a {@code .bin} extension) that loads without
+ * JSON parsing; it is used on startup unless the JSON file is newer.
+ */
+@Service
+public class ActivityStore {
+
+    private static final String STORE_FILE = ".strava_activities.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path path;
+    private final Path snapshot;
+
+    // start_date is always "yyyy-MM-ddTHH:mm:ssZ", so lexical order is chronological
+    private static final Comparator<Activity> START_DATE_ORDER =
+            Comparator.comparing(Activity::getStartDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private List<Activity> activities;
+    private Set<String> ids;
+    private long generation;
+
+    public ActivityStore() {
+        this(Paths.get(STORE_FILE));
+    }
+
+    public ActivityStore(Path path) {
+        this.path = path;
+        String name = path.getFileName().toString();
+        this.snapshot = path.resolveSibling((name.endsWith(".json") ? name.substring(0, name.length() - 5) : name) + ".bin");
+    }
+
+    /** All stored activities, oldest first */
+    public synchronized List<Activity> getActivities() {
+        ensureLoaded();
+        return Collections.unmodifiableList(activities);
+    }
+
+    public synchronized boolean isEmpty() {
+        ensureLoaded();
+        return activities.isEmpty();
+    }
+
+    /** Start time (epoch seconds, UTC) of the newest stored activity, or 0 if the store is empty */
+    public synchronized long latestStartEpochSecond() {
+        ensureLoaded();
+        for (int i = activities.size() - 1; i >= 0; i--) {
+            long start = startEpochSecond(activities.get(i));
+            if (start > 0) return start;
+        }
+        return 0;
+    }
+
+    /**
+     * Adds activities that are not stored yet and persists the store.
+     * Activities newer than everything stored are appended; anything older causes a
+     * re-sort and bumps the {@link #generation() generation}.
+     *
+     * @return number of activities actually added
+     */
+    public synchronized int addAll(Collection<Activity> newActivities) {
+        ensureLoaded();
+        List<Activity> added = new ArrayList<>();
+        for (Activity activity : newActivities) {
+            if (activity.getId() == null || ids.add(activity.getId())) {
+                added.add(activity);
+            }
+        }
+        if (added.isEmpty()) return 0;
+
+        added.sort(START_DATE_ORDER);
+        boolean append = activities.isEmpty()
+                || START_DATE_ORDER.compare(activities.get(activities.size() - 1), added.get(0)) <= 0;
+        activities.addAll(added);
+        if (!append) {
+            activities.sort(START_DATE_ORDER);
+            generation++;
+        }
+        save();
+        return added.size();
+    }
+
+    /** Activities from {@code from} on, copied under the store's lock, and the generation they belong to */
+    public record Tail(long generation, int from, List<Activity> activities) {}
+
+    /**
+     * The activities a consumer that has read {@code seen} activities of generation
+     * {@code generation} has not read yet; everything (from 0) if the history has been
+     * rewritten since. The list is a copy, safe to iterate while the store keeps changing.
+     */
+    public synchronized Tail tail(long generation, int seen) {
+        ensureLoaded();
+        int from = generation == this.generation && seen <= activities.size() ? seen : 0;
+        return new Tail(this.generation, from, List.copyOf(activities.subList(from, activities.size())));
+    }
+
+    /**
+     * Changes whenever stored history is rewritten rather than appended to, so
+     * incremental consumers know to rebuild instead of reading only the new tail.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /** Delete the stored history */
+    public synchronized void clear() {
+        generation++;
+        activities = new ArrayList<>();
+        ids = new HashSet<>();
+        try {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not delete activity store: " + e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (activities != null) return;
+
+        activities = new ArrayList<>();
+        ids = new HashSet<>();
+        if (isSnapshotCurrent()) {
+            try {
+                activities.addAll(ActivityBinaryFormat.read(snapshot));
+                activities.forEach(activity -> ids.add(activity.getId()));
+                return;
+            } catch (IOException e) {
+                activities.clear();
+                ids.clear();
+            }
+        }
+        if (Files.exists(path)) {
+            try {
+                activities.addAll(objectMapper.readValue(path.toFile(), new TypeReference<List<Activity>>() {}));
+                activities.forEach(activity -> ids.add(activity.getId()));
+                writeSnapshot();
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not read activity store: " + e.getMessage());
+            }
+        }
+    }
+
+    private void save() {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), activities);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not save activity store: " + e.getMessage());
+            return;
+        }
+        writeSnapshot();
+    }
+
+    private void writeSnapshot() {
+        try {
+            ActivityBinaryFormat.write(activities, snapshot);
+        } catch (IOException e) {
+            // without a current snapshot the next start simply reads the JSON file
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /** True if the snapshot exists and was written no earlier than the JSON file */
+    private boolean isSnapshotCurrent() {
+        try {
+            return Files.exists(path) && Files.exists(snapshot)
+                    && Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(path)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long startEpochSecond(Activity activity) {
+        if (activity.getStartDate() == null) return 0;
+        try {
+            return Instant.parse(activity.getStartDate()).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
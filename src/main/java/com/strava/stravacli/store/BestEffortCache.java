@@ -0,0 +1,74 @@
+package com.strava.stravacli.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.model.EffortTarget;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Best efforts per activity id, persisted next to the stream store.
+ * Streams of a finished activity never change, so entries never expire.
+ */
+@Service
+public class BestEffortCache {
+
+    private static final String CACHE_FILE = ".strava_best_efforts.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path path;
+    private Map<String, Map<EffortTarget, Double>> efforts;
+
+    public BestEffortCache() {
+        this(Paths.get(CACHE_FILE));
+    }
+
+    public BestEffortCache(Path path) {
+        this.path = path;
+    }
+
+    /** Cached efforts of an activity, or null if they have not been computed */
+    public synchronized Map<EffortTarget, Double> get(String activityId) {
+        ensureLoaded();
+        return efforts.get(activityId);
+    }
+
+    /** Adds computed efforts and persists the cache */
+    public synchronized void putAll(Map<String, Map<EffortTarget, Double>> computed) {
+        if (computed.isEmpty()) return;
+        ensureLoaded();
+        efforts.putAll(computed);
+        save();
+    }
+
+    private void ensureLoaded() {
+        if (efforts != null) return;
+
+        efforts = new HashMap<>();
+        if (Files.exists(path)) {
+            try {
+                efforts.putAll(objectMapper.readValue(path.toFile(),
+                        new TypeReference<Map<String, Map<EffortTarget, Double>>>() {}));
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not read best effort cache: " + e.getMessage());
+            }
+        }
+    }
+
+    private void save() {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), efforts);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not save best effort cache: " + e.getMessage());
+        }
+    }
+}
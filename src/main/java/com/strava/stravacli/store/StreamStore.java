@@ -0,0 +1,139 @@
+package com.strava.stravacli.store;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * On-disk store of activity streams, one binary file per activity keyed by activity id.
+ * <p>
+ * File layout (little-endian): a 12-byte header ({@code "STRM"} magic, format version,
+ * bitmask of present channels, sample count), then each present channel's samples in
+ * {@link Channel} order, each channel starting on an 8-byte boundary. Reads map the file
+ * with {@link FileChannel#map} and hand out slices of the mapping, so stream data never
+ * has to fit on the heap. An activity without streams is stored as an empty file body, so
+ * it is not requested again.
+ */
+@Service
+public class StreamStore {
+
+    private static final String STORE_DIRECTORY = ".strava_streams";
+    private static final int MAGIC = 0x4D525453; // "STRM" read little-endian
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+
+    private final Path directory;
+
+    public StreamStore() {
+        this(Paths.get(STORE_DIRECTORY));
+    }
+
+    public StreamStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public boolean contains(String activityId) {
+        return Files.exists(file(activityId));
+    }
+
+    /** Writes an activity's streams, replacing any stored copy atomically */
+    public void save(String activityId, ActivityStreams streams) throws IOException {
+        Files.createDirectories(directory);
+        Path target = file(activityId);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            short mask = 0;
+            for (Channel stream : streams.channels().keySet()) {
+                mask |= (short) (1 << stream.ordinal());
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort(mask)
+                    .putInt(streams.size());
+            writeFully(channel, header.flip());
+
+            long position = HEADER_BYTES;
+            for (Map.Entry<Channel, ByteBuffer> entry : streams.channels().entrySet()) {
+                position = align(position);
+                channel.position(position);
+                ByteBuffer samples = entry.getValue().duplicate()
+                        .limit(streams.size() * entry.getKey().bytesPerSample());
+                writeFully(channel, samples);
+                position += samples.limit();
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps an activity's stored streams into memory, or returns null if none are stored.
+     * The returned buffers stay valid after this method returns.
+     */
+    public ActivityStreams load(String activityId) throws IOException {
+        Path file = file(activityId);
+        if (!Files.exists(file)) return null;
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getShort(4) != VERSION) {
+            throw new IOException("Not a stream file: " + file);
+        }
+        int mask = mapped.getShort(6) & 0xFFFF;
+        int size = mapped.getInt(8);
+        if (size < 0) {
+            throw new IOException("Corrupt stream file (negative sample count): " + file);
+        }
+
+        Map<Channel, ByteBuffer> channels = new EnumMap<>(Channel.class);
+        long position = HEADER_BYTES;
+        for (Channel stream : Channel.values()) {
+            if ((mask & (1 << stream.ordinal())) == 0) continue;
+            position = align(position);
+            long bytes = (long) size * stream.bytesPerSample();
+            if (position + bytes > mapped.limit()) {
+                throw new IOException("Truncated stream file: " + file);
+            }
+            channels.put(stream, mapped.slice((int) position, (int) bytes));
+            position += bytes;
+        }
+        return ActivityStreams.of(size, channels);
+    }
+
+    private Path file(String activityId) {
+        // ids come from the API and become file names: accept nothing but digits
+        if (activityId == null || !activityId.matches("\\d+")) {
+            throw new IllegalArgumentException("Invalid activity id: " + activityId);
+        }
+        return directory.resolve(activityId + ".bin");
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
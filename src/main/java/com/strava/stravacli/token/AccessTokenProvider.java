@@ -0,0 +1,131 @@
+package com.strava.stravacli.token;
+
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.util.BackgroundOutput;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out access tokens from memory and keeps them fresh.
+ * A token is refreshed in the background once it enters the refresh window before
+ * {@code expiresAt}, so callers normally never wait for a refresh. At most one refresh
+ * runs at a time: concurrent callers that need one share the same in-flight future.
+ */
+@Service
+public class AccessTokenProvider {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final TokenManager tokenManager;
+    private final long refreshWindowSeconds;
+    private final ScheduledThreadPoolExecutor refresher = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<CompletableFuture<TokenData>> inFlight = new AtomicReference<>();
+    private volatile long scheduledForExpiry;
+
+    public AccessTokenProvider(TokenManager tokenManager, StravaConfig config) {
+        this.tokenManager = tokenManager;
+        this.refreshWindowSeconds = config.getTokenRefreshWindowSeconds();
+    }
+
+    /**
+     * Returns a usable access token, or null if no token is stored or it could not be refreshed.
+     * Only blocks when the token has already expired.
+     */
+    public String getAccessToken() {
+        return getAccessTokenAsync().join();
+    }
+
+    /**
+     * Like {@link #getAccessToken()}, but never blocks: an expired token completes the future
+     * once it has been refreshed.
+     */
+    public CompletableFuture<String> getAccessTokenAsync() {
+        TokenData token = tokenManager.loadToken();
+        if (token == null) return CompletableFuture.completedFuture(null);
+
+        long now = Instant.now().getEpochSecond();
+        if (now >= token.getExpiresAt()) {
+            return refresh().thenApply(refreshed -> refreshed == null ? null : refreshed.getAccessToken());
+        }
+
+        if (now >= token.getExpiresAt() - refreshWindowSeconds) {
+            refresh();
+        } else {
+            scheduleRefresh(token);
+        }
+        return CompletableFuture.completedFuture(token.getAccessToken());
+    }
+
+    /**
+     * Starts a refresh unless one is already running, and returns the shared result.
+     * The future completes with null if the refresh failed.
+     */
+    public CompletableFuture<TokenData> refresh() {
+        while (true) {
+            CompletableFuture<TokenData> existing = inFlight.get();
+            if (existing != null) return existing;
+
+            CompletableFuture<TokenData> created = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, created)) {
+                refresher.execute(() -> runRefresh(created));
+                return created;
+            }
+        }
+    }
+
+    private void runRefresh(CompletableFuture<TokenData> result) {
+        try {
+            // another caller may have refreshed between our check and this run
+            TokenData current = tokenManager.loadToken();
+            TokenData token = current == null || !needsRefresh(current)
+                    ? current
+                    : tokenManager.refreshToken(current);
+            result.complete(token);
+            if (token != null) {
+                scheduleRefresh(token);
+            }
+        } catch (RuntimeException e) {
+            result.complete(null);
+            BackgroundOutput.println("❌ Error refreshing token: " + e.getMessage());
+        } finally {
+            inFlight.compareAndSet(result, null);
+        }
+    }
+
+    private boolean needsRefresh(TokenData token) {
+        return Instant.now().getEpochSecond() >= token.getExpiresAt() - refreshWindowSeconds;
+    }
+
+    /** Schedules one background refresh at the start of the token's refresh window */
+    private void scheduleRefresh(TokenData token) {
+        if (scheduledForExpiry == token.getExpiresAt() || refresher.isShutdown()) return;
+        scheduledForExpiry = token.getExpiresAt();
+
+        long delay = token.getExpiresAt() - refreshWindowSeconds - Instant.now().getEpochSecond();
+        refresher.schedule(this::refresh, Math.max(0, delay), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Drops scheduled refreshes but lets a running one finish, so a rotated refresh
+     * token is never lost between the server's answer and the token file.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refresher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        refresher.shutdown();
+        try {
+            refresher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
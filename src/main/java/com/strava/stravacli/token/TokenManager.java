@@ -1,7 +1,11 @@
 package com.strava.stravacli.token;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strava.stravacli.client.HttpTransport;
 import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.util.BackgroundOutput;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -17,27 +21,54 @@ import java.util.Map;
 public class TokenManager {
 
     private static final String TOKEN_FILE = ".strava_token.json";
-    private static final String STRAVA_TOKEN_URL = "https://www.strava.com/api/v3/oauth/token";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpClient httpClient;
+    private final Path tokenFile;
+    private final MetricsRegistry metrics;
 
     private final String clientId;
     private final String clientSecret;
     private final String redirectUri;
+    private final URI tokenUrl;
 
-    public TokenManager(StravaConfig config) {
+    private volatile TokenData cachedToken;
+    private volatile boolean tokenLoaded;
+
+    @Autowired
+    public TokenManager(StravaConfig config, HttpTransport transport, MetricsRegistry metrics) {
+        this(config, Paths.get(TOKEN_FILE), transport, metrics);
+    }
+
+    /** Token manager for one athlete's token file, e.g. in batch mode where many share one HTTP client */
+    public TokenManager(StravaConfig config, Path tokenFile, HttpClient httpClient, MetricsRegistry metrics) {
+        this.tokenFile = tokenFile;
+        this.httpClient = httpClient;
+        this.metrics = metrics;
         this.clientId = config.getClientId();
         this.clientSecret = config.getClientSecret();
         this.redirectUri = config.getRedirectUri();
+        this.tokenUrl = URI.create(config.getOauthUrl() + "/token");
     }
 
-    /** Load token from local file if exists */
+    /** Load token, reading the local file only the first time */
     public TokenData loadToken() {
-        Path path = Paths.get(TOKEN_FILE);
-        if (Files.exists(path)) {
+        if (tokenLoaded) {
+            return cachedToken;
+        }
+        synchronized (this) {
+            if (!tokenLoaded) {
+                cachedToken = readTokenFile();
+                tokenLoaded = true;
+            }
+            return cachedToken;
+        }
+    }
+
+    private TokenData readTokenFile() {
+        if (Files.exists(tokenFile)) {
             try {
-                return objectMapper.readValue(Files.readString(path), TokenData.class);
+                return objectMapper.readValue(Files.readString(tokenFile), TokenData.class);
             } catch (IOException e) {
                 System.out.println("⚠️ Could not read token file: " + e.getMessage());
             }
@@ -47,9 +78,13 @@ public class TokenManager {
 
     /** Save token to local file */
     public void saveToken(TokenData token) {
+        synchronized (this) {
+            cachedToken = token;
+            tokenLoaded = true;
+        }
         try {
             objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(Paths.get(TOKEN_FILE).toFile(), token);
+                    .writeValue(tokenFile.toFile(), token);
         } catch (IOException e) {
             System.out.println("⚠️ Could not save token: " + e.getMessage());
         }
@@ -57,8 +92,12 @@ public class TokenManager {
 
     /** Delete saved token */
     public void clearToken() {
+        synchronized (this) {
+            cachedToken = null;
+            tokenLoaded = true;
+        }
         try {
-            Files.deleteIfExists(Paths.get(TOKEN_FILE));
+            Files.deleteIfExists(tokenFile);
             System.out.println("✅ Token cleared successfully.");
         } catch (IOException e) {
             System.out.println("⚠️ Could not delete token: " + e.getMessage());
@@ -79,7 +118,7 @@ public class TokenManager {
         );
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://www.strava.com/oauth/token"))
+                .uri(tokenUrl)
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
@@ -110,7 +149,7 @@ public class TokenManager {
 
     /** Refresh an expired token */
     public TokenData refreshToken(TokenData oldToken) {
-        System.out.println("🔄 Refreshing expired token...");
+        BackgroundOutput.println("🔄 Refreshing expired token...");
 
         String body = String.format(
                 "client_id=%s&client_secret=%s&grant_type=refresh_token&refresh_token=%s",
@@ -118,11 +157,12 @@ public class TokenManager {
         );
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(STRAVA_TOKEN_URL))
+                .uri(tokenUrl)
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
 
+        long started = System.nanoTime();
         try {
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() == 200) {
@@ -133,15 +173,22 @@ public class TokenManager {
                         ((Number) map.get("expires_at")).longValue()
                 );
                 saveToken(newToken);
-                System.out.println("✅ Token refreshed successfully.");
+                BackgroundOutput.println("✅ Token refreshed successfully.");
+                recordRefresh(started, "success");
                 return newToken;
             } else {
-                System.out.println("❌ Failed to refresh token: " + response.statusCode() + " - " + response.body());
+                BackgroundOutput.println("❌ Failed to refresh token: " + response.statusCode() + " - " + response.body());
             }
         } catch (Exception e) {
-            System.out.println("❌ Error refreshing token: " + e.getMessage());
+            BackgroundOutput.println("❌ Error refreshing token: " + e.getMessage());
         }
 
+        recordRefresh(started, "failure");
         return null;
     }
+
+    private void recordRefresh(long startedNanos, String result) {
+        metrics.timer("strava_token_refresh_seconds").recordSince(startedNanos);
+        metrics.counter("strava_token_refreshes_total", "result", result).increment();
+    }
 }
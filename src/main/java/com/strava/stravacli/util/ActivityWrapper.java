@@ -4,7 +4,6 @@ import com.strava.stravacli.model.Activity;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.WeekFields;
 
 public class ActivityWrapper {
@@ -15,11 +14,9 @@ public class ActivityWrapper {
 
     public ActivityWrapper(Activity activity) {
         this.activity = activity;
-        this.startDateTime = LocalDateTime.parse(activity.getStartDateLocal(), DateTimeFormatter.ISO_DATE_TIME);
+        this.startDateTime = activity.getStartDateTimeLocal();
         this.startDate = startDateTime.toLocalDate();
-        LocalDate date = LocalDateTime.parse(activity.getStartDateLocal(), DateTimeFormatter.ISO_DATE_TIME)
-                .toLocalDate();
-        this.weekNumber = date.get(WeekFields.ISO.weekOfWeekBasedYear());
+        this.weekNumber = startDate.get(WeekFields.ISO.weekOfWeekBasedYear());
 
     }
 
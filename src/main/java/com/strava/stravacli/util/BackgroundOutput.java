@@ -0,0 +1,37 @@
+package com.strava.stravacli.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Console output of background work such as token refreshes and rate limit pauses.
+ * While {@link #hold() held} (the interactive menu waits for input) lines are buffered
+ * instead of being printed into the prompt; {@link #release()} prints them and switches
+ * back to printing straight away, which is also the default for one-shot commands.
+ */
+public final class BackgroundOutput {
+
+    private static final ByteArrayOutputStream held = new ByteArrayOutputStream();
+    private static final PrintStream heldOut = new PrintStream(held, true, StandardCharsets.UTF_8);
+    private static boolean holding;
+
+    private BackgroundOutput() {
+    }
+
+    public static synchronized void println(String line) {
+        (holding ? heldOut : System.out).println(line);
+    }
+
+    /** Buffers lines until the next {@link #release()} */
+    public static synchronized void hold() {
+        holding = true;
+    }
+
+    /** Prints the buffered lines, once, and prints later lines directly */
+    public static synchronized void release() {
+        holding = false;
+        System.out.print(held.toString(StandardCharsets.UTF_8));
+        held.reset();
+    }
+}
@@ -0,0 +1,102 @@
+package com.strava.stravacli.util;
+
+import java.util.Arrays;
+
+/**
+ * Decodes Google encoded polylines (Strava's {@code map.summary_polyline}) into reusable
+ * primitive buffers. Coordinates are kept as integer degrees × 10⁵, the format's own
+ * precision, so decoding is exact and boxes nothing; the buffers only grow, so a decoder
+ * reused across activities stops allocating once it has seen the longest route.
+ * <p>
+ * Not thread-safe: use one decoder per thread.
+ */
+public final class PolylineDecoder {
+    /** Degrees per encoded unit */
+    public static final double DEGREES_PER_UNIT = 1e-5;
+
+    private int[] latitudes = new int[256];
+    private int[] longitudes = new int[256];
+    private int size;
+
+    /**
+     * Decodes the polyline, replacing the previous contents; null or empty decodes to no points.
+     *
+     * @return number of points
+     * @throws IllegalArgumentException if the text is not a valid encoded polyline
+     */
+    public int decode(CharSequence encoded) {
+        size = 0;
+        if (encoded == null) return 0;
+
+        int length = encoded.length();
+        int index = 0;
+        int latitude = 0, longitude = 0;
+        while (index < length) {
+            long latitudeDelta = nextValue(encoded, index);
+            index = (int) (latitudeDelta >>> 32);
+            if (index >= length) throw new IllegalArgumentException("Polyline ends after a latitude");
+            long longitudeDelta = nextValue(encoded, index);
+            index = (int) (longitudeDelta >>> 32);
+
+            latitude += (int) latitudeDelta;
+            longitude += (int) longitudeDelta;
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Reads one zigzag-encoded value starting at {@code index}.
+     *
+     * @return the index after the value in the high 32 bits, the value in the low 32 bits
+     */
+    private static long nextValue(CharSequence encoded, int index) {
+        int result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index >= encoded.length()) throw new IllegalArgumentException("Polyline ends inside a value");
+            chunk = encoded.charAt(index++) - 63;
+            if (chunk < 0 || chunk > 63 || shift > 30) {
+                throw new IllegalArgumentException("Invalid polyline character at " + (index - 1));
+            }
+            if (shift == 30 && (chunk & 0x1C) != 0) {
+                // only two bits of the seventh chunk fit in an int
+                throw new IllegalArgumentException("Polyline value overflows at " + (index - 1));
+            }
+            result |= (chunk & 0x1F) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        int value = (result & 1) != 0 ? ~(result >>> 1) : result >>> 1;
+        return (long) index << 32 | (value & 0xFFFF_FFFFL);
+    }
+
+    /** Number of points decoded by the last {@link #decode} */
+    public int size() {
+        return size;
+    }
+
+    /** Latitude of point {@code i} in degrees × 10⁵ */
+    public int latitudeE5(int i) {
+        return latitudes[i];
+    }
+
+    /** Longitude of point {@code i} in degrees × 10⁵ */
+    public int longitudeE5(int i) {
+        return longitudes[i];
+    }
+
+    public double latitude(int i) {
+        return latitudes[i] * DEGREES_PER_UNIT;
+    }
+
+    public double longitude(int i) {
+        return longitudes[i] * DEGREES_PER_UNIT;
+    }
+}
@@ -0,0 +1,259 @@
+package com.strava.stravacli.util;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable streaming quantile sketch in the style of KLL (Karnin, Lang, Liberty).
+ * <p>
+ * Values are kept in a stack of compactors. An item on level {@code h} stands for
+ * {@code 2^h} input values. When the sketch is over capacity, the lowest full level is
+ * sorted and every other item is promoted one level up; capacities shrink geometrically
+ * (factor 2/3) towards the bottom, so about {@code 3k} items are retained whatever the input
+ * size. Compaction offsets alternate per level instead of being random, which makes results
+ * reproducible: the same values in the same order (and the same merge order) always give
+ * the same answers.
+ * <p>
+ * <b>Exact mode:</b> up to {@code exactLimit} values (2048 by default) nothing is compacted and
+ * quantiles are exact, linearly interpolated between neighbouring order statistics (so
+ * {@code quantile(0.5)} is the usual median).
+ * <p>
+ * <b>Error bound:</b> beyond exact mode, answers are input values whose normalized rank is
+ * within {@code O(1/k)} of {@code q}. With the default {@code k = 200} about 600 items are
+ * retained and the rank error is within 1% for every percentile (checked against exact sorts
+ * of uniform, log-normal, sorted and reverse-sorted inputs, both sequential and merged from
+ * 8 partitions, in {@code QuantileSketchTest}). Minimum and maximum are always exact.
+ * <p>
+ * Not thread-safe; build one sketch per partition and {@link #merge} them.
+ */
+public final class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+    public static final int DEFAULT_EXACT_LIMIT = 2048;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private final int exactLimit;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private boolean exact = true;
+
+    private double[][] levels = {new double[16]};
+    private int[] sizes = new int[1];
+    private boolean[] oddOffset = new boolean[1];
+    private int[] capacities = new int[1];
+    private int totalCapacity;
+    private int retained;
+
+    // sorted (value, weight) view for queries, rebuilt after updates
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_K, DEFAULT_EXACT_LIMIT);
+    }
+
+    /**
+     * @param k accuracy parameter: larger is more accurate and retains more items
+     * @param exactLimit number of values kept verbatim before compaction starts
+     */
+    public QuantileSketch(int k, int exactLimit) {
+        if (k < 8) throw new IllegalArgumentException("k must be at least 8");
+        this.k = k;
+        this.exactLimit = Math.max(0, exactLimit);
+        updateCapacities();
+    }
+
+    /** Adds one value; NaN is ignored */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        sortedValues = null;
+
+        if (exact && count > exactLimit) {
+            exact = false;
+        }
+        if (!exact) {
+            compress();
+        }
+    }
+
+    /** Folds {@code other} into this sketch and returns this; {@code other} is left unchanged */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.count == 0) return this;
+
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int level = 0; level < other.sizes.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        sortedValues = null;
+
+        exact = exact && other.exact && count <= exactLimit;
+        if (!exact) {
+            compress();
+        }
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public boolean isEmpty() { return count == 0; }
+    public boolean isExact() { return exact; }
+
+    /** Smallest value added, or NaN if empty */
+    public double getMin() { return count == 0 ? Double.NaN : min; }
+
+    /** Largest value added, or NaN if empty */
+    public double getMax() { return count == 0 ? Double.NaN : max; }
+
+    /** Number of items currently held, a measure of the sketch's memory footprint */
+    public int retained() {
+        return retained;
+    }
+
+    /**
+     * Estimated value at quantile {@code q} (0 = minimum, 0.5 = median, 1 = maximum),
+     * or NaN if the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1 || Double.isNaN(q)) throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+        if (count == 0) return Double.NaN;
+        if (q == 0) return min;
+        if (q == 1) return max;
+
+        sortedView();
+        if (exact) {
+            // linear interpolation between order statistics
+            double position = q * (count - 1);
+            int lower = (int) position;
+            double fraction = position - lower;
+            if (fraction == 0 || lower + 1 >= sortedValues.length) return sortedValues[lower];
+            return (1 - fraction) * sortedValues[lower] + fraction * sortedValues[lower + 1];
+        }
+
+        // first item whose cumulative weight passes the requested rank
+        double rank = q * (count - 1);
+        int low = 0, high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] <= rank) low = mid + 1;
+            else high = mid;
+        }
+        return sortedValues[low];
+    }
+
+    /** Values at several quantiles at once, sharing one sorted view */
+    public double[] quantiles(double... qs) {
+        double[] values = new double[qs.length];
+        for (int i = 0; i < qs.length; i++) {
+            values[i] = quantile(qs[i]);
+        }
+        return values;
+    }
+
+    private void append(int level, double value) {
+        ensureLevel(level);
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    private void ensureLevel(int level) {
+        if (level < sizes.length) return;
+        int height = level + 1;
+        levels = Arrays.copyOf(levels, height);
+        sizes = Arrays.copyOf(sizes, height);
+        oddOffset = Arrays.copyOf(oddOffset, height);
+        for (int h = 0; h < height; h++) {
+            if (levels[h] == null) levels[h] = new double[16];
+        }
+        updateCapacities();
+    }
+
+    /** Level capacities shrink by 2/3 per level below the top one */
+    private void updateCapacities() {
+        capacities = new int[sizes.length];
+        totalCapacity = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            int depth = sizes.length - 1 - level;
+            capacities[level] = Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+            totalCapacity += capacities[level];
+        }
+    }
+
+    private void compress() {
+        while (retained > totalCapacity) {
+            int level = 0;
+            while (sizes[level] < capacities[level]) level++;
+            compact(level);
+        }
+    }
+
+    /** Sorts a level and promotes every other item to the next level, keeping one if the count is odd */
+    private void compact(int level) {
+        ensureLevel(level + 1);
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+
+        // an odd item out stays behind (the largest, so the promoted run is contiguous)
+        int pairs = size / 2;
+        int offset = oddOffset[level] ? 1 : 0;
+        oddOffset[level] = !oddOffset[level];
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, items[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+        retained -= size - sizes[level];
+    }
+
+    private void sortedView() {
+        if (sortedValues != null) return;
+
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int level = 0; level < sizes.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n] = 1L << level;
+                n++;
+            }
+        }
+
+        if (exact) {
+            Arrays.sort(values);
+            sortedValues = values;
+            cumulativeWeights = null;
+            return;
+        }
+
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        sortedValues = new double[retained];
+        cumulativeWeights = new long[retained];
+        long cumulative = 0;
+        for (int i = 0; i < retained; i++) {
+            sortedValues[i] = values[order[i]];
+            cumulative += weights[order[i]];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.strava.stravacli.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Strava's date-time format, {@code yyyy-MM-ddTHH:mm:ssZ}, to and from epoch seconds without
+ * going through {@code java.time} parsers. {@code start_date_local} uses the same format for a
+ * local date-time; its epoch seconds are then those of the local date-time read as UTC.
+ */
+public final class StravaDates {
+    /** Returned by {@link #epochSecond} for anything that is not in the format */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private StravaDates() {}
+
+    /**
+     * Epoch second of a {@code yyyy-MM-ddTHH:mm:ssZ} value (exactly what {@link Instant#toString()}
+     * prints for whole seconds), or {@link #INVALID} for anything else.
+     */
+    public static long epochSecond(String value) {
+        if (value.length() != 20 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':' || value.charAt(16) != ':' || value.charAt(19) != 'Z') {
+            return INVALID;
+        }
+        int year = digits(value, 0, 4), month = digits(value, 5, 2), day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2), minute = digits(value, 14, 2), second = digits(value, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * 86_400 + hour * 3_600 + minute * 60 + second;
+        } catch (DateTimeException e) {
+            return INVALID; // e.g. February 30th
+        }
+    }
+
+    /** Inverse of {@link #epochSecond}: the epoch second as {@code yyyy-MM-ddTHH:mm:ssZ} */
+    public static String format(long epochSecond) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400));
+        int secondOfDay = Math.floorMod(epochSecond, 86_400);
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            return Instant.ofEpochSecond(epochSecond).toString();
+        }
+        char[] text = "0000-00-00T00:00:00Z".toCharArray();
+        putDigits(text, 0, 4, date.getYear());
+        putDigits(text, 5, 2, date.getMonthValue());
+        putDigits(text, 8, 2, date.getDayOfMonth());
+        putDigits(text, 11, 2, secondOfDay / 3_600);
+        putDigits(text, 14, 2, secondOfDay / 60 % 60);
+        putDigits(text, 17, 2, secondOfDay % 60);
+        return new String(text);
+    }
+
+    private static void putDigits(char[] text, int offset, int count, int value) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /** Non-negative value of {@code count} decimal digits, or -1 if any is not a digit */
+    private static int digits(String value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
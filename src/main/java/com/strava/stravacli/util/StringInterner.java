@@ -0,0 +1,90 @@
+package com.strava.stravacli.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, thread-safe string intern table for values that repeat across records, such as
+ * activity names ("Morning Ride") and types. Lookups can go straight from a parser's character
+ * buffer, so a value already in the table is returned without allocating anything.
+ * <p>
+ * Open addressing over a fixed array at most half full; entries are never replaced or removed.
+ * Once {@code capacity} values are held, or for values longer than {@code maxLength}, new
+ * values are returned as plain, un-shared strings.
+ */
+public final class StringInterner {
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final int capacity;
+    private final int maxLength;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public StringInterner(int capacity, int maxLength) {
+        int slots = Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1;
+        this.table = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+        this.capacity = capacity;
+        this.maxLength = maxLength;
+    }
+
+    /** The shared instance equal to {@code value}, or {@code value} itself; null stays null */
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) return value;
+        int index = spread(value.hashCode()) & mask;
+        while (true) {
+            String entry = table.get(index);
+            if (entry == null) {
+                if (size.get() >= capacity) return value;
+                if (table.compareAndSet(index, null, value)) {
+                    size.incrementAndGet();
+                    return value;
+                }
+                continue; // lost the slot to another thread: look at what it put there
+            }
+            if (entry.equals(value)) return entry;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /** Same as {@link #intern(String)} for {@code chars[offset, offset + length)} */
+    public String intern(char[] chars, int offset, int length) {
+        if (length > maxLength) return new String(chars, offset, length);
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i]; // String.hashCode, so both lookups find the same slots
+        }
+        int index = spread(hash) & mask;
+        String created = null;
+        while (true) {
+            String entry = table.get(index);
+            if (entry == null) {
+                if (created == null) created = new String(chars, offset, length);
+                if (size.get() >= capacity) return created;
+                if (table.compareAndSet(index, null, created)) {
+                    size.incrementAndGet();
+                    return created;
+                }
+                continue;
+            }
+            if (matches(entry, chars, offset, length)) return entry;
+            index = (index + 1) & mask;
+        }
+    }
+
+    /** Number of interned values */
+    public int size() {
+        return size.get();
+    }
+
+    private static boolean matches(String entry, char[] chars, int offset, int length) {
+        if (entry.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
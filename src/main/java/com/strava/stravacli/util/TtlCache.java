@@ -0,0 +1,66 @@
+package com.strava.stravacli.util;
+
+import com.strava.stravacli.metrics.Counter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Holds a single value for a fixed time-to-live.
+ * Concurrent callers that miss share one load; hits and misses are counted.
+ */
+public class TtlCache<T> {
+    private final Duration ttl;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    private T value;
+    private long loadedAtMillis;
+    private boolean loaded;
+
+    public TtlCache(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    public TtlCache(Duration ttl, Clock clock) {
+        this(ttl, clock, new Counter(), new Counter());
+    }
+
+    /** Cache that counts hits and misses on the given (e.g. registry) counters */
+    public TtlCache(Duration ttl, Counter hits, Counter misses) {
+        this(ttl, Clock.systemUTC(), hits, misses);
+    }
+
+    public TtlCache(Duration ttl, Clock clock, Counter hits, Counter misses) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /** Returns the cached value, or loads and caches a new one if it is missing or expired */
+    public synchronized T get(Supplier<T> loader) {
+        long now = clock.millis();
+        if (loaded && now - loadedAtMillis < ttl.toMillis()) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        value = loader.get();
+        loadedAtMillis = now;
+        loaded = true;
+        return value;
+    }
+
+    /** Drops the cached value so the next {@link #get} reloads */
+    public synchronized void invalidate() {
+        value = null;
+        loaded = false;
+    }
+
+    public long getHits() { return hits.count(); }
+    public long getMisses() { return misses.count(); }
+}
@@ -0,0 +1,67 @@
+package com.strava.stravacli;
+
+import com.strava.stravacli.model.Activity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Reproducible activity histories for tests: several sports per category, and one type Strava may add later */
+public final class TestActivities {
+    private static final LocalDateTime END = LocalDateTime.of(2025, 6, 30, 18, 0);
+    private static final String[] TYPES = {
+            "Ride", "Ride", "Run", "Run", "TrailRun", "VirtualRide", "GravelRide", "Walk", "Swim",
+            "WeightTraining", "Pilates", "Kitesurfing"};
+
+    private TestActivities() {}
+
+    /** {@code count} activities, oldest first, about three a day */
+    public static List<Activity> generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime first = END.minusDays(count / 3 + 1);
+        List<Activity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = first.plusDays(i / 3).withHour(6 + random.nextInt(14)).withMinute(random.nextInt(60));
+            String type = TYPES[random.nextInt(TYPES.length)];
+            boolean indoor = type.equals("WeightTraining") || type.equals("Pilates");
+            double km = indoor ? 0 : 1 + random.nextDouble() * (type.contains("Ride") ? 100 : 20);
+
+            Activity activity = new Activity();
+            activity.setId(Long.toString(1000 + i));
+            activity.setName((start.getHour() < 12 ? "Morning " : "Evening ") + type);
+            activity.setType(type);
+            activity.setDistance(km * 1000);
+            activity.setMovingTime(indoor ? 1800 + random.nextInt(3600) : (long) (km * (120 + random.nextInt(300))));
+            activity.setElapsedTime(activity.getMovingTime() + random.nextInt(600));
+            activity.setElevationGain(km * random.nextDouble() * 15);
+            activity.setStartDateLocal(start.toInstant(ZoneOffset.UTC).toString());
+            activity.setStartDate(start.minusHours(1).toInstant(ZoneOffset.UTC).toString());
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    /** Encodes points given as {latitude, longitude} in degrees × 10⁵ as a Google encoded polyline */
+    public static String polyline(int[]... pointsE5) {
+        StringBuilder encoded = new StringBuilder();
+        int latitude = 0, longitude = 0;
+        for (int[] point : pointsE5) {
+            appendValue(encoded, point[0] - latitude);
+            appendValue(encoded, point[1] - longitude);
+            latitude = point[0];
+            longitude = point[1];
+        }
+        return encoded.toString();
+    }
+
+    private static void appendValue(StringBuilder encoded, int value) {
+        int zigzag = value < 0 ? ~(value << 1) : value << 1;
+        while ((zigzag & ~0x1F) != 0) {
+            encoded.append((char) ((0x20 | (zigzag & 0x1F)) + 63));
+            zigzag >>>= 5;
+        }
+        encoded.append((char) (zigzag + 63));
+    }
+}
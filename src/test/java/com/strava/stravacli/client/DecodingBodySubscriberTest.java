@@ -0,0 +1,189 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.metrics.Counter;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecodingBodySubscriberTest {
+    private static final byte[] BODY = body();
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Counter wireBytes = metrics.counter("wire");
+    private final Counter decodedBytes = metrics.counter("decoded");
+
+    @Test
+    void identityBodyPassesThroughAndIsCounted() {
+        assertArrayEquals(BODY, decode(false, BODY, 1000));
+        assertEquals(BODY.length, wireBytes.count());
+        assertEquals(BODY.length, decodedBytes.count());
+    }
+
+    @Test
+    void gzipBodyDecodesWhateverTheChunkBoundaries() {
+        byte[] gzip = gzip(BODY);
+        for (int chunk : new int[]{1, 2, 3, 7, 10, 11, 64, 4096, gzip.length}) {
+            assertArrayEquals(BODY, decode(true, gzip, chunk), "chunks of " + chunk);
+        }
+        assertEquals(9L * gzip.length, wireBytes.count());
+        assertEquals(9L * BODY.length, decodedBytes.count());
+    }
+
+    @Test
+    void optionalHeaderFieldsAreSkipped() {
+        byte[] member = member(BODY);
+        for (int chunk : new int[]{1, 5, 13, member.length}) {
+            assertArrayEquals(BODY, decode(true, member, chunk), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void concatenatedMembersDecodeInTurn() {
+        byte[] first = Arrays.copyOf(BODY, 1000);
+        byte[] second = Arrays.copyOfRange(BODY, 1000, BODY.length);
+        byte[] members = concat(gzip(first), member(second), gzip(new byte[0]));
+        for (int chunk : new int[]{1, 9, members.length}) {
+            assertArrayEquals(BODY, decode(true, members, chunk), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void paddingAfterTheLastMemberIsIgnored() {
+        assertArrayEquals(BODY, decode(true, concat(gzip(BODY), new byte[512]), 100));
+        assertArrayEquals(BODY, decode(true, concat(gzip(BODY), new byte[]{0x1F}), 100));
+        assertArrayEquals(BODY, decode(true, concat(gzip(BODY), new byte[]{0x1F, (byte) 0x8B, 8, 0}), 3));
+    }
+
+    @Test
+    void corruptChecksumFails() {
+        byte[] gzip = gzip(BODY);
+        gzip[gzip.length - 8] ^= 1;
+        IOException error = assertFails(IOException.class, gzip);
+        assertTrue(error.getMessage().contains("checksum mismatch"), error.getMessage());
+    }
+
+    @Test
+    void corruptDataFails() {
+        byte[] gzip = gzip(BODY);
+        gzip[12] = (byte) 0xFF;
+        gzip[13] = (byte) 0xFF;
+        assertFails(IOException.class, gzip);
+    }
+
+    @Test
+    void truncatedBodyFails() {
+        byte[] gzip = gzip(BODY);
+        assertFails(EOFException.class, Arrays.copyOf(gzip, gzip.length / 2));
+        assertFails(EOFException.class, Arrays.copyOf(gzip, gzip.length - 3));
+        assertFails(EOFException.class, Arrays.copyOf(gzip, 5));
+    }
+
+    @Test
+    void bodyThatIsNotGzipFails() {
+        IOException error = assertFails(IOException.class, BODY);
+        assertTrue(error.getMessage().contains("declared gzip but is not"), error.getMessage());
+    }
+
+    @Test
+    void emptyBodyIsNotAnError() {
+        assertArrayEquals(new byte[0], decode(true, new byte[0], 1));
+    }
+
+    private <E extends Throwable> E assertFails(Class<E> type, byte[] wire) {
+        CompletionException error = assertThrows(CompletionException.class, () -> decode(true, wire, 16));
+        return assertInstanceOf(type, error.getCause());
+    }
+
+    /** Feeds {@code wire} in chunks of {@code chunk} bytes, a few buffers per call, as the HTTP client does */
+    private byte[] decode(boolean gzip, byte[] wire, int chunk) {
+        DecodingBodySubscriber<byte[]> subscriber = new DecodingBodySubscriber<>(
+                HttpResponse.BodySubscribers.ofByteArray(), gzip, wireBytes, decodedBytes);
+        boolean[] cancelled = new boolean[1];
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {
+                cancelled[0] = true;
+            }
+        });
+        for (int from = 0; from < wire.length && !cancelled[0]; from += 2 * chunk) {
+            int middle = Math.min(wire.length, from + chunk);
+            int to = Math.min(wire.length, from + 2 * chunk);
+            subscriber.onNext(List.of(ByteBuffer.wrap(wire, from, middle - from), ByteBuffer.wrap(wire, middle, to - middle)));
+        }
+        if (!cancelled[0]) subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    /** A member with FEXTRA, FNAME, FCOMMENT and FHCRC set, which GZIPOutputStream never writes */
+    private static byte[] member(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{0x1F, (byte) 0x8B, 8, 0x1E, 0, 0, 0, 0, 0, 3});
+        out.writeBytes(new byte[]{6, 0, 'A', 'B', 2, 0, 'x', 'y'});
+        out.writeBytes("activities.json\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes("exported\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(new byte[]{0x12, 0x34});
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(body);
+        deflater.finish();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) out.write(buffer, 0, deflater.deflate(buffer));
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        out.writeBytes(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt((int) crc.getValue()).putInt(body.length).array());
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+
+    /** JSON-like text with enough variety to make a multi-block deflate stream */
+    private static byte[] body() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append("{\"id\":").append(random.nextLong(1L << 40))
+                    .append(",\"distance\":").append(random.nextDouble() * 50_000).append("},");
+        }
+        return json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
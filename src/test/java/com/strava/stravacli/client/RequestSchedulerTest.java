@@ -0,0 +1,168 @@
+package com.strava.stravacli.client;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestSchedulerTest {
+
+    @Test
+    void interactiveRequestsOvertakeBackfillQueuedDuringARateLimitPause() throws Exception {
+        StubStrava strava = new StubStrava("100,1000", "1,1", true);
+        RequestScheduler scheduler = new RequestScheduler(strava, 1, new MetricsRegistry());
+        try {
+            List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(scheduler.submit(request("/backfill/" + i), HttpResponse.BodyHandlers.discarding(),
+                        RequestScheduler.Priority.BACKFILL));
+            }
+            // the first backfill request uses up the budget: 429, retry after one second
+            assertTrue(strava.rateLimited.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            responses.add(scheduler.submit(request("/interactive"), HttpResponse.BodyHandlers.discarding(),
+                    RequestScheduler.Priority.INTERACTIVE));
+
+            CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("/backfill/0", "/interactive", "/backfill/0", "/backfill/1", "/backfill/2",
+                    "/backfill/3", "/backfill/4"), strava.sent);
+            responses.forEach(response -> assertEquals(200, response.join().statusCode()));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void interactiveRequestsUseTheReserveBackfillWaitsBehind() throws Exception {
+        // after the first response only 1 request is usable: 100 - 97 - the safety margin
+        StubStrava strava = new StubStrava("100,100000", "97,97", false);
+        RequestScheduler scheduler = new RequestScheduler(strava, 1, new MetricsRegistry());
+        try {
+            scheduler.send(request("/backfill/0"), HttpResponse.BodyHandlers.discarding(),
+                    RequestScheduler.Priority.BACKFILL);
+            CompletableFuture<HttpResponse<Void>> backfill = scheduler.submit(request("/backfill/1"),
+                    HttpResponse.BodyHandlers.discarding(), RequestScheduler.Priority.BACKFILL);
+            Thread.sleep(100);
+            HttpResponse<Void> interactive = scheduler.submit(request("/interactive"),
+                    HttpResponse.BodyHandlers.discarding(), RequestScheduler.Priority.INTERACTIVE)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals(200, interactive.statusCode());
+            assertFalse(backfill.isDone());
+            assertEquals(List.of("/backfill/0", "/interactive"), strava.sent);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void dailyBudgetIsSpreadEvenlyOverTheWindowsLeftToday() {
+        long window = Duration.ofMinutes(15).toMillis();
+        long dayStart = Duration.ofDays(20_000).toMillis();
+        long shortLimit = 100, dailyLimit = 1000, dailyUsage = 0;
+
+        for (int w = 0; w < 96; w++) {
+            long windowsLeft = 96 - w;
+            long remainderAtStart = dailyLimit - dailyUsage;
+            long share = (remainderAtStart + windowsLeft - 1) / windowsLeft;
+            long shortUsage = 0;
+            // requests spread over the window; the cap must not reset as the daily usage grows
+            for (long now = dayStart + w * window + 1000;
+                 RequestScheduler.usableBudget(now, shortLimit, shortUsage, dailyLimit, dailyUsage) > 0;
+                 now += 1000) {
+                shortUsage++;
+                dailyUsage++;
+            }
+            assertEquals(Math.min(share, shortLimit) - 2, shortUsage, "window " + w);
+        }
+        assertTrue(dailyUsage <= dailyLimit - 2, "daily usage " + dailyUsage);
+    }
+
+    private static HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://strava.test" + path)).build();
+    }
+
+    /**
+     * Answers every request with 200 and the given rate limit headers; with {@code rateLimitFirst}
+     * the very first request gets a 429 with Retry-After: 1 instead.
+     */
+    private static final class StubStrava extends HttpClient {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch rateLimited = new CountDownLatch(1);
+        final String limit, usage;
+        final boolean rateLimitFirst;
+
+        StubStrava(String limit, String usage, boolean rateLimitFirst) {
+            this.limit = limit;
+            this.usage = usage;
+            this.rateLimitFirst = rateLimitFirst;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler) {
+            sent.add(request.uri().getPath());
+            boolean first = rateLimitFirst && sent.size() == 1;
+            HttpHeaders headers = HttpHeaders.of(first
+                            ? Map.of("Retry-After", List.of("1"))
+                            : Map.of("X-RateLimit-Limit", List.of(limit), "X-RateLimit-Usage", List.of(usage)),
+                    (name, value) -> true);
+            HttpResponse<T> response = new StubResponse<>(request, first ? 429 : 200, headers);
+            if (first) rateLimited.countDown();
+            return CompletableFuture.completedFuture(response);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            return sendAsync(request, handler);
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            return sendAsync(request, handler).join();
+        }
+
+        @Override public Optional<CookieHandler> cookieHandler() { return Optional.empty(); }
+        @Override public Optional<Duration> connectTimeout() { return Optional.empty(); }
+        @Override public Redirect followRedirects() { return Redirect.NEVER; }
+        @Override public Optional<ProxySelector> proxy() { return Optional.empty(); }
+        @Override public SSLContext sslContext() { return null; }
+        @Override public SSLParameters sslParameters() { return null; }
+        @Override public Optional<Authenticator> authenticator() { return Optional.empty(); }
+        @Override public Version version() { return Version.HTTP_1_1; }
+        @Override public Optional<Executor> executor() { return Optional.empty(); }
+    }
+
+    private record StubResponse<T>(HttpRequest request, int statusCode, HttpHeaders headers) implements HttpResponse<T> {
+        @Override public Optional<HttpResponse<T>> previousResponse() { return Optional.empty(); }
+        @Override public T body() { return null; }
+        @Override public Optional<SSLSession> sslSession() { return Optional.empty(); }
+        @Override public URI uri() { return request.uri(); }
+        @Override public HttpClient.Version version() { return HttpClient.Version.HTTP_1_1; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.strava.stravacli.export;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.store.ActivityStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityBinaryFormatTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        List<Activity> activities = TestActivities.generate(200, 4);
+        Path file = dir.resolve("activities.bin");
+        ActivityBinaryFormat.write(activities, file);
+
+        List<Activity> read = ActivityBinaryFormat.read(file);
+        assertEquals(activities.size(), read.size());
+        for (int i = 0; i < activities.size(); i++) {
+            assertEquals(activities.get(i).getId(), read.get(i).getId());
+            assertEquals(activities.get(i).getName(), read.get(i).getName());
+            assertEquals(activities.get(i).getType(), read.get(i).getType());
+            assertEquals(activities.get(i).getDistance(), read.get(i).getDistance());
+            assertEquals(activities.get(i).getStartDateLocal(), read.get(i).getStartDateLocal());
+        }
+    }
+
+    @Test
+    void anyCorruptByteFailsWithIOExceptionOrReads() throws IOException {
+        Path file = dir.resolve("activities.bin");
+        ActivityBinaryFormat.write(TestActivities.generate(20, 5), file);
+        byte[] original = Files.readAllBytes(file);
+
+        Path corrupt = dir.resolve("corrupt.bin");
+        for (int position = 0; position < original.length; position++) {
+            for (byte value : new byte[]{(byte) 0x80, (byte) 0xFF, 0x7F}) {
+                byte[] bytes = original.clone();
+                bytes[position] = value;
+                Files.write(corrupt, bytes);
+                try {
+                    ActivityBinaryFormat.read(corrupt);
+                } catch (IOException expected) {
+                    // the only failure the store knows how to recover from
+                }
+            }
+        }
+    }
+
+    @Test
+    void truncatedFileFailsWithIOException() throws IOException {
+        Path file = dir.resolve("activities.bin");
+        ActivityBinaryFormat.write(TestActivities.generate(20, 6), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> ActivityBinaryFormat.read(file));
+    }
+
+    @Test
+    void storeFallsBackToJsonWhenTheSnapshotIsCorrupt() throws IOException {
+        List<Activity> activities = TestActivities.generate(100, 7);
+        Path json = dir.resolve("activities.json");
+        ActivityStore store = new ActivityStore(json);
+        store.addAll(activities);
+        List<String> stored = store.getActivities().stream().map(Activity::getId).toList();
+        Path snapshot = dir.resolve("activities.bin");
+        assertTrue(Files.exists(snapshot));
+
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[16] = (byte) 0xFF; // length of the first column name
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(snapshot, bytes);
+
+        List<Activity> loaded = new ActivityStore(json).getActivities();
+        assertEquals(stored, loaded.stream().map(Activity::getId).toList());
+    }
+}
@@ -0,0 +1,113 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.Activity;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivitiesCsvReaderTest {
+    /** Shaped like a current export: display block in km, detail block in SI units with a second Distance */
+    private static final String EXPORT = "﻿"
+            + "Activity ID,Activity Date,Activity Name,Activity Type,Elapsed Time,Distance,Filename,"
+            + "Elapsed Time,Moving Time,Distance,Elevation Gain\r\n"
+            + "101,\"Jan 2, 2021, 7:08:32 AM\",\"Lunch Ride, with \"\"Bob\"\"\",Ride,3600,\"1,234.50\","
+            + "activities/101.fit.gz,3600,3400,\"1,234,500.0\",812.5\r\n"
+            + "102,\"Jan 3, 2021, 6:00:00 PM\",\"Two\nlines\",Weight Training,1800,0,,1800,1750,,\r\n"
+            + "Total,,,,,,,,,,\r\n"
+            + "103,2021-01-04T05:06:07Z,E-Bike commute,E-Bike Ride,900,5.0,activities/103.gpx,900,880,5000,12";
+
+    @Test
+    void readsQuotedFieldsAndTheSiDetailColumns() throws IOException {
+        List<ActivitiesCsvReader.Row> rows = ActivitiesCsvReader.read(new StringReader(EXPORT));
+        assertEquals(3, rows.size()); // the "Total" row has no numeric id
+
+        Activity ride = rows.get(0).activity();
+        assertEquals("101", ride.getId());
+        assertEquals("Lunch Ride, with \"Bob\"", ride.getName());
+        assertEquals("Ride", ride.getType());
+        assertEquals("2021-01-02T07:08:32Z", ride.getStartDate());
+        assertEquals(ride.getStartDate(), ride.getStartDateLocal());
+        assertEquals(3600, ride.getElapsedTime());
+        assertEquals(3400, ride.getMovingTime());
+        assertEquals(1_234_500.0, ride.getDistance()); // the second, SI Distance column
+        assertEquals(812.5, ride.getElevationGain());
+        assertEquals("activities/101.fit.gz", rows.get(0).fileName());
+
+        Activity training = rows.get(1).activity();
+        assertEquals("Two\nlines", training.getName());
+        assertEquals("WeightTraining", training.getType());
+        assertEquals("2021-01-03T18:00:00Z", training.getStartDate());
+        assertEquals(0.0, training.getDistance());
+        assertNull(rows.get(1).fileName());
+
+        Activity commute = rows.get(2).activity();
+        assertEquals("EBikeRide", commute.getType());
+        assertEquals("2021-01-04T05:06:07Z", commute.getStartDate());
+        assertEquals(5000.0, commute.getDistance());
+    }
+
+    @Test
+    void aSingleDistanceColumnIsInKilometers() throws IOException {
+        List<ActivitiesCsvReader.Row> rows = ActivitiesCsvReader.read(new StringReader("""
+                Activity ID,Activity Date,Distance,Moving Time
+                7,"Mar 1, 2019, 10:00:00 AM",12.5,3000
+                """));
+        assertEquals(1, rows.size());
+        assertEquals(12_500.0, rows.get(0).activity().getDistance());
+        assertNull(rows.get(0).activity().getName());
+    }
+
+    @Test
+    void unreadableValuesBecomeZeroOrNull() throws IOException {
+        List<ActivitiesCsvReader.Row> rows = ActivitiesCsvReader.read(new StringReader("""
+                Activity ID,Activity Date,Moving Time,Distance,Distance
+                8,last tuesday,quick,far,-
+                9
+                """));
+        assertEquals(2, rows.size());
+        Activity activity = rows.get(0).activity();
+        assertNull(activity.getStartDate());
+        assertEquals(0, activity.getMovingTime());
+        assertEquals(0.0, activity.getDistance());
+        assertEquals("9", rows.get(1).activity().getId());
+    }
+
+    @Test
+    void headerWithoutActivityIdIsRejected() throws IOException {
+        assertThrows(IOException.class, () -> ActivitiesCsvReader.read(new StringReader("Name,Date\nx,y\n")));
+        assertTrue(ActivitiesCsvReader.read(new StringReader("")).isEmpty());
+    }
+
+    @Test
+    void unterminatedQuoteEndsTheLastRecord() throws IOException {
+        List<ActivitiesCsvReader.Row> rows = ActivitiesCsvReader.read(
+                new StringReader("Activity ID,Activity Name\n5,\"never closed\n6,next"));
+        assertEquals(1, rows.size());
+        assertEquals("never closed\n6,next", rows.get(0).activity().getName());
+    }
+
+    @Test
+    void corruptExportsFailWithIOExceptionOrRead() {
+        SplittableRandom random = new SplittableRandom(20);
+        char[] alphabet = "\",\r\n 0123456789aZ:".toCharArray();
+        for (int i = 0; i < 5_000; i++) {
+            char[] corrupt = EXPORT.toCharArray();
+            for (int flips = 1 + random.nextInt(4); flips > 0; flips--) {
+                corrupt[random.nextInt(corrupt.length)] = alphabet[random.nextInt(alphabet.length)];
+            }
+            try {
+                ActivitiesCsvReader.read(new StringReader(new String(corrupt)));
+            } catch (IOException expected) {
+                // a mangled header
+            }
+        }
+    }
+}
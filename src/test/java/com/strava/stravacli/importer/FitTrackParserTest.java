@@ -0,0 +1,225 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FitTrackParserTest {
+    private static final long FIT_EPOCH_OFFSET = 631_065_600L;
+    private static final int RECORD = 20;
+    private static final int FILE_ID = 0;
+    private static final double DEGREES_TO_SEMICIRCLES = (1L << 31) / 180.0;
+
+    @Test
+    void readsRecordFields() throws IOException {
+        FitFile fit = new FitFile()
+                .definition(0, FILE_ID, false, new int[][]{{0, 1}, {4, 4}})  // type, time_created: skipped
+                .data(0, 4, 1_000_000_000)
+                // timestamp, lat, long, altitude, heart rate, cadence, distance, power
+                .definition(1, RECORD, false, new int[][]{{253, 4}, {0, 4}, {1, 4}, {2, 2}, {3, 1}, {4, 1}, {5, 4}, {7, 2}})
+                .data(1, 1_000_000_000, semicircles(48.1), semicircles(11.5), (100 + 500) * 5, 120, 80, 0, 200)
+                .data(1, 1_000_000_004, semicircles(48.1001), semicircles(11.5002), (102 + 500) * 5, 0xFF, 82, 1234, 0xFFFF);
+
+        TrackData track = parse(fit.bytes());
+        ActivityStreams streams = track.streams();
+        assertEquals(1_000_000_000 + FIT_EPOCH_OFFSET, track.startEpochSecond());
+        assertEquals(2, streams.size());
+        assertEquals(4, streams.time(1));
+        assertEquals(48.1, streams.latitude(0), 1e-6);
+        assertEquals(11.5002, streams.longitude(1), 1e-6);
+        assertEquals(100, streams.altitude(0), 1e-3);
+        assertEquals(102, streams.altitude(1), 1e-3);
+        assertEquals(120, streams.heartrate(0));
+        assertEquals(0, streams.heartrate(1)); // invalid value
+        assertEquals(82, streams.cadence(1));
+        assertEquals(12.34, streams.distance(1), 1e-4);
+        assertEquals(200, streams.watts(0));
+        assertEquals(0, streams.watts(1));
+    }
+
+    @Test
+    void scalesEnhancedAltitude() throws IOException {
+        FitFile fit = new FitFile()
+                .definition(0, RECORD, false, new int[][]{{253, 4}, {78, 4}})
+                .data(0, 1000, (long) ((8848.6 + 500) * 5))
+                .data(0, 1001, (long) ((-420.4 + 500) * 5));
+
+        ActivityStreams streams = parse(fit.bytes()).streams();
+        assertEquals(8848.6, streams.altitude(0), 1e-3);
+        assertEquals(-420.4, streams.altitude(1), 1e-3);
+    }
+
+    @Test
+    void resolvesCompressedTimestampsAgainstTheLastFullOne() throws IOException {
+        // 1000 ends in 0b01000: offsets at or past 8 stay in the same 32 s block, smaller ones roll over
+        FitFile fit = new FitFile()
+                .definition(0, RECORD, false, new int[][]{{253, 4}, {3, 1}})
+                .definition(1, RECORD, false, new int[][]{{3, 1}})
+                .data(0, 1000, 100)
+                .compressed(1, 10, 101)
+                .compressed(1, 10, 102)
+                .compressed(1, 5, 103)
+                .compressed(1, 31, 104)
+                .compressed(1, 0, 105);
+
+        ActivityStreams streams = parse(fit.bytes()).streams();
+        assertEquals(6, streams.size());
+        int[] times = new int[streams.size()];
+        for (int i = 0; i < times.length; i++) times[i] = streams.time(i);
+        assertEquals("[0, 2, 2, 29, 55, 56]", Arrays.toString(times));
+        assertEquals(105, streams.heartrate(5));
+    }
+
+    @Test
+    void skipsDeveloperFieldsAndReadsBigEndianMessages() throws IOException {
+        FitFile fit = new FitFile()
+                .definition(0, RECORD, true, new int[][]{{253, 4}, {3, 1}}, 3, 2)
+                .data(0, 2000, 140, 0xAA, 0xBB, 0xCC, 0xDD, 0xEE)
+                .data(0, 2001, 141, 0xAA, 0xBB, 0xCC, 0xDD, 0xEE);
+
+        ActivityStreams streams = parse(fit.bytes()).streams();
+        assertEquals(2, streams.size());
+        assertEquals(1, streams.time(1));
+        assertEquals(140, streams.heartrate(0));
+        assertEquals(141, streams.heartrate(1));
+        assertFalse(streams.has(Channel.ALTITUDE));
+    }
+
+    @Test
+    void rejectsWhatIsNotAFitFile() {
+        assertThrows(IOException.class, () -> parse("<gpx></gpx>".getBytes()));
+        assertThrows(IOException.class, () -> parse(new byte[0]));
+        // a data message for a local type that was never defined
+        byte[] undefined = new FitFile().data(3).bytes();
+        assertThrows(IOException.class, () -> parse(undefined));
+    }
+
+    @Test
+    void truncatedOrCorruptFilesFailWithIOExceptionOrParse() {
+        byte[] original = new FitFile()
+                .definition(0, RECORD, true, new int[][]{{253, 4}, {0, 4}, {1, 4}, {78, 4}, {3, 1}}, 2)
+                .definition(1, RECORD, false, new int[][]{{0, 4}, {1, 4}, {3, 1}})
+                .data(0, 1000, semicircles(48.1), semicircles(11.5), 3000, 130, 1, 2)
+                .compressed(1, 9, semicircles(48.1), semicircles(11.5), 131)
+                .definition(2, RECORD, false, new int[][]{{253, 4}, {5, 4}})
+                .data(2, 1020, 5000)
+                .bytes();
+
+        for (int length = 0; length < original.length; length++) {
+            assertIOExceptionOrParses(Arrays.copyOf(original, length));
+        }
+        SplittableRandom random = new SplittableRandom(20);
+        for (int i = 0; i < 5_000; i++) {
+            byte[] corrupt = original.clone();
+            for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+            }
+            assertIOExceptionOrParses(corrupt);
+        }
+    }
+
+    private static void assertIOExceptionOrParses(byte[] bytes) {
+        try {
+            parse(bytes);
+        } catch (IOException expected) {
+            // rejected
+        }
+    }
+
+    private static TrackData parse(byte[] bytes) throws IOException {
+        return FitTrackParser.parse(new ByteArrayInputStream(bytes));
+    }
+
+    private static long semicircles(double degrees) {
+        return Math.round(degrees * DEGREES_TO_SEMICIRCLES) & 0xFFFF_FFFFL;
+    }
+
+    /** Writes FIT files message by message; field values are written in each definition's byte order */
+    private static final class FitFile {
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final int[][] sizes = new int[16][];
+        private final int[][] developerSizes = new int[16][];
+        private final boolean[] bigEndian = new boolean[16];
+
+        /** Definition of local type {@code local}: {field number, size} pairs, then developer field sizes */
+        FitFile definition(int local, int global, boolean bigEndian, int[][] fields, int... developerSizes) {
+            boolean developer = developerSizes.length > 0;
+            records.write(0x40 | (developer ? 0x20 : 0) | local);
+            records.write(0);
+            records.write(bigEndian ? 1 : 0);
+            write(global, 2, bigEndian);
+            records.write(fields.length);
+            this.sizes[local] = new int[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                records.write(fields[i][0]);
+                records.write(fields[i][1]);
+                records.write(0);
+                this.sizes[local][i] = fields[i][1];
+            }
+            if (developer) {
+                records.write(developerSizes.length);
+                for (int i = 0; i < developerSizes.length; i++) {
+                    records.write(i);
+                    records.write(developerSizes[i]);
+                    records.write(0);
+                }
+            }
+            this.developerSizes[local] = developerSizes;
+            this.bigEndian[local] = bigEndian;
+            return this;
+        }
+
+        /** Data message: one value per field, then one byte per developer field byte */
+        FitFile data(int local, long... values) {
+            records.write(local);
+            return values(local, values);
+        }
+
+        /** Data message with a compressed-timestamp header, {@code offset} seconds into the 32 s block */
+        FitFile compressed(int local, int offset, long... values) {
+            records.write(0x80 | local << 5 | offset);
+            return values(local, values);
+        }
+
+        private FitFile values(int local, long... values) {
+            if (sizes[local] == null) return this;
+            int i = 0;
+            for (int size : sizes[local]) write(values[i++], size, bigEndian[local]);
+            for (int size : developerSizes[local]) {
+                for (int b = 0; b < size; b++) records.write((int) values[i++]);
+            }
+            return this;
+        }
+
+        private void write(long value, int size, boolean bigEndian) {
+            for (int i = 0; i < size; i++) {
+                int shift = 8 * (bigEndian ? size - 1 - i : i);
+                records.write((int) (value >>> shift));
+            }
+        }
+
+        byte[] bytes() {
+            byte[] body = records.toByteArray();
+            ByteArrayOutputStream file = new ByteArrayOutputStream();
+            file.write(14);
+            file.write(0x10);
+            file.writeBytes(new byte[]{(byte) 0x08, (byte) 0x08}); // profile version
+            for (int i = 0; i < 4; i++) file.write(body.length >>> 8 * i);
+            file.writeBytes(".FIT".getBytes());
+            file.writeBytes(new byte[2]); // header CRC, not checked
+            file.writeBytes(body);
+            file.writeBytes(new byte[2]); // file CRC, not checked
+            return file.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.strava.stravacli.importer;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XmlTrackParserTest {
+    private static final String GPX = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <gpx creator="Garmin" version="1.1" xmlns="http://www.topografix.com/GPX/1/1"
+                 xmlns:gpxtpx="http://www.garmin.com/xmlschemas/TrackPointExtension/v1">
+              <metadata><time>2024-05-01T06:59:00Z</time></metadata>
+              <trk><name>Morning Ride</name><trkseg>
+                <trkpt lat="48.1000000" lon="11.5000000">
+                  <ele>520.4</ele><time>2024-05-01T07:00:00Z</time>
+                  <extensions><gpxtpx:TrackPointExtension>
+                    <gpxtpx:hr>121</gpxtpx:hr><gpxtpx:cad>85</gpxtpx:cad>
+                  </gpxtpx:TrackPointExtension><power>210</power></extensions>
+                </trkpt>
+                <trkpt lat="48.1010000" lon="11.5000000">
+                  <ele>523.0</ele><time>2024-05-01T07:00:10.500Z</time>
+                </trkpt>
+                <trkpt lat="48.1020000" lon="11.5000000"><ele>524.0</ele></trkpt>
+                <trkpt lat="48.1030000" lon="11.5000000"><time>2024-05-01T09:00:20+02:00</time></trkpt>
+              </trkseg></trk>
+            </gpx>
+            """;
+
+    private static final String TCX = """
+            \r
+              <?xml version="1.0" encoding="UTF-8"?>
+            <TrainingCenterDatabase xmlns="http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2"
+                xmlns:ns3="http://www.garmin.com/xmlschemas/ActivityExtension/v2">
+              <Activities><Activity Sport="Running"><Lap StartTime="2024-05-02T18:00:00Z">
+                <Track>
+                  <Trackpoint>
+                    <Time>2024-05-02T18:00:00Z</Time>
+                    <Position><LatitudeDegrees>52.5</LatitudeDegrees><LongitudeDegrees>13.4</LongitudeDegrees></Position>
+                    <AltitudeMeters>34.0</AltitudeMeters><DistanceMeters>0.0</DistanceMeters>
+                    <HeartRateBpm><Value>140</Value></HeartRateBpm>
+                    <Extensions><ns3:TPX><ns3:Watts>250</ns3:Watts><ns3:RunCadence>88</ns3:RunCadence></ns3:TPX></Extensions>
+                  </Trackpoint>
+                  <Trackpoint>
+                    <Time>2024-05-02T18:00:05Z</Time>
+                    <DistanceMeters>15.5</DistanceMeters>
+                    <HeartRateBpm><Value>142</Value></HeartRateBpm>
+                  </Trackpoint>
+                </Track>
+              </Lap></Activity></Activities>
+            </TrainingCenterDatabase>
+            """;
+
+    @Test
+    void readsGpxTrackPointsWithExtensions() throws IOException {
+        TrackData track = parse(GPX);
+        ActivityStreams streams = track.streams();
+
+        assertEquals(Instant.parse("2024-05-01T07:00:00Z").getEpochSecond(), track.startEpochSecond());
+        assertEquals(3, streams.size()); // the point without a time is dropped
+        assertEquals(10, streams.time(1));
+        assertEquals(20, streams.time(2)); // offset timestamp
+        assertEquals(48.103, streams.latitude(2), 1e-7);
+        assertEquals(520.4, streams.altitude(0), 1e-3);
+        assertEquals(523.0, streams.altitude(2), 1e-3); // carried over
+        assertEquals(121, streams.heartrate(0));
+        assertEquals(85, streams.cadence(0));
+        assertEquals(210, streams.watts(0));
+        assertEquals(0, streams.heartrate(1));
+        // no recorded distance: accumulated along the track, about 111 m per 0.001 degrees of latitude
+        assertEquals(111.2, streams.distance(1), 0.5);
+        assertEquals(333.6, streams.distance(2), 1.5);
+    }
+
+    @Test
+    void readsTcxTrackPointsAfterLeadingBlankSpace() throws IOException {
+        TrackData track = parse(TCX);
+        ActivityStreams streams = track.streams();
+
+        assertEquals(2, streams.size());
+        assertEquals(5, streams.time(1));
+        assertEquals(52.5, streams.latitude(0), 1e-7);
+        assertEquals(13.4, streams.longitude(0), 1e-7);
+        assertEquals(34.0, streams.altitude(1), 1e-3);
+        assertEquals(15.5, streams.distance(1), 1e-3);
+        assertEquals(140, streams.heartrate(0));
+        assertEquals(142, streams.heartrate(1));
+        assertEquals(250, streams.watts(0));
+        assertEquals(88, streams.cadence(0));
+    }
+
+    @Test
+    void skipsUnreadableValues() throws IOException {
+        ActivityStreams streams = parse("""
+                <gpx><trk><trkseg>
+                  <trkpt lat="north" lon="11.5"><time>yesterday</time></trkpt>
+                  <trkpt lat="48.1" lon="east"><time>2024-05-01T07:00:00Z</time><ele>high</ele><hr>-5</hr></trkpt>
+                </trkseg></trk></gpx>
+                """).streams();
+
+        assertEquals(1, streams.size());
+        assertFalse(streams.has(Channel.LATLNG));
+        assertFalse(streams.has(Channel.ALTITUDE));
+        assertFalse(streams.has(Channel.HEARTRATE));
+    }
+
+    @Test
+    void ignoresDocumentTypeDeclarations() throws IOException {
+        TrackData track = parse("""
+                <?xml version="1.0"?>
+                <!DOCTYPE gpx [<!ENTITY secret SYSTEM "file:///etc/passwd">]>
+                <gpx><trk><trkseg><trkpt lat="1" lon="2"><time>2024-05-01T07:00:00Z</time></trkpt></trkseg></trk></gpx>
+                """);
+        assertEquals(1, track.streams().size());
+    }
+
+    @Test
+    void malformedFilesFailWithIOException() {
+        assertThrows(IOException.class, () -> parse("<gpx><trk><trkseg><trkpt lat=\"1\" lon=\"2\">"));
+        assertThrows(IOException.class, () -> parse("<gpx><trkpt><time>2024-05-01T07:00:00Z</trkpt></gpx>"));
+        assertThrows(IOException.class, () -> parse("not xml at all"));
+        assertThrows(IOException.class, () -> parse(""));
+        // element text expected, child element found
+        assertThrows(IOException.class, () -> parse("<gpx><trkpt><time><b/></time></trkpt></gpx>"));
+    }
+
+    @Test
+    void truncatedOrCorruptFilesFailWithIOExceptionOrParse() {
+        for (String file : new String[]{GPX, TCX}) {
+            byte[] original = file.getBytes(StandardCharsets.UTF_8);
+            for (int length = 0; length < original.length; length += 7) {
+                assertIOExceptionOrParses(Arrays.copyOf(original, length));
+            }
+            SplittableRandom random = new SplittableRandom(file.length());
+            for (int i = 0; i < 1_000; i++) {
+                byte[] corrupt = original.clone();
+                corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+                assertIOExceptionOrParses(corrupt);
+            }
+        }
+    }
+
+    @Test
+    void parsesTimestampsByHandAndFallsBackToOffsets() {
+        assertEquals(Instant.parse("2024-02-29T23:59:59Z").getEpochSecond(),
+                TrackBuilder.parseEpochSecond(" 2024-02-29T23:59:59.999Z "));
+        assertEquals(Instant.parse("1969-12-31T00:00:00Z").getEpochSecond(),
+                TrackBuilder.parseEpochSecond("1969-12-31T00:00:00Z"));
+        assertEquals(Instant.parse("2024-05-01T07:00:00Z").getEpochSecond(),
+                TrackBuilder.parseEpochSecond("2024-05-01T09:00:00+02:00"));
+        assertEquals(Long.MIN_VALUE, TrackBuilder.parseEpochSecond("2024-13-01T00:00:00Z"));
+        assertEquals(Long.MIN_VALUE, TrackBuilder.parseEpochSecond("2024-05-01T0x:00:00Z"));
+        assertEquals(Long.MIN_VALUE, TrackBuilder.parseEpochSecond(""));
+    }
+
+    private static void assertIOExceptionOrParses(byte[] bytes) {
+        try {
+            XmlTrackParser.parse(new ByteArrayInputStream(bytes));
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage() != null);
+        }
+    }
+
+    private static TrackData parse(String file) throws IOException {
+        return XmlTrackParser.parse(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+    }
+}
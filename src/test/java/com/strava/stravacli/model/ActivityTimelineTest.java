@@ -0,0 +1,103 @@
+package com.strava.stravacli.model;
+
+import com.strava.stravacli.TestActivities;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityTimelineTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 10);
+
+    @Test
+    void sortsByDateKeepingTheOrderWithinADay() {
+        List<Activity> activities = List.of(
+                activity("b1", DAY.plusDays(1)), activity("a1", DAY), activity("b2", DAY.plusDays(1)),
+                activity("a2", DAY), activity("c1", DAY.plusDays(3)), activity("a3", DAY));
+        ActivityTimeline timeline = ActivityTimeline.of(activities);
+
+        assertEquals(List.of("a1", "a2", "a3", "b1", "b2", "c1"), ids(timeline.activities()));
+        assertEquals(DAY, timeline.firstDate());
+        assertEquals(DAY.plusDays(3), timeline.lastDate());
+        assertEquals(DAY.plusDays(1).toEpochDay(), timeline.epochDay(3));
+    }
+
+    @Test
+    void indexOfFindsTheFirstActivityOnOrAfterTheDay() {
+        ActivityTimeline timeline = ActivityTimeline.of(List.of(
+                activity("a1", DAY), activity("a2", DAY), activity("a3", DAY),
+                activity("b1", DAY.plusDays(1)), activity("b2", DAY.plusDays(1)),
+                activity("c1", DAY.plusDays(3))));
+
+        assertEquals(0, timeline.indexOf(DAY.minusDays(100).toEpochDay()));
+        assertEquals(0, timeline.indexOf(DAY.toEpochDay()));
+        assertEquals(3, timeline.indexOf(DAY.plusDays(1).toEpochDay()));
+        assertEquals(5, timeline.indexOf(DAY.plusDays(2).toEpochDay())); // no activity: the next day's
+        assertEquals(5, timeline.indexOf(DAY.plusDays(3).toEpochDay()));
+        assertEquals(6, timeline.indexOf(DAY.plusDays(4).toEpochDay()));
+    }
+
+    @Test
+    void betweenIncludesEveryActivityOnBothBoundaryDays() {
+        ActivityTimeline timeline = ActivityTimeline.of(List.of(
+                activity("z", DAY.minusDays(1)),
+                activity("a1", DAY), activity("a2", DAY), activity("a3", DAY),
+                activity("b1", DAY.plusDays(1)),
+                activity("c1", DAY.plusDays(2)), activity("c2", DAY.plusDays(2)),
+                activity("d", DAY.plusDays(3))));
+
+        assertEquals(List.of("a1", "a2", "a3", "b1", "c1", "c2"), ids(timeline.between(DAY, DAY.plusDays(2))));
+        assertEquals(List.of("a1", "a2", "a3"), ids(timeline.between(DAY, DAY)));
+        assertEquals(List.of("c1", "c2", "d"), ids(timeline.lastDays(2, DAY.plusDays(3))));
+        assertEquals(List.of(), timeline.between(DAY.plusDays(1), DAY));
+        assertEquals(List.of(), timeline.between(DAY.plusDays(10), DAY.plusDays(20)));
+        assertEquals(8, timeline.year(2024).size());
+        assertTrue(timeline.year(2023).isEmpty());
+    }
+
+    @Test
+    void betweenMatchesAFilterOverRandomRanges() {
+        List<Activity> activities = new ArrayList<>(TestActivities.generate(1_000, 29));
+        Collections.shuffle(activities, new java.util.Random(29));
+        ActivityTimeline timeline = ActivityTimeline.of(activities);
+        long first = timeline.firstDate().toEpochDay() - 5;
+        long span = timeline.lastDate().toEpochDay() + 5 - first;
+
+        SplittableRandom random = new SplittableRandom(29);
+        for (int i = 0; i < 500; i++) {
+            LocalDate from = LocalDate.ofEpochDay(first + random.nextLong(span));
+            LocalDate to = from.plusDays(random.nextInt(60));
+            List<Activity> expected = timeline.activities().stream()
+                    .filter(a -> !a.getStartLocalDate().isBefore(from) && !a.getStartLocalDate().isAfter(to))
+                    .toList();
+            assertEquals(expected, timeline.between(from, to), from + " to " + to);
+        }
+    }
+
+    @Test
+    void emptyTimeline() {
+        ActivityTimeline timeline = ActivityTimeline.of(List.of());
+        assertTrue(timeline.isEmpty());
+        assertNull(timeline.firstDate());
+        assertEquals(0, timeline.indexOf(DAY.toEpochDay()));
+        assertEquals(List.of(), timeline.between(DAY, DAY.plusDays(7)));
+    }
+
+    private static Activity activity(String id, LocalDate date) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setStartDateLocal(date.atTime(7, 0) + ":00Z");
+        return activity;
+    }
+
+    private static List<String> ids(List<Activity> activities) {
+        return activities.stream().map(Activity::getId).toList();
+    }
+}
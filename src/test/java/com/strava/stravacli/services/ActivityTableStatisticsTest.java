@@ -0,0 +1,47 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityTable;
+import com.strava.stravacli.model.ActivityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityTableStatisticsTest {
+    private final StatisticsService statistics = new StatisticsService(new MetricsRegistry());
+
+    @Test
+    void tableGivesTheSameStatisticsAsTheActivities() {
+        List<Activity> activities = TestActivities.generate(5000, 11);
+        assertEquals(statistics.getStatistics(activities), statistics.getStatistics(ActivityTable.from(activities)));
+    }
+
+    @Test
+    void tableKeepsTheTypeOfEveryRow() {
+        List<Activity> activities = TestActivities.generate(500, 3);
+        ActivityTable table = ActivityTable.from(activities);
+        for (int row = 0; row < activities.size(); row++) {
+            assertEquals(activities.get(row).getActivityType(), table.type(row));
+            assertEquals(activities.get(row).getType(), table.typeName(row));
+        }
+    }
+
+    @Test
+    void mostFrequentTypeCountsUnknownTypesByTheirOwnName() {
+        List<Activity> activities = new ArrayList<>(TestActivities.generate(3, 5));
+        for (int i = 0; i < 5; i++) {
+            Activity activity = TestActivities.generate(1, i).get(0);
+            activity.setType("Kitesurfing");
+            activities.add(activity);
+        }
+        assertEquals(ActivityType.OTHER, activities.get(3).getActivityType());
+        assertEquals("Kitesurfing", statistics.getStatistics(activities).mostFrequentActivityType());
+        assertEquals("Kitesurfing", statistics.getStatistics(ActivityTable.from(activities)).mostFrequentActivityType());
+        assertEquals("Kitesurfing", statistics.mostFrequentActivityType(activities));
+    }
+}
@@ -0,0 +1,124 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import com.strava.stravacli.model.EffortTarget;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BestEffortCalculatorTest {
+
+    @Test
+    void fastestTimeMatchesEveryPairOfSamples() {
+        for (long seed = 0; seed < 50; seed++) {
+            ActivityStreams streams = streams(200 + (int) seed * 20, seed);
+            for (double meters : new double[]{1, 100, 400, 1000, 5000}) {
+                assertEquals(bruteForceFastestTime(streams, meters),
+                        BestEffortCalculator.fastestTime(streams, meters), "seed " + seed + ", " + meters + " m");
+            }
+        }
+    }
+
+    @Test
+    void bestAverageMatchesEveryWindow() {
+        for (long seed = 0; seed < 50; seed++) {
+            ActivityStreams streams = streams(200 + (int) seed * 20, seed);
+            for (Channel channel : new Channel[]{Channel.WATTS, Channel.HEARTRATE}) {
+                for (int seconds : new int[]{1, 7, 60, 300, 1200}) {
+                    assertEquals(bruteForceBestAverage(streams, channel, seconds),
+                            BestEffortCalculator.bestAverage(streams, channel, seconds), 1e-9,
+                            "seed " + seed + ", " + channel + " over " + seconds + " s");
+                }
+            }
+        }
+    }
+
+    @Test
+    void targetsBeyondTheActivityAreLeftOut() {
+        ActivityStreams streams = streams(300, 1);
+        Map<EffortTarget, Double> efforts = BestEffortCalculator.compute(streams);
+
+        assertTrue(efforts.containsKey(EffortTarget.FASTEST_1K));
+        assertTrue(efforts.containsKey(EffortTarget.POWER_5_MIN));
+        assertFalse(efforts.containsKey(EffortTarget.FASTEST_HALF_MARATHON));
+        assertFalse(efforts.containsKey(EffortTarget.HEARTRATE_60_MIN));
+        assertEquals(BestEffortCalculator.fastestTime(streams, 1000), efforts.get(EffortTarget.FASTEST_1K));
+    }
+
+    /** Shortest time between any two samples at least {@code meters} apart, -1 if none */
+    private static double bruteForceFastestTime(ActivityStreams streams, double meters) {
+        int best = Integer.MAX_VALUE;
+        for (int start = 0; start < streams.size(); start++) {
+            for (int end = start + 1; end < streams.size(); end++) {
+                if (streams.distance(end) - streams.distance(start) >= meters) {
+                    best = Math.min(best, streams.time(end) - streams.time(start));
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Spreads each sample's value over the (capped) seconds before it, then averages every
+     * window of {@code seconds} whole seconds; -1 if the activity is shorter.
+     */
+    private static double bruteForceBestAverage(ActivityStreams streams, Channel channel, int seconds) {
+        int origin = streams.time(0);
+        int duration = streams.time(streams.size() - 1) - origin;
+        if (duration < seconds) return -1;
+
+        long[] perSecond = new long[duration];
+        for (int sample = 1; sample < streams.size(); sample++) {
+            int end = streams.time(sample) - origin;
+            int gap = Math.min(BestEffortCalculator.MAX_SAMPLE_GAP_SECONDS, streams.time(sample) - streams.time(sample - 1));
+            int value = channel == Channel.WATTS ? streams.watts(sample) : streams.heartrate(sample);
+            for (int second = end - gap; second < end; second++) perSecond[second] = value;
+        }
+
+        long best = 0;
+        for (int from = 0; from + seconds <= duration; from++) {
+            long sum = 0;
+            for (int second = from; second < from + seconds; second++) sum += perSecond[second];
+            best = Math.max(best, sum);
+        }
+        return (double) best / seconds;
+    }
+
+    /** Samples 1-8 s apart (gaps over 5 s are pauses), with stops, sprints and power spikes */
+    private static ActivityStreams streams(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ByteBuffer time = buffer(size, Channel.TIME);
+        ByteBuffer distance = buffer(size, Channel.DISTANCE);
+        ByteBuffer heartrate = buffer(size, Channel.HEARTRATE);
+        ByteBuffer watts = buffer(size, Channel.WATTS);
+
+        int seconds = 1000 + random.nextInt(1000);
+        float meters = 0;
+        for (int i = 0; i < size; i++) {
+            int gap = random.nextInt(10) == 0 ? 6 + random.nextInt(3) : 1 + random.nextInt(3);
+            if (i > 0) {
+                seconds += gap;
+                meters += random.nextInt(8) == 0 ? 0 : random.nextFloat() * 6 * gap;
+            }
+            time.putInt(seconds);
+            distance.putFloat(meters);
+            heartrate.putShort((short) (60 + random.nextInt(130)));
+            watts.putShort((short) (random.nextInt(20) == 0 ? 900 + random.nextInt(300) : random.nextInt(400)));
+        }
+        return ActivityStreams.of(size, Map.of(
+                Channel.TIME, time.flip(), Channel.DISTANCE, distance.flip(),
+                Channel.HEARTRATE, heartrate.flip(), Channel.WATTS, watts.flip()));
+    }
+
+    private static ByteBuffer buffer(int size, Channel channel) {
+        return ByteBuffer.allocate(size * channel.bytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
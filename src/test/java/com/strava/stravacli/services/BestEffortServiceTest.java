@@ -0,0 +1,58 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityType;
+import com.strava.stravacli.model.BestEffortRollup;
+import com.strava.stravacli.model.EffortTarget;
+import com.strava.stravacli.store.BestEffortCache;
+import com.strava.stravacli.store.StreamStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BestEffortServiceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void bestsAreKeptApartPerCategory() {
+        BestEffortCache cache = new BestEffortCache(directory.resolve("efforts.json"));
+        cache.putAll(Map.of(
+                "1", Map.of(EffortTarget.FASTEST_1K, 300.0),
+                "2", Map.of(EffortTarget.FASTEST_1K, 280.0),
+                "3", Map.of(EffortTarget.FASTEST_1K, 90.0, EffortTarget.POWER_5_MIN, 310.0),
+                "4", Map.of(EffortTarget.FASTEST_1K, 200.0)));
+        BestEffortService service = new BestEffortService(new StreamStore(directory.resolve("streams")), cache,
+                new MetricsRegistry());
+
+        BestEffortRollup rollup = service.rollup(List.of(
+                activity("1", "Run", "2024-05-01T07:00:00Z"),
+                activity("2", "TrailRun", "2025-05-01T07:00:00Z"),
+                activity("3", "GravelRide", "2025-06-01T07:00:00Z"),
+                activity("4", "Run", null)));
+
+        assertEquals(Set.of(ActivityType.RUN, ActivityType.RIDE), rollup.byCategory().keySet());
+        BestEffortRollup.Bests run = rollup.byCategory().get(ActivityType.RUN);
+        assertEquals("2", run.allTime().get(EffortTarget.FASTEST_1K).activityId());
+        assertEquals(Set.of(EffortTarget.FASTEST_1K), run.allTime().keySet());
+        assertEquals(300.0, run.byYear().get(2024).get(EffortTarget.FASTEST_1K).value());
+        BestEffortRollup.Bests ride = rollup.byCategory().get(ActivityType.RIDE);
+        assertEquals(90.0, ride.allTime().get(EffortTarget.FASTEST_1K).value());
+        assertEquals(Set.of(2025), ride.byYear().keySet());
+    }
+
+    private static Activity activity(String id, String type, String startDateLocal) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setType(type);
+        activity.setStartDateLocal(startDateLocal);
+        return activity;
+    }
+}
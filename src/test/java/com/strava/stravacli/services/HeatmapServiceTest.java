@@ -0,0 +1,105 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.Heatmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeatmapServiceTest {
+    private final HeatmapService service = new HeatmapService(new MetricsRegistry());
+
+    @Test
+    void lowersTheZoomUntilTheGridFits() {
+        // one degree square: about 11,650 tiles a side at zoom 22
+        List<Activity> activities = List.of(route(new int[]{0, 0}, new int[]{100_000, 100_000}));
+        Heatmap heatmap = service.heatmap(activities, HeatmapService.MAX_ZOOM);
+
+        assertTrue(heatmap.zoom() < HeatmapService.MAX_ZOOM);
+        assertTrue((long) heatmap.width() * heatmap.height() <= HeatmapService.MAX_CELLS);
+        // one zoom level deeper at least doubles each side (less the partial tile) and no longer fits
+        assertTrue((2L * heatmap.width() - 1) * (2L * heatmap.height() - 1) > HeatmapService.MAX_CELLS,
+                heatmap.width() + " x " + heatmap.height() + " at zoom " + heatmap.zoom());
+    }
+
+    @Test
+    void countsOnlyTheEndPointsOfGpsGaps() {
+        // along the equator a tile at zoom 17 is 360 / 2^17 degrees: 1,024 tiles is about 2.81 degrees
+        Heatmap road = service.heatmap(List.of(route(new int[]{0, 0}, new int[]{0, 250_000})), 17);
+        assertEquals(1, road.height());
+        assertEquals(road.width(), road.nonEmptyCells());
+        assertEquals(road.width(), Arrays.stream(road.counts()).sum());
+
+        Heatmap gap = service.heatmap(List.of(route(new int[]{0, 0}, new int[]{0, 300_000})), 17);
+        assertTrue(gap.width() > 1024);
+        assertEquals(2, gap.nonEmptyCells());
+        assertEquals(1, gap.count(0, 0));
+        assertEquals(1, gap.count(gap.width() - 1, 0));
+    }
+
+    @Test
+    void countsEachCellOncePerPass() {
+        Activity there = route(new int[]{0, 0}, new int[]{0, 1_000});
+        Activity back = route(new int[]{0, 1_000}, new int[]{0, 0});
+        Heatmap heatmap = service.heatmap(List.of(there, back, route()), 17);
+
+        assertEquals(2, heatmap.activities());
+        assertTrue(Arrays.stream(heatmap.counts()).allMatch(count -> count == 2));
+    }
+
+    @Test
+    void sequentialAndParallelGiveTheSameCounts() throws Exception {
+        List<Activity> activities = randomRoutes(2_000, 13);
+        activities.get(7).setSummaryPolyline("_p~iF~ps|"); // unreadable
+
+        Heatmap sequential = new ForkJoinPool(1).submit(() -> service.heatmap(activities, 15)).get();
+        Heatmap parallel = new ForkJoinPool(8).submit(() -> service.heatmap(activities, 15)).get();
+        Heatmap common = service.heatmap(activities, 15);
+
+        for (Heatmap heatmap : List.of(parallel, common)) {
+            assertEquals(sequential.zoom(), heatmap.zoom());
+            assertEquals(sequential.originX(), heatmap.originX());
+            assertEquals(sequential.originY(), heatmap.originY());
+            assertEquals(sequential.width(), heatmap.width());
+            assertEquals(sequential.height(), heatmap.height());
+            assertArrayEquals(sequential.counts(), heatmap.counts());
+            assertEquals(sequential.points(), heatmap.points());
+        }
+        assertEquals(1_999, sequential.activities());
+        assertEquals(1, sequential.invalid());
+    }
+
+    /** Random walks around one town, so routes overlap and cross chunk boundaries */
+    private static List<Activity> randomRoutes(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Activity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int[][] points = new int[2 + random.nextInt(200)][];
+            int latitude = 4_800_000 + random.nextInt(-5_000, 5_000);
+            int longitude = 1_100_000 + random.nextInt(-5_000, 5_000);
+            for (int p = 0; p < points.length; p++) {
+                latitude += random.nextInt(-200, 201);
+                longitude += random.nextInt(-200, 201);
+                points[p] = new int[]{latitude, longitude};
+            }
+            activities.add(route(points));
+        }
+        return activities;
+    }
+
+    private static Activity route(int[]... pointsE5) {
+        Activity activity = new Activity();
+        activity.setSummaryPolyline(TestActivities.polyline(pointsE5));
+        return activity;
+    }
+}
@@ -0,0 +1,62 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityPrediction;
+import com.strava.stravacli.store.ActivityStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PredictionServiceTest {
+    private final PredictionService predictions = new PredictionService(new MetricsRegistry());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storePredictionsFollowAppendsAndRewrites() {
+        List<Activity> activities = TestActivities.generate(3000, 8);
+        ActivityStore store = new ActivityStore(dir.resolve("activities.json"));
+
+        store.addAll(activities.subList(1000, 2000));
+        assertClose(predictions.getPredictions(activities.subList(1000, 2000)), predictions.getPredictions(store));
+
+        store.addAll(activities.subList(2000, 3000)); // appended: folded in incrementally
+        assertClose(predictions.getPredictions(activities.subList(1000, 3000)), predictions.getPredictions(store));
+
+        store.addAll(activities.subList(0, 1000)); // older history: the store is re-sorted and the model rebuilt
+        assertClose(predictions.getPredictions(activities), predictions.getPredictions(store));
+    }
+
+    @Test
+    void storePredictionsTolerateConcurrentSyncs() {
+        List<Activity> activities = TestActivities.generate(4000, 9);
+        ActivityStore store = new ActivityStore(dir.resolve("activities.json"));
+
+        CompletableFuture<Void> sync = CompletableFuture.runAsync(() -> {
+            for (int from = 0; from < activities.size(); from += 100) {
+                store.addAll(activities.subList(from, from + 100));
+            }
+        });
+        while (!sync.isDone()) {
+            predictions.getPredictions(store);
+        }
+        sync.join();
+
+        assertClose(predictions.getPredictions(activities), predictions.getPredictions(store));
+    }
+
+    /** The store orders same-day activities by start time, so weekly sums may differ in the last bits */
+    private static void assertClose(ActivityPrediction expected, ActivityPrediction actual) {
+        assertEquals(expected.distanceGrowthPerWeek(), actual.distanceGrowthPerWeek(), 1e-9);
+        assertEquals(expected.speedTrendPerWeek(), actual.speedTrendPerWeek(), 1e-9);
+        assertEquals(expected.predictedNextWeekDistance(), actual.predictedNextWeekDistance(), 1e-6);
+    }
+}
@@ -0,0 +1,134 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityStats;
+import com.strava.stravacli.model.ActivityStatsByType;
+import com.strava.stravacli.model.ActivityType;
+import com.strava.stravacli.model.Percentiles;
+import com.strava.stravacli.util.QuantileSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsServiceTest {
+    /** The rank error documented on {@code QuantileSketch} */
+    private static final double MAX_RANK_ERROR = 0.01;
+
+    private final StatisticsService statistics = new StatisticsService(new MetricsRegistry());
+
+    @Test
+    void singlePassIsIdenticalToTheMetricMethods() {
+        for (int size : new int[]{0, 1, 250, QuantileSketch.DEFAULT_EXACT_LIMIT}) {
+            List<Activity> activities = TestActivities.generate(size, size + 31);
+            ActivityStats stats = statistics.getStatistics(activities);
+
+            assertEquals(statistics.totalActivities(activities), stats.totalActivities());
+            assertEquals(statistics.totalDistanceKm(activities), stats.totalDistanceKm());
+            assertEquals(statistics.averageDistanceKm(activities), stats.averageDistanceKm());
+            assertEquals(statistics.longestDistanceKm(activities), stats.longestDistanceKm());
+            assertEquals(statistics.totalMovingTime(activities), stats.totalMovingTime());
+            assertEquals(statistics.averageSpeedKmh(activities), stats.averageSpeedKmh());
+            assertEquals(statistics.totalElevationGain(activities), stats.totalElevationGain());
+            assertEquals(statistics.mostFrequentActivityType(activities), stats.mostFrequentActivityType());
+            assertEquals(statistics.medianDistanceKm(activities), stats.medianDistanceKm());
+            assertEquals(statistics.distancePercentilesKm(activities), stats.distancePercentilesKm());
+            assertEquals(statistics.bestWeekNumber(activities), stats.bestWeekNumber());
+            assertEquals(statistics.bestWeekDistance(activities), stats.bestWeekDistanceKm(), 1e-9);
+            assertEquals(statistics.longestStreakDays(activities), stats.longestStreakDays());
+            assertEquals(statistics.elevationPerKm(activities), stats.elevationPerKm());
+            assertEquals(statistics.averagePacePerKm(activities), stats.averagePacePerKm());
+        }
+    }
+
+    @Test
+    void parallelByTypeIsIdenticalToSequential() {
+        List<Activity> activities = TestActivities.generate(StatisticsService.PARALLEL_THRESHOLD + 7_000, 17);
+
+        ActivityStatsByType sequential = statistics.getStatisticsByType(activities, false);
+        ActivityStatsByType parallel = statistics.getStatisticsByType(activities, true);
+
+        assertEquals(sequential, parallel);
+        assertEquals(sequential, statistics.getStatisticsByType(activities));
+    }
+
+    @Test
+    void byTypeMatchesStatisticsOfEachCategory() {
+        List<Activity> activities = TestActivities.generate(StatisticsService.PARALLEL_THRESHOLD + 7_000, 23);
+        ActivityStatsByType byType = statistics.getStatisticsByType(activities, true);
+
+        Set<ActivityType> categories = activities.stream()
+                .map(activity -> activity.getActivityType().category())
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(ActivityType.class)));
+        assertEquals(categories, byType.byType().keySet());
+
+        assertMatches(activities, statistics.getStatistics(activities), byType.overall());
+        for (ActivityType category : categories) {
+            List<Activity> ofCategory = activities.stream()
+                    .filter(activity -> activity.getActivityType().category() == category)
+                    .toList();
+            assertMatches(ofCategory, statistics.getStatistics(ofCategory), byType.byType().get(category));
+        }
+    }
+
+    /**
+     * Chunked merging changes the summation order and the shape of the sketches, so sums get a
+     * relative tolerance and percentiles are checked against the exact ranks of the inputs.
+     */
+    private static void assertMatches(List<Activity> activities, ActivityStats expected, ActivityStats actual) {
+        assertEquals(expected.totalActivities(), actual.totalActivities());
+        assertClose(expected.totalDistanceKm(), actual.totalDistanceKm());
+        assertClose(expected.averageDistanceKm(), actual.averageDistanceKm());
+        assertEquals(expected.longestDistanceKm(), actual.longestDistanceKm());
+        assertEquals(expected.totalMovingTime(), actual.totalMovingTime());
+        assertClose(expected.averageSpeedKmh(), actual.averageSpeedKmh());
+        assertClose(expected.totalElevationGain(), actual.totalElevationGain());
+        assertEquals(expected.mostFrequentActivityType(), actual.mostFrequentActivityType());
+        assertEquals(expected.bestWeekNumber(), actual.bestWeekNumber());
+        assertClose(expected.bestWeekDistanceKm(), actual.bestWeekDistanceKm());
+        assertEquals(expected.longestStreakDays(), actual.longestStreakDays());
+        assertClose(expected.elevationPerKm(), actual.elevationPerKm());
+        assertEquals(expected.averagePacePerKm(), actual.averagePacePerKm());
+        assertEquals(expected.bestEfforts(), actual.bestEfforts());
+
+        assertEquals(actual.distancePercentilesKm().p50(), actual.medianDistanceKm());
+        assertWithinRankBound(activities, activity -> activity.getDistance() / 1000, actual.distancePercentilesKm());
+        assertWithinRankBound(activities.stream().filter(activity -> activity.getDistance() > 0).toList(),
+                activity -> activity.getMovingTime() / (activity.getDistance() / 1000.0),
+                actual.pacePercentilesSecondsPerKm());
+        assertWithinRankBound(activities, activity -> activity.getMovingTime() / 60.0,
+                actual.movingTimePercentilesMinutes());
+        assertWithinRankBound(activities, Activity::getElevationGain, actual.elevationPercentilesMeters());
+    }
+
+    private static void assertWithinRankBound(List<Activity> activities, ToDoubleFunction<Activity> metric,
+                                              Percentiles actual) {
+        if (activities.isEmpty()) {
+            assertEquals(Percentiles.EMPTY, actual);
+            return;
+        }
+        double[] sorted = activities.stream().mapToDouble(metric).sorted().toArray();
+        double[] answers = {actual.p10(), actual.p50(), actual.p90(), actual.p99()};
+        for (int i = 0; i < answers.length; i++) {
+            double q = Percentiles.QUANTILES[i];
+            double low = sorted[(int) Math.floor(Math.max(0, q - MAX_RANK_ERROR) * (sorted.length - 1))];
+            double high = sorted[(int) Math.ceil(Math.min(1, q + MAX_RANK_ERROR) * (sorted.length - 1))];
+            assertTrue(answers[i] >= low && answers[i] <= high,
+                    "p" + Math.round(q * 100) + " " + answers[i] + " outside [" + low + ", " + high + "] "
+                            + Arrays.toString(answers));
+        }
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, Math.abs(expected) * 1e-12);
+    }
+}
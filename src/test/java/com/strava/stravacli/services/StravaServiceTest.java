@@ -0,0 +1,152 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.client.RequestScheduler;
+import com.strava.stravacli.client.StravaClient;
+import com.strava.stravacli.config.StravaConfig;
+import com.strava.stravacli.metrics.MetricsRegistry;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.store.ActivityStore;
+import com.strava.stravacli.token.AccessTokenProvider;
+import com.strava.stravacli.token.TokenData;
+import com.strava.stravacli.token.TokenManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StravaServiceTest {
+    private static final String PAGE_1 = """
+            [{"id": 2, "name": "Morning Run", "type": "Run", "distance": 5000, "moving_time": 1500,
+              "start_date": "2025-02-01T07:00:00Z", "start_date_local": "2025-02-01T08:00:00Z"},
+             {"id": 3, "name": "Evening Ride", "type": "Ride", "distance": 30000, "moving_time": 3600,
+              "start_date": "2025-02-02T17:00:00Z", "start_date_local": "2025-02-02T18:00:00Z"}]
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    /** "page=N If-None-Match" of every activity page request */
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean failPage2 = new AtomicBoolean(true);
+    private HttpServer server;
+    private RequestScheduler scheduler;
+    private StravaClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/athlete/activities", this::page);
+        server.start();
+
+        StravaConfig config = new StravaConfig();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setPageSize(2);
+        scheduler = new RequestScheduler(HttpClient.newHttpClient(), 2, metrics);
+        client = new StravaClient(config, scheduler, metrics);
+    }
+
+    @AfterEach
+    void stopServer() {
+        client.shutdown();
+        scheduler.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void pagesOfAFailedSyncAreFetchedAgainInFull() {
+        ActivityStore store = store();
+        StravaService service = service("token-a", store);
+
+        assertEquals(-1, service.sync()); // page 1 arrives, page 2 fails: nothing is stored
+        assertEquals(1, store.getActivities().size());
+
+        failPage2.set(false);
+        assertEquals(2, service.sync()); // page 1 again in full, not a 304 for activities never stored
+        assertEquals(List.of("page=1 -", "page=2 -", "page=1 -", "page=2 -"), requests);
+        assertEquals(List.of("1", "2", "3"), store.getActivities().stream().map(Activity::getId).toList());
+    }
+
+    @Test
+    void validatorsAreCommittedOnlyForTheTokenThatFetched() {
+        failPage2.set(false);
+        Map<String, StravaClient.PageValidator> received = new HashMap<>();
+        assertTrue(client.fetchActivitiesAfter("token-a", 0, activity -> { }, System.out, received));
+        assertEquals(2, received.size());
+
+        assertTrue(client.fetchActivitiesAfter("token-a", 0, activity -> { }));
+        client.commitValidators(received);
+        List<Activity> fetched = new ArrayList<>();
+        assertTrue(client.fetchActivitiesAfter("token-b", 0, fetched::add));
+        assertEquals(2, fetched.size());
+        assertTrue(client.fetchActivitiesAfter("token-a", 0, activity -> { }));
+
+        assertEquals(List.of("page=1 -", "page=2 -", "page=1 -", "page=2 -", "page=1 -", "page=2 -",
+                "page=1 \"p1\"", "page=2 \"p2\""), requests);
+        client.clearValidators("token-a");
+        assertTrue(client.fetchActivitiesAfter("token-a", 0, activity -> { }));
+        assertFalse(requests.subList(8, 10).stream().anyMatch(request -> request.contains("\"")));
+    }
+
+    private StravaService service(String accessToken, ActivityStore store) {
+        StravaConfig config = new StravaConfig();
+        TokenManager tokens = new TokenManager(config, dir.resolve("token.json"), HttpClient.newHttpClient(), metrics);
+        tokens.saveToken(new TokenData(accessToken, "refresh", Instant.now().getEpochSecond() + 6 * 3600));
+        return new StravaService(client, new AccessTokenProvider(tokens, config), store, config, metrics);
+    }
+
+    /** A store holding one activity, so syncs are incremental */
+    private ActivityStore store() {
+        ActivityStore store = new ActivityStore(dir.resolve("activities.json"));
+        Activity first = new Activity();
+        first.setId("1");
+        first.setType("Run");
+        first.setStartDate("2025-01-01T07:00:00Z");
+        first.setStartDateLocal("2025-01-01T08:00:00Z");
+        store.addAll(List.of(first));
+        return store;
+    }
+
+    /** Page 1 holds two activities (ETag "p1", 304 when revalidated); page 2 is empty or a 500 */
+    private void page(HttpExchange exchange) throws IOException {
+        String page = exchange.getRequestURI().getQuery().replaceAll(".*(page=\\d+).*", "$1");
+        String validator = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(page + " " + (validator == null ? "-" : validator));
+
+        String etag = page.equals("page=1") ? "\"p1\"" : "\"p2\"";
+        if (etag.equals(validator)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else if (page.equals("page=2") && failPage2.get()) {
+            exchange.sendResponseHeaders(500, -1);
+        } else {
+            byte[] body = (page.equals("page=1") ? PAGE_1 : "[]").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityTimeline;
+import com.strava.stravacli.model.TrainingLoad;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrainingLoadServiceTest {
+    private static final double TOLERANCE = 1e-9;
+
+    private final TrainingLoadService service = new TrainingLoadService();
+
+    @Test
+    void seriesMatchesARescanOfEveryWindow() {
+        List<Activity> activities = TestActivities.generate(900, 13);
+        ActivityTimeline timeline = ActivityTimeline.of(activities);
+        // from before the first activity to after the last, so windows run over both ends
+        LocalDate from = timeline.firstDate().minusDays(10);
+        LocalDate to = timeline.lastDate().plusDays(50);
+
+        List<TrainingLoad> series = service.series(timeline, from, to);
+        assertEquals(to.toEpochDay() - from.toEpochDay() + 1, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(from.plusDays(i), series.get(i).date());
+            assertMatchesRescan(activities, series.get(i));
+        }
+        // one day at a time sums from a different first day, so only equal within rounding
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(17)) {
+            assertMatchesRescan(activities, service.trainingLoad(timeline, date));
+        }
+    }
+
+    private static void assertMatchesRescan(List<Activity> activities, TrainingLoad load) {
+        LocalDate date = load.date();
+        double acute = rescan(activities, date, 7, a -> a.getMovingTime() / 60.0) / 7;
+        double chronic = rescan(activities, date, 28, a -> a.getMovingTime() / 60.0) / 28;
+
+        assertEquals(rescan(activities, date, 7, TrainingLoadServiceTest::km), load.rolling7DayKm(), TOLERANCE, date::toString);
+        assertEquals(rescan(activities, date, 28, TrainingLoadServiceTest::km), load.rolling28DayKm(), TOLERANCE, date::toString);
+        assertEquals(rescan(activities, date, 42, TrainingLoadServiceTest::km), load.rolling42DayKm(), TOLERANCE, date::toString);
+        assertEquals(acute, load.acuteLoad(), TOLERANCE, date::toString);
+        assertEquals(chronic, load.chronicLoad(), TOLERANCE, date::toString);
+        assertEquals(chronic == 0 ? 0.0 : acute / chronic, load.acuteChronicRatio(), TOLERANCE, date::toString);
+    }
+
+    @Test
+    void windowsIncludeTheirFirstDayAndNothingBefore() {
+        LocalDate asOf = LocalDate.of(2024, 3, 31);
+        List<Activity> activities = new ArrayList<>();
+        // 1 km on each window's first day, 1000 km on the day before it, and on the day after asOf
+        for (int days : new int[]{7, 28, 42}) {
+            activities.add(activity(asOf.minusDays(days - 1), 1, 60));
+            activities.add(activity(asOf.minusDays(days), 1000, 600));
+        }
+        activities.add(activity(asOf.plusDays(1), 1000, 600));
+
+        TrainingLoad load = service.trainingLoad(ActivityTimeline.of(activities), asOf);
+        assertEquals(1, load.rolling7DayKm(), TOLERANCE);
+        assertEquals(1 + 1000 + 1, load.rolling28DayKm(), TOLERANCE);
+        assertEquals(1 + 1000 + 1 + 1000 + 1, load.rolling42DayKm(), TOLERANCE);
+        assertEquals(60.0 / 7, load.acuteLoad(), TOLERANCE);
+        assertEquals((60 + 600 + 60) / 28.0, load.chronicLoad(), TOLERANCE);
+        assertEquals((60.0 / 7) / ((60 + 600 + 60) / 28.0), load.acuteChronicRatio(), TOLERANCE);
+    }
+
+    @Test
+    void rollingDistanceMatchesARescanForAnyWindow() {
+        List<Activity> activities = TestActivities.generate(300, 17);
+        ActivityTimeline timeline = ActivityTimeline.of(activities);
+        LocalDate from = timeline.firstDate().minusDays(3);
+        LocalDate to = timeline.lastDate().plusDays(3);
+
+        for (int windowDays : new int[]{1, 2, 7, 30, 365}) {
+            double[] rolling = service.rollingDistanceKm(timeline, from, to, windowDays);
+            assertEquals(to.toEpochDay() - from.toEpochDay() + 1, rolling.length);
+            for (int i = 0; i < rolling.length; i++) {
+                LocalDate date = from.plusDays(i);
+                assertEquals(rescan(activities, date, windowDays, TrainingLoadServiceTest::km), rolling[i], TOLERANCE,
+                        windowDays + " days to " + date);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.rollingDistanceKm(timeline, from, to, 0));
+    }
+
+    @Test
+    void emptyHistoryAndEmptyRanges() {
+        ActivityTimeline empty = ActivityTimeline.of(List.of());
+        LocalDate day = LocalDate.of(2024, 1, 1);
+
+        TrainingLoad load = service.trainingLoad(empty, day);
+        assertEquals(new TrainingLoad(day, 0, 0, 0, 0, 0, 0), load);
+        assertTrue(service.series(empty, day, day.minusDays(1)).isEmpty());
+        assertEquals(0, service.rollingDistanceKm(empty, day, day.minusDays(1), 7).length);
+    }
+
+    /** Sum of {@code value} over the activities in the {@code days} days ending with {@code asOf}, by full scan */
+    private static double rescan(List<Activity> activities, LocalDate asOf, int days, ToDoubleFunction<Activity> value) {
+        LocalDate first = asOf.minusDays(days - 1L);
+        double sum = 0;
+        for (Activity activity : activities) {
+            LocalDate date = activity.getStartLocalDate();
+            if (!date.isBefore(first) && !date.isAfter(asOf)) sum += value.applyAsDouble(activity);
+        }
+        return sum;
+    }
+
+    private static double km(Activity activity) {
+        return activity.getDistance() / 1000.0;
+    }
+
+    private static Activity activity(LocalDate date, double km, long movingMinutes) {
+        Activity activity = new Activity();
+        activity.setStartDateLocal(date.atTime(23, 59) + ":00Z");
+        activity.setDistance(km * 1000);
+        activity.setMovingTime(movingMinutes * 60);
+        return activity;
+    }
+}
@@ -0,0 +1,38 @@
+package com.strava.stravacli.services;
+
+import com.strava.stravacli.TestActivities;
+import com.strava.stravacli.model.Activity;
+import com.strava.stravacli.model.ActivityPrediction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WeeklyTrendModelTest {
+
+    @Test
+    void incrementalUpdatesMatchAFreshFit() {
+        List<Activity> activities = TestActivities.generate(6000, 21);
+        WeeklyTrendModel incremental = new WeeklyTrendModel();
+        for (int i = 0; i < activities.size(); i++) {
+            incremental.add(activities.get(i));
+            if (i % 7 == 0) incremental.predictions(); // read between updates, as the store path does
+        }
+
+        assertEquals(WeeklyTrendModel.of(activities).predictions(), incremental.predictions());
+    }
+
+    @Test
+    void predictionsFollowALinearWeeklyTrend() {
+        WeeklyTrendModel model = new WeeklyTrendModel();
+        long monday = 20_000 - (20_000 + 3) % 7; // epochWeek counts Monday-based weeks
+        for (int week = 0; week < 100; week++) {
+            model.add(monday + week * 7L, (10 + 2 * week) * 1000.0, 3600);
+        }
+
+        ActivityPrediction predictions = model.predictions();
+        assertEquals(2.0, predictions.distanceGrowthPerWeek(), 1e-9);
+        assertEquals(210.0, predictions.predictedNextWeekDistance(), 1e-6);
+    }
+}
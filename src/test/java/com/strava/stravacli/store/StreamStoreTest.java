@@ -0,0 +1,67 @@
+package com.strava.stravacli.store;
+
+import com.strava.stravacli.model.ActivityStreams;
+import com.strava.stravacli.model.ActivityStreams.Channel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsWhatWasSaved() throws IOException {
+        StreamStore store = new StreamStore(directory);
+        store.save("42", streams(100));
+        store.save("43", ActivityStreams.empty());
+
+        ActivityStreams loaded = store.load("42");
+        assertEquals(100, loaded.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, loaded.time(i));
+            assertEquals(i * 7.5f, loaded.distance(i));
+            assertEquals(100 + i, loaded.heartrate(i));
+        }
+        assertEquals(0, store.load("43").size());
+        assertNull(store.load("44"));
+    }
+
+    @Test
+    void corruptSampleCountsFailWithIOException() throws IOException {
+        StreamStore store = new StreamStore(directory);
+        store.save("42", streams(100));
+        Path file = directory.resolve("42.bin");
+        byte[] original = Files.readAllBytes(file);
+
+        for (int size : new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE / 2 + 1, 101}) {
+            byte[] bytes = original.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(8, size);
+            Files.write(file, bytes);
+            assertThrows(IOException.class, () -> store.load("42"), "sample count " + size);
+        }
+    }
+
+    private static ActivityStreams streams(int size) {
+        ByteBuffer time = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer distance = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer heartrate = ByteBuffer.allocate(size * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < size; i++) {
+            time.putInt(i * 2);
+            distance.putFloat(i * 7.5f);
+            heartrate.putShort((short) (100 + i));
+        }
+        return ActivityStreams.of(size, Map.of(
+                Channel.TIME, time.flip(), Channel.DISTANCE, distance.flip(), Channel.HEARTRATE, heartrate.flip()));
+    }
+}
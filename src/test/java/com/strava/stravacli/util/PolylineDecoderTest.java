@@ -0,0 +1,76 @@
+package com.strava.stravacli.util;
+
+import com.strava.stravacli.TestActivities;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolylineDecoderTest {
+
+    @Test
+    void decodesTheReferenceExample() {
+        // the example from Google's description of the format
+        PolylineDecoder decoder = new PolylineDecoder();
+        assertEquals(3, decoder.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@"));
+
+        assertEquals(3_850_000, decoder.latitudeE5(0));
+        assertEquals(-12_020_000, decoder.longitudeE5(0));
+        assertEquals(4_070_000, decoder.latitudeE5(1));
+        assertEquals(-12_095_000, decoder.longitudeE5(1));
+        assertEquals(4_325_200, decoder.latitudeE5(2));
+        assertEquals(-12_645_300, decoder.longitudeE5(2));
+        assertEquals(43.252, decoder.latitude(2), 1e-9);
+        assertEquals(-126.453, decoder.longitude(2), 1e-9);
+    }
+
+    @Test
+    void nullAndEmptyDecodeToNoPoints() {
+        PolylineDecoder decoder = new PolylineDecoder();
+        decoder.decode("_p~iF~ps|U");
+        assertEquals(0, decoder.decode(null));
+        assertEquals(0, decoder.decode(""));
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    void roundTripsRandomRoutesWhileReusingTheBuffers() {
+        SplittableRandom random = new SplittableRandom(24);
+        PolylineDecoder decoder = new PolylineDecoder();
+        for (int route = 0; route < 50; route++) {
+            int[][] points = new int[1 + random.nextInt(1000)][];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new int[]{random.nextInt(-9_000_000, 9_000_001), random.nextInt(-18_000_000, 18_000_001)};
+            }
+
+            assertEquals(points.length, decoder.decode(TestActivities.polyline(points)));
+            for (int i = 0; i < points.length; i++) {
+                assertEquals(points[i][0], decoder.latitudeE5(i), "latitude " + i);
+                assertEquals(points[i][1], decoder.longitudeE5(i), "longitude " + i);
+            }
+        }
+    }
+
+    @Test
+    void rejectsMalformedPolylines() {
+        PolylineDecoder decoder = new PolylineDecoder();
+        assertMessage("ends inside a value", decoder, "_p~iF~ps|");   // longitude cut short
+        assertMessage("ends inside a value", decoder, "_");
+        assertMessage("ends after a latitude", decoder, "_p~iF");
+        assertMessage("Invalid polyline character", decoder, "_p~iF ps|U"); // below '?'
+        assertMessage("Invalid polyline character", decoder, "_p~iF\u0080ps|U"); // above '~'
+        // an eighth chunk would shift past 32 bits
+        assertMessage("Invalid polyline character", decoder, "________?");
+        // the seventh chunk may only carry the top two bits of an int
+        assertMessage("overflows", decoder, "______C?");
+        assertEquals(1, decoder.decode("______B?")); // the largest value that still fits
+    }
+
+    private static void assertMessage(String expected, PolylineDecoder decoder, String encoded) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decoder.decode(encoded));
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+}
@@ -0,0 +1,114 @@
+package com.strava.stravacli.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+    /** The bound documented on {@link QuantileSketch} */
+    private static final double MAX_RANK_ERROR = 0.01;
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Test
+    void exactUpToTheExactLimit() {
+        double[] values = uniform(QuantileSketch.DEFAULT_EXACT_LIMIT, 1);
+        QuantileSketch sketch = sketch(values);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertTrue(sketch.isExact());
+        assertEquals((sorted[1023] + sorted[1024]) / 2, sketch.quantile(0.5));
+        assertEquals(sorted[0], sketch.quantile(0));
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1));
+    }
+
+    @Test
+    void rankErrorStaysWithinTheBoundBeyondTheExactLimit() {
+        for (int size : new int[]{QuantileSketch.DEFAULT_EXACT_LIMIT + 1, 5_000, 100_000, 1_000_000}) {
+            double[] uniform = uniform(size, size);
+            double[] logNormal = logNormal(size, size + 1);
+            double[] ascending = uniform.clone();
+            Arrays.sort(ascending);
+            double[] descending = new double[size];
+            for (int i = 0; i < size; i++) descending[i] = ascending[size - 1 - i];
+
+            for (double[] values : new double[][]{uniform, logNormal, ascending, descending}) {
+                assertWithinBound(values, sketch(values));
+                assertWithinBound(values, merged(values, 8));
+            }
+        }
+    }
+
+    @Test
+    void minimumAndMaximumStayExact() {
+        double[] values = logNormal(200_000, 7);
+        QuantileSketch sketch = sketch(values);
+        assertFalse(sketch.isExact());
+        assertEquals(Arrays.stream(values).min().orElseThrow(), sketch.quantile(0));
+        assertEquals(Arrays.stream(values).max().orElseThrow(), sketch.quantile(1));
+    }
+
+    /** The sketch's answer must be a value whose rank range in the exact sort is within the bound of q */
+    private static void assertWithinBound(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double last = sorted.length - 1;
+        for (double q : QUANTILES) {
+            double estimate = sketch.quantile(q);
+            int lowest = lowerBound(sorted, estimate);
+            int highest = lowerBound(sorted, Math.nextUp(estimate)) - 1;
+            assertTrue(highest >= lowest, "estimate " + estimate + " is not an input value");
+            double error = Math.max(0, Math.max(lowest / last - q, q - highest / last));
+            assertTrue(error <= MAX_RANK_ERROR,
+                    "rank error " + error + " at q=" + q + " for " + values.length + " values");
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static QuantileSketch sketch(double[] values) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) sketch.add(value);
+        return sketch;
+    }
+
+    private static QuantileSketch merged(double[] values, int partitions) {
+        QuantileSketch result = new QuantileSketch();
+        for (int p = 0; p < partitions; p++) {
+            int from = (int) ((long) values.length * p / partitions);
+            int to = (int) ((long) values.length * (p + 1) / partitions);
+            result.merge(sketch(Arrays.copyOfRange(values, from, to)));
+        }
+        return result;
+    }
+
+    private static double[] uniform(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) values[i] = random.nextDouble() * 100_000;
+        return values;
+    }
+
+    private static double[] logNormal(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+            values[i] = Math.exp(8 + gaussian);
+        }
+        return values;
+    }
+}